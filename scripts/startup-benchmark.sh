@@ -0,0 +1,141 @@
+#!/bin/sh
+# Measures how long the application takes to become ready and to answer its first decision, per build variant:
+#
+#   jar        java -jar of the Spring Boot jar                                   gradle bootJar
+#   classpath  the application and its dependencies as plain jars                 gradle cdsLayout
+#   cds        classpath with a class data sharing archive of a training run      gradle cdsLayout
+#   aot        cds with the Spring AOT generated initialization                   gradle -Pnative cdsLayout
+#   native     the GraalVM native image                                           gradle -Pnative nativeCompile
+#
+# Usage: scripts/startup-benchmark.sh [runs] [variant...]
+# Without variants, every variant that has been built is measured. Each run is appended to
+# build/startup/results.csv with the date and commit, to compare builds.
+
+set -eu
+
+RUNS=${1:-5}
+[ $# -gt 0 ] && shift
+VARIANTS=${*:-jar classpath cds aot native}
+BUILD_DIR=${BUILD_DIR:-build}
+PORT=${PORT:-18080}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JVM_ARGS="--add-modules jdk.incubator.vector"
+MAIN_CLASS=ee.taltech.inbankbackend.InbankBackendApplication
+BOOT_JAR=$(ls "$BUILD_DIR"/libs/*.jar 2>/dev/null | grep -v -- '-plain.jar$' | head -n 1 || true)
+CDS_DIR=$BUILD_DIR/cds
+NATIVE_IMAGE=$BUILD_DIR/native/nativeCompile/inbank-backend
+RESULTS=$BUILD_DIR/startup/results.csv
+LOG=$BUILD_DIR/startup/server.log
+REQUEST='{"personalCode":"50307172740","loanAmount":4000,"loanPeriod":24,"country":"Estonia"}'
+
+now_ms() {
+	echo $(($(date +%s%N) / 1000000))
+}
+
+decide() {
+	curl -s -o /dev/null -w '%{http_code} %{time_total}' -H 'Content-Type: application/json' -d "$REQUEST" \
+		"http://localhost:$PORT/loan/decision"
+}
+
+# Starts the server in the background with the given command, setting PID.
+start() {
+	"$@" --server.port="$PORT" > "$LOG" 2>&1 &
+	PID=$!
+}
+
+stop() {
+	kill "$PID"
+	wait "$PID" || true
+}
+
+# Waits until the server is ready (after its warm-up, if enabled), failing if it exits or takes longer than a minute.
+await_ready() {
+	deadline=$(($(now_ms) + 60000))
+	until curl -s -o /dev/null -f "http://localhost:$PORT/actuator/health/readiness"; do
+		if ! kill -0 "$PID" 2> /dev/null || [ "$(now_ms)" -gt "$deadline" ]; then
+			echo "Server did not start, see $LOG" >&2
+			exit 1
+		fi
+		sleep 0.01
+	done
+}
+
+# Runs the classpath once with some decisions and writes the classes it loaded to a CDS archive on exit.
+train() {
+	archive=$1
+	shift
+	echo "Creating $archive"
+	start "$JAVA" $JVM_ARGS -XX:ArchiveClassesAtExit="$archive" "$@" -cp "$CDS_DIR/lib/*" "$MAIN_CLASS"
+	await_ready
+	for i in 1 2 3 4 5 6 7 8 9 10; do
+		decide > /dev/null
+	done
+	stop
+}
+
+# Whether an archive exists and is newer than every jar it was trained with.
+fresh() {
+	[ -f "$1" ] && [ -z "$(find "$CDS_DIR/lib" -newer "$1")" ]
+}
+
+# Checks that a variant has been built, training its CDS archive if it has none yet.
+prepare() {
+	case $1 in
+		jar) [ -n "$BOOT_JAR" ] ;;
+		classpath) [ -d "$CDS_DIR/lib" ] ;;
+		cds)
+			[ -d "$CDS_DIR/lib" ] || return 1
+			fresh "$CDS_DIR/app.jsa" || train "$CDS_DIR/app.jsa" ;;
+		aot)
+			ls "$CDS_DIR"/lib/*-aot.jar > /dev/null 2>&1 || return 1
+			fresh "$CDS_DIR/app-aot.jsa" || train "$CDS_DIR/app-aot.jsa" -Dspring.aot.enabled=true ;;
+		native) [ -x "$NATIVE_IMAGE" ] ;;
+		*)
+			echo "Unknown variant $1" >&2
+			exit 1 ;;
+	esac
+}
+
+launch() {
+	case $1 in
+		jar) start "$JAVA" $JVM_ARGS -jar "$BOOT_JAR" ;;
+		classpath) start "$JAVA" $JVM_ARGS -cp "$CDS_DIR/lib/*" "$MAIN_CLASS" ;;
+		cds) start "$JAVA" $JVM_ARGS -XX:SharedArchiveFile="$CDS_DIR/app.jsa" -cp "$CDS_DIR/lib/*" "$MAIN_CLASS" ;;
+		aot)
+			start "$JAVA" $JVM_ARGS -XX:SharedArchiveFile="$CDS_DIR/app-aot.jsa" -Dspring.aot.enabled=true \
+				-cp "$CDS_DIR/lib/*" "$MAIN_CLASS" ;;
+		native) start "$NATIVE_IMAGE" ;;
+	esac
+}
+
+mkdir -p "$BUILD_DIR/startup"
+[ -f "$RESULTS" ] || echo "date,commit,variant,run,ready_ms,first_request_ms,rss_kb" > "$RESULTS"
+COMMIT=$(git rev-parse --short HEAD 2> /dev/null || echo unknown)
+DATE=$(date -u +%Y-%m-%dT%H:%M:%SZ)
+
+printf '%-10s %5s %10s %18s %10s\n' variant run "ready ms" "first request ms" "RSS MB"
+for variant in $VARIANTS; do
+	if ! prepare "$variant"; then
+		echo "Skipping $variant, not built" >&2
+		continue
+	fi
+	run=1
+	while [ "$run" -le "$RUNS" ]; do
+		started=$(now_ms)
+		launch "$variant"
+		await_ready
+		ready=$(($(now_ms) - started))
+		response=$(decide)
+		if [ "${response% *}" != 200 ]; then
+			echo "First decision answered with HTTP ${response% *}, see $LOG" >&2
+			stop
+			exit 1
+		fi
+		first=$(echo "${response#* }" | awk '{ printf "%.1f", $1 * 1000 }')
+		rss=$(awk '/VmRSS/ { print $2 }' "/proc/$PID/status" 2> /dev/null || echo 0)
+		stop
+		printf '%-10s %5d %10d %18s %10d\n' "$variant" "$run" "$ready" "$first" $((rss / 1024))
+		echo "$DATE,$COMMIT,$variant,$run,$ready,$first,$rss" >> "$RESULTS"
+		run=$((run + 1))
+	done
+done
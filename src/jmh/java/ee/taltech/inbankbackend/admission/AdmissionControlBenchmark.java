@@ -0,0 +1,56 @@
+package ee.taltech.inbankbackend.admission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+/**
+ * Cost of the admission checks on the request thread: taking a token of a
+ * known client and a place in the concurrency limit, and giving the place back
+ * as {@link AdmissionControlFilter} does when the response is complete.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AdmissionControlBenchmark {
+
+	private final Ticker ticker = Ticker.systemTicker();
+	private ClientRateLimiter unlimited;
+	private ClientRateLimiter exhausted;
+	private AdaptiveConcurrencyLimit concurrencyLimit;
+
+	@Setup
+	public void setUp() {
+		unlimited = new ClientRateLimiter(1e9, 1000, 100000);
+		exhausted = new ClientRateLimiter(0.001, 1, 100000);
+		exhausted.tryAcquire("partner", ticker.read());
+		concurrencyLimit = new AdaptiveConcurrencyLimit(100, 10, 1000, TimeUnit.MILLISECONDS.toNanos(250), 0.9,
+				ticker.read());
+		for (int i = 0; i < 1000; i++) {
+			unlimited.tryAcquire("client-" + i, ticker.read());
+		}
+	}
+
+	@Benchmark
+	public boolean admit() {
+		long start = ticker.read();
+		if (unlimited.tryAcquire("partner", start) > 0 || !concurrencyLimit.tryAcquire()) {
+			return false;
+		}
+		concurrencyLimit.release(start, ticker.read(), false);
+		return true;
+	}
+
+	@Benchmark
+	public long rateLimited() {
+		return exhausted.tryAcquire("partner", ticker.read());
+	}
+}
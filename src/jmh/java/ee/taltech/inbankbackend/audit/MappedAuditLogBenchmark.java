@@ -0,0 +1,63 @@
+package ee.taltech.inbankbackend.audit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import ee.taltech.inbankbackend.service.Country;
+import ee.taltech.inbankbackend.service.Decision;
+
+/**
+ * Cost of auditing a decision on the request thread. The writer thread runs
+ * alongside; when it falls behind, appends are dropped rather than slowed down,
+ * so compare the score with the written count printed at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappedAuditLogBenchmark {
+
+	@Param({ "0", "1000" })
+	public int fsyncRecords;
+
+	private Path directory;
+	private MappedAuditLog auditLog;
+	private Decision decision;
+	private long timestamp;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("audit-benchmark");
+		auditLog = new MappedAuditLog(directory, 64 * 1024 * 1024, 65536, fsyncRecords, 100);
+		decision = new Decision(3600, 12, null);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		auditLog.close();
+		System.out.printf("%n%d written, %d dropped%n", auditLog.getWrittenCount(), auditLog.getDroppedCount());
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public void append() {
+		auditLog.append(++timestamp, 42, "38411266610", 4000L, 12, Country.ESTONIA, decision);
+	}
+}
@@ -0,0 +1,65 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import ee.taltech.inbankbackend.service.CreditDataService;
+import ee.taltech.inbankbackend.service.CreditScoreCalculator;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionScenario;
+
+/**
+ * JSON reading of a DecisionRequest and writing of its DecisionResponse, with
+ * the object mapper configuration Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecisionJsonBenchmark {
+
+	@Param
+	public DecisionScenario scenario;
+
+	private ObjectReader requestReader;
+	private ObjectWriter responseWriter;
+	private byte[] requestJson;
+	private DecisionResponse response;
+
+	@Setup
+	public void setUp() throws IOException {
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		requestReader = objectMapper.readerFor(DecisionRequest.class);
+		responseWriter = objectMapper.writerFor(DecisionResponse.class);
+
+		DecisionRequest request = new DecisionRequest(scenario.personalCode, scenario.loanAmount, scenario.loanPeriod,
+				scenario.country);
+		requestJson = objectMapper.writeValueAsBytes(request);
+		DecisionEngine decisionEngine = new DecisionEngine(new CreditDataService(), new CreditScoreCalculator());
+		response = DecisionResponse.of(decisionEngine.evaluate(request.getPersonalCode(), request.getLoanAmount(),
+				request.getLoanPeriod(), request.getCountry()));
+	}
+
+	@Benchmark
+	public DecisionRequest readRequest() throws IOException {
+		return requestReader.readValue(requestJson);
+	}
+
+	@Benchmark
+	public byte[] writeResponse() throws IOException {
+		return responseWriter.writeValueAsBytes(response);
+	}
+}
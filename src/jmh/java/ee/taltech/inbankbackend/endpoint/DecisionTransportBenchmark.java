@@ -0,0 +1,100 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import ee.taltech.inbankbackend.InbankBackendApplication;
+
+/**
+ * A decision through {@code POST /loan/decision} on loopback, against the same
+ * decision over the binary protocol of {@link DecisionFrameServer}: one request
+ * at a time, and {@value #BATCH} requests at once. The REST batch is sent on as
+ * many HTTP/1.1 connections as the client opens, the binary batch is pipelined
+ * on a single connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecisionTransportBenchmark {
+
+	private static final int BATCH = 256;
+	private static final String REQUEST_BODY =
+			"{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":24,\"country\":\"Estonia\"}";
+
+	private final DecisionRequest decisionRequest = new DecisionRequest("50307172740", 4000L, 24, "Estonia");
+	private ConfigurableApplicationContext context;
+	private HttpClient httpClient;
+	private HttpRequest httpRequest;
+	private DecisionFrameClient frameClient;
+
+	@Setup
+	public void setUp() throws InterruptedException {
+		context = new SpringApplicationBuilder(InbankBackendApplication.class)
+				.web(WebApplicationType.SERVLET)
+				// Arguments, since application.properties takes precedence over default properties
+				.run("--server.port=0", "--decision.binary.enabled=true", "--decision.binary.port=0",
+						"--logging.level.root=warn");
+		int httpPort = ((WebServerApplicationContext) context).getWebServer().getPort();
+		httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		httpRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + httpPort + "/loan/decision"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+				.build();
+		frameClient = new DecisionFrameClient("localhost", context.getBean(DecisionFrameServer.class).getPort());
+	}
+
+	@TearDown
+	public void tearDown() {
+		frameClient.close();
+		context.close();
+	}
+
+	@Benchmark
+	public String rest() throws Exception {
+		return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString()).body();
+	}
+
+	@Benchmark
+	public ResponseEntity<DecisionResponse> binary() {
+		return frameClient.decide(decisionRequest).join();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public Object restConcurrent() {
+		CompletableFuture<?>[] responses = new CompletableFuture<?>[BATCH];
+		for (int i = 0; i < BATCH; i++) {
+			responses[i] = httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString());
+		}
+		return CompletableFuture.allOf(responses).join();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public Object binaryPipelined() {
+		CompletableFuture<?>[] responses = new CompletableFuture<?>[BATCH];
+		for (int i = 0; i < BATCH; i++) {
+			responses[i] = frameClient.decide(decisionRequest);
+		}
+		return CompletableFuture.allOf(responses).join();
+	}
+}
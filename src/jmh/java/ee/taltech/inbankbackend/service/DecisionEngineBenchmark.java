@@ -0,0 +1,97 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The decision path and its stages, for every {@link DecisionScenario}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecisionEngineBenchmark {
+
+	@Param
+	public DecisionScenario scenario;
+
+	private final CreditDataService creditDataService = new CreditDataService();
+	private DecisionEngine decisionEngine;
+	private DecisionEngine instrumentedDecisionEngine;
+	private Country country;
+	private long decodedPersonalCode;
+
+	@Setup
+	public void setUp() {
+		CreditScoreCalculator creditScoreCalculator = new CreditScoreCalculator();
+		decisionEngine = new DecisionEngine(creditDataService, creditScoreCalculator);
+		instrumentedDecisionEngine = new DecisionEngine(creditDataService, creditScoreCalculator,
+				LoanPeriodSolver.forCalculator(creditScoreCalculator), true,
+				new DecisionMetrics(new SimpleMeterRegistry()));
+		country = Country.fromName(scenario.country);
+		decodedPersonalCode = country != null ? country.decode(scenario.personalCode) : PersonalCodeDecoder.INVALID;
+	}
+
+	// Rejections are thrown, the exception is the result.
+	@Benchmark
+	public Object calculateApprovedLoan() {
+		try {
+			return decisionEngine.calculateApprovedLoan(scenario.personalCode, scenario.loanAmount,
+					scenario.loanPeriod, scenario.country);
+		} catch (Throwable e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Decision evaluate() {
+		return decisionEngine.evaluate(scenario.personalCode, scenario.loanAmount, scenario.loanPeriod,
+				scenario.country);
+	}
+
+	// Same as evaluate, with a trace of the decision path. evaluate itself must not get slower for it.
+	@Benchmark
+	public Decision explain() {
+		return decisionEngine.explainAsync(scenario.personalCode, scenario.loanAmount, scenario.loanPeriod,
+				scenario.country, new DecisionTrace()).join();
+	}
+
+	// Same as evaluate, with the metrics recorded into a real registry.
+	@Benchmark
+	public Decision evaluateInstrumented() {
+		return instrumentedDecisionEngine.evaluate(scenario.personalCode, scenario.loanAmount, scenario.loanPeriod,
+				scenario.country);
+	}
+
+	@Benchmark
+	public RejectionReason verifyInputs() {
+		Country country = Country.fromName(scenario.country);
+		long decoded = country != null ? country.decode(scenario.personalCode) : PersonalCodeDecoder.INVALID;
+		return decisionEngine.verifyInputs(decoded, scenario.loanAmount, scenario.loanPeriod, country);
+	}
+
+	@Benchmark
+	public boolean isValidAge() {
+		return country != null && AgeVerificator.isValidAge(scenario.personalCode, country, scenario.loanPeriod);
+	}
+
+	@Benchmark
+	public int getCreditModifier() {
+		return creditDataService.getCreditModifier(scenario.personalCode);
+	}
+
+	@Benchmark
+	public int getCreditModifierDecoded() {
+		return creditDataService.getCreditModifier(decodedPersonalCode);
+	}
+}
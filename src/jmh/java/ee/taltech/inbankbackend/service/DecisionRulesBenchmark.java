@@ -0,0 +1,62 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Evaluates a generated rule set against every {@link DecisionScenario}. The
+ * rules mix country caps, age and loan period limits and blocked personal
+ * codes, and none of them rejects the scenarios, so every rule is checked.
+ * The customer is taken to be 40 years old.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecisionRulesBenchmark {
+
+	@Param
+	public DecisionScenario scenario;
+
+	@Param({ "10", "60" })
+	public int ruleCount;
+
+	private DecisionRules rules;
+	private Country country;
+	private int age;
+
+	@Setup
+	public void setUp() {
+		StringJoiner json = new StringJoiner(",\n", "[\n", "\n]");
+		for (int i = 0; i < ruleCount; i++) {
+			json.add(switch (i % 4) {
+			case 0 -> ("{ \"if\": { \"country\": \"Latvia\", \"loanAmount\": { \"gt\": %d } }, "
+					+ "\"then\": { \"maxLoanAmount\": %d } }").formatted(20000 + i, 20000 + i);
+			case 1 -> ("{ \"if\": { \"age\": { \"lt\": 19 }, \"loanPeriod\": { \"gt\": %d } }, "
+					+ "\"then\": { \"reject\": \"INVALID_LOAN_PERIOD\" } }").formatted(24 + i % 36);
+			case 2 -> "{ \"if\": { \"country\": { \"in\": [ \"Estonia\", \"Lithuania\" ] }, "
+					+ "\"age\": { \"gt\": 100 } }, \"then\": { \"reject\": \"INVALID_CUSTOMER_AGE\" } }";
+			default -> ("{ \"if\": { \"personalCode\": { \"in\": [ \"%011d\", \"%011d\" ] } }, "
+					+ "\"then\": { \"reject\": \"NO_VALID_LOAN\" } }").formatted(i, i + 1);
+			});
+		}
+		rules = DecisionRules.parse(json.toString());
+		// Scenarios rejected for their country never reach the rules; check them as Estonian.
+		country = Objects.requireNonNullElse(Country.fromName(scenario.country), Country.ESTONIA);
+		age = 40;
+	}
+
+	@Benchmark
+	public int evaluate() {
+		return rules.evaluate(country, scenario.loanAmount, scenario.loanPeriod, age, scenario.personalCode);
+	}
+}
@@ -0,0 +1,30 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Benchmark inputs covering every outcome of a decision: each credit segment,
+ * an extended loan period and each rejection reason.
+ */
+public enum DecisionScenario {
+	APPROVED_SEGMENT_1("50307172740", 4000L, 24, "Estonia"),
+	APPROVED_SEGMENT_2("38411266610", 4000L, 12, "Estonia"),
+	APPROVED_SEGMENT_3("010190-17502", 10000L, 60, "Latvia"),
+	APPROVED_EXTENDED_PERIOD("50307172740", 2000L, 12, "Lithuania"),
+	NO_VALID_LOAN("37605030299", 4000L, 12, "Estonia"),
+	INVALID_COUNTRY("38411266610", 4000L, 12, "Finland"),
+	INVALID_PERSONAL_CODE("12345678901", 4000L, 12, "Estonia"),
+	INVALID_CUSTOMER_AGE("61501017504", 4000L, 12, "Estonia"),
+	INVALID_LOAN_AMOUNT("38411266610", 1000L, 12, "Estonia"),
+	INVALID_LOAN_PERIOD("38411266610", 4000L, 6, "Estonia");
+
+	public final String personalCode;
+	public final Long loanAmount;
+	public final int loanPeriod;
+	public final String country;
+
+	DecisionScenario(String personalCode, Long loanAmount, int loanPeriod, String country) {
+		this.personalCode = personalCode;
+		this.loanAmount = loanAmount;
+		this.loanPeriod = loanPeriod;
+		this.country = country;
+	}
+}
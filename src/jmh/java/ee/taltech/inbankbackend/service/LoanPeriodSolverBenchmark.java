@@ -0,0 +1,74 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+/**
+ * Compares the loan period solvers with the linear scan they replaced, for the
+ * credit modifier of every segment and the shortest requested period (the worst
+ * case for the scan). {@code scorerCost} simulates a scoring model that does
+ * real work per call, which is where the number of scorer calls starts to
+ * matter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoanPeriodSolverBenchmark {
+
+	@Param({ "100", "300", "1000" })
+	public int creditModifier;
+
+	@Param({ "12" })
+	public int requestedPeriod;
+
+	@Param({ "0", "200" })
+	public int scorerCost;
+
+	private CreditScoreCalculator calculator;
+	private LoanPeriodSolver closedForm;
+	private LoanPeriodSolver binarySearch;
+
+	@Setup
+	public void setUp() {
+		int cost = scorerCost;
+		calculator = new CreditScoreCalculator() {
+			@Override
+			public int calculateCreditScore(int creditModifier, int loanPeriod) {
+				Blackhole.consumeCPU(cost);
+				return super.calculateCreditScore(creditModifier, loanPeriod);
+			}
+		};
+		closedForm = new ClosedFormLoanPeriodSolver(calculator);
+		binarySearch = new BinarySearchLoanPeriodSolver(calculator);
+	}
+
+	@Benchmark
+	public int linearScan() {
+		int loanPeriod = requestedPeriod;
+		while (calculator.calculateCreditScore(creditModifier, loanPeriod) < DecisionEngineConstants.MINIMUM_LOAN_AMOUNT) {
+			loanPeriod++;
+		}
+		return loanPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD ? loanPeriod : LoanPeriodSolver.NO_LOAN_PERIOD;
+	}
+
+	@Benchmark
+	public int closedForm() {
+		return closedForm.findLoanPeriod(creditModifier, requestedPeriod);
+	}
+
+	@Benchmark
+	public int binarySearch() {
+		return binarySearch.findLoanPeriod(creditModifier, requestedPeriod);
+	}
+}
@@ -0,0 +1,62 @@
+package ee.taltech.inbankbackend.service;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.vladislavgoltjajev.personalcode.exception.PersonalCodeException;
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeParser;
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeValidator;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+/**
+ * Personal code checks of one request: code validity, age and credit segment.
+ * Run with {@code -prof gc}; {@code gc.alloc.rate.norm} of {@code decoder}
+ * should be 0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PersonalCodeDecoderBenchmark {
+
+	private static final LocalDate MINIMUM_AGE = LocalDate.now().minusYears(DecisionEngineConstants.MINIMUM_AGE_YEARS);
+	private static final LocalDate MAXIMUM_AGE = LocalDate.now().minusYears(DecisionEngineConstants.MAXIMUM_AGE_YEARS);
+
+	@Param({ "38411266610", "12345678901" })
+	public String personalCode;
+
+	private final CreditDataService creditDataService = new CreditDataService();
+
+	@Benchmark
+	public int decoder() {
+		long decoded = PersonalCodeDecoder.decode(personalCode);
+		if (!PersonalCodeDecoder.isValid(decoded) || !AgeVerificator.isValidAge(decoded, 24)) {
+			return -1;
+		}
+		return creditDataService.getCreditModifier(decoded);
+	}
+
+	// The checks as they were done before the decoder: three separate parses of the code.
+	// The age limits were computed once at class load.
+	@Benchmark
+	public int library() throws PersonalCodeException {
+		if (!new EstonianPersonalCodeValidator().isValid(personalCode)) {
+			return -1;
+		}
+		LocalDate dateOfBirth = new EstonianPersonalCodeParser().getDateOfBirth(personalCode);
+		LocalDate maxAgeMinusLoanPeriod = MAXIMUM_AGE.minusMonths(24);
+		if (dateOfBirth.getYear() >= MINIMUM_AGE.getYear()
+				|| dateOfBirth.getYear() <= maxAgeMinusLoanPeriod.getYear()) {
+			return -1;
+		}
+		return creditDataService.getCreditModifier(personalCode);
+	}
+}
@@ -0,0 +1,80 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+/**
+ * Scores a batch of applications with each scoring model, one at a time and as
+ * a batch. {@code model} is {@code linear}, {@code logistic-scalar} or
+ * {@code logistic-vector}; the last falls back to the scalar loop if the JVM
+ * lacks the Vector API module. Times are per application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ScoringModelBenchmark.BATCH_SIZE)
+public class ScoringModelBenchmark {
+
+	static final int BATCH_SIZE = 4096;
+
+	@Param({ "linear", "logistic-scalar", "logistic-vector" })
+	public String model;
+
+	@Param({ "0", "4" })
+	public int featureCount;
+
+	private ScoringModel scoringModel;
+	private final int[] creditModifiers = new int[BATCH_SIZE];
+	private final int[] loanPeriods = new int[BATCH_SIZE];
+	private final int[] scores = new int[BATCH_SIZE];
+	private float[] features;
+
+	@Setup
+	public void setUp() {
+		float[] featureWeights = new float[featureCount];
+		features = new float[featureCount * BATCH_SIZE];
+		Random random = new Random(42);
+		for (int f = 0; f < featureCount; f++) {
+			featureWeights[f] = random.nextFloat() - 0.5f;
+		}
+		for (int i = 0; i < features.length; i++) {
+			features[i] = random.nextFloat();
+		}
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			creditModifiers[i] = random.nextInt(1000);
+			loanPeriods[i] = DecisionEngineConstants.MINIMUM_LOAN_PERIOD + random.nextInt(49);
+		}
+		scoringModel = switch (model) {
+		case "linear" -> new LinearScoringModel();
+		case "logistic-scalar" -> new LogisticScoringModel(10000, -4, 0.004f, 0.04f, featureWeights, false);
+		case "logistic-vector" -> new LogisticScoringModel(10000, -4, 0.004f, 0.04f, featureWeights, true);
+		default -> throw new IllegalArgumentException("Unknown model: " + model);
+		};
+	}
+
+	@Benchmark
+	public int[] single() {
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			scores[i] = scoringModel.score(creditModifiers[i], loanPeriods[i]);
+		}
+		return scores;
+	}
+
+	@Benchmark
+	public int[] batch() {
+		scoringModel.scoreBatch(creditModifiers, loanPeriods, features, scores, BATCH_SIZE);
+		return scores;
+	}
+}
@@ -0,0 +1,60 @@
+package ee.taltech.inbankbackend;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import ee.taltech.inbankbackend.endpoint.NdjsonDecisionPipeline;
+
+/**
+ * Command line entry point for the NDJSON decision pipeline. Starts the decision
+ * engine without the web server and streams decisions from a file (or standard
+ * input) to a file (or standard output).<br>
+ * <br>
+ * Usage: {@code DecisionStreamCli [--input=<file>] [--output=<file>] [--unordered]}
+ * Any other {@code --key=value} argument is passed on as a Spring property, e.g.
+ * {@code --decision.executor.threads=16}.
+ */
+public class DecisionStreamCli {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	public static void main(String[] args) throws IOException {
+		String input = null;
+		String output = null;
+		boolean ordered = true;
+		for (String arg : args) {
+			if (arg.startsWith("--input=")) {
+				input = arg.substring("--input=".length());
+			} else if (arg.startsWith("--output=")) {
+				output = arg.substring("--output=".length());
+			} else if (arg.equals("--unordered")) {
+				ordered = false;
+			}
+		}
+
+		// Decisions go to the real standard output, everything that logs goes to stderr.
+		OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+		System.setOut(System.err);
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(InbankBackendApplication.class)
+				.web(WebApplicationType.NONE).bannerMode(Banner.Mode.OFF).run(args);
+				InputStream in = input == null ? new FileInputStream(FileDescriptor.in)
+						: Files.newInputStream(Path.of(input));
+				OutputStream out = new BufferedOutputStream(
+						output == null ? stdout : Files.newOutputStream(Path.of(output)), BUFFER_SIZE)) {
+			context.getBean(NdjsonDecisionPipeline.class).run(in, out, ordered);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package ee.taltech.inbankbackend.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A limit on the requests in flight that adapts to their latency (additive
+ * increase, multiplicative decrease). A request that finishes within the
+ * latency target while the limit is at least half used raises the limit by
+ * one; a request that takes longer, or fails, multiplies it by the backoff
+ * ratio. Only requests that started after the last decrease can decrease it
+ * again, so one slow period shrinks the limit once instead of once per request
+ * that was caught in it.<br>
+ * <br>
+ * The limit and the requests in flight are atomics; acquiring and releasing
+ * take no lock.
+ */
+public class AdaptiveConcurrencyLimit {
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long latencyTargetNanos;
+	private final double backoffRatio;
+	private final AtomicInteger limit;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong lastDecrease;
+
+	/**
+	 * @param initialLimit       Limit before the first adjustment
+	 * @param minLimit           Lowest limit
+	 * @param maxLimit           Highest limit
+	 * @param latencyTargetNanos Longest latency that raises the limit
+	 * @param backoffRatio       Factor applied to the limit on a slow or failed
+	 *                           request, between 0 and 1
+	 * @param startNanos         Current time, as used for {@link #release}
+	 */
+	public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos,
+			double backoffRatio, long startNanos) {
+		if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException(
+					"Invalid concurrency limits: " + initialLimit + " in " + minLimit + "..." + maxLimit);
+		}
+		if (backoffRatio <= 0 || backoffRatio >= 1) {
+			throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyTargetNanos = latencyTargetNanos;
+		this.backoffRatio = backoffRatio;
+		this.limit = new AtomicInteger(initialLimit);
+		this.lastDecrease = new AtomicLong(startNanos);
+	}
+
+	/**
+	 * @return True if the request may run, in which case it must be released
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inFlight.get();
+			if (current >= limit.get()) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Releases an acquired request and adjusts the limit to its outcome.
+	 *
+	 * @param startNanos Time the request was admitted
+	 * @param endNanos   Time the request finished
+	 * @param failed     Whether the request failed on the server side
+	 */
+	public void release(long startNanos, long endNanos, boolean failed) {
+		int before = inFlight.getAndDecrement();
+		if (failed || endNanos - startNanos > latencyTargetNanos) {
+			long last = lastDecrease.get();
+			if (startNanos - last >= 0 && lastDecrease.compareAndSet(last, endNanos)) {
+				limit.updateAndGet(l -> Math.max(minLimit, (int) (l * backoffRatio)));
+			}
+			return;
+		}
+		int current = limit.get();
+		// Only a limit in use has proven it can grow.
+		if (current < maxLimit && before * 2 >= current) {
+			limit.compareAndSet(current, current + 1);
+		}
+	}
+
+	/**
+	 * @return Current limit
+	 */
+	public int getLimit() {
+		return limit.get();
+	}
+
+	/**
+	 * @return Requests acquired and not yet released
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+}
@@ -0,0 +1,188 @@
+package ee.taltech.inbankbackend.admission;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+/**
+ * Sheds decision requests before their body is read. A client over its rate
+ * gets 429 Too Many Requests; a request beyond the concurrency limit of the
+ * node gets 503 Service Unavailable. Both carry a Retry-After header and a
+ * prepared JSON body, so a shed request costs no parsing, validation or
+ * allocation beyond the response.<br>
+ * <br>
+ * Clients are identified by their API key header if it holds one of the
+ * configured keys, and by their address otherwise. The header is not trusted
+ * on its own: a caller could send a new key with every request to get a full
+ * bucket each time, and push the buckets of real clients out of the
+ * {@link ClientRateLimiter}. An admitted request holds its place in the concurrency limit until
+ * its response is complete, including the asynchronous part, and its latency
+ * and status then adjust the limit.
+ */
+public class AdmissionControlFilter implements Filter {
+
+	private final String clientHeader;
+	private final Set<String> apiKeys;
+	private final ClientRateLimiter rateLimiter;
+	private final AdaptiveConcurrencyLimit concurrencyLimit;
+	private final Ticker ticker;
+	private final byte[] rateLimitedBody;
+	private final byte[] overloadedBody;
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder rateLimited = new LongAdder();
+	private final LongAdder overloaded = new LongAdder();
+
+	/**
+	 * @param clientHeader     Request header holding the API key of the client
+	 * @param apiKeys          API keys that identify a client, other values of
+	 *                         the header are ignored
+	 * @param rateLimiter      Token buckets of the clients
+	 * @param concurrencyLimit Limit of the requests in flight
+	 * @param ticker           Source of the current time in nanoseconds
+	 * @param rateLimitedBody  Body of 429 responses
+	 * @param overloadedBody   Body of 503 responses
+	 */
+	public AdmissionControlFilter(String clientHeader, Set<String> apiKeys, ClientRateLimiter rateLimiter,
+			AdaptiveConcurrencyLimit concurrencyLimit, Ticker ticker, byte[] rateLimitedBody, byte[] overloadedBody) {
+		this.clientHeader = clientHeader;
+		this.apiKeys = Set.copyOf(apiKeys);
+		this.rateLimiter = rateLimiter;
+		this.concurrencyLimit = concurrencyLimit;
+		this.ticker = ticker;
+		this.rateLimitedBody = rateLimitedBody;
+		this.overloadedBody = overloadedBody;
+	}
+
+	@Override
+	public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+			throws IOException, ServletException {
+		HttpServletRequest request = (HttpServletRequest) servletRequest;
+		HttpServletResponse response = (HttpServletResponse) servletResponse;
+		long start = ticker.read();
+		long wait = rateLimiter.tryAcquire(clientOf(request), start);
+		if (wait > 0) {
+			rateLimited.increment();
+			// Rounded up, so the client does not retry too early
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1,
+					rateLimitedBody);
+			return;
+		}
+		if (!concurrencyLimit.tryAcquire()) {
+			overloaded.increment();
+			reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, overloadedBody);
+			return;
+		}
+		admitted.increment();
+		boolean failed = true;
+		try {
+			chain.doFilter(request, response);
+			failed = false;
+		} finally {
+			if (!failed && request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new ReleaseListener(start, response));
+			} else {
+				concurrencyLimit.release(start, ticker.read(), failed || isServerError(response));
+			}
+		}
+	}
+
+	/**
+	 * @return Requests passed on to the endpoint
+	 */
+	public long getAdmittedCount() {
+		return admitted.sum();
+	}
+
+	/**
+	 * @return Requests answered with 429 because the client was over its rate
+	 */
+	public long getRateLimitedCount() {
+		return rateLimited.sum();
+	}
+
+	/**
+	 * @return Requests answered with 503 because the node was at its limit
+	 */
+	public long getOverloadedCount() {
+		return overloaded.sum();
+	}
+
+	private String clientOf(HttpServletRequest request) {
+		String apiKey = request.getHeader(clientHeader);
+		// Keeps an address and an API key that looks like one apart.
+		return apiKey != null && apiKeys.contains(apiKey) ? apiKey : "address:" + request.getRemoteAddr();
+	}
+
+	private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, byte[] body)
+			throws IOException {
+		response.setStatus(status.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	private static boolean isServerError(HttpServletResponse response) {
+		return response.getStatus() >= 500;
+	}
+
+	/**
+	 * Releases an asynchronous request once, however it ends.
+	 */
+	private class ReleaseListener implements AsyncListener {
+
+		private final long start;
+		private final HttpServletResponse response;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		ReleaseListener(long start, HttpServletResponse response) {
+			this.start = start;
+			this.response = response;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			release(isServerError(response));
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			release(true);
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			release(true);
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// Async processing restarted on a dispatch; this listener is not carried over.
+			event.getAsyncContext().addListener(this);
+		}
+
+		private void release(boolean failed) {
+			if (released.compareAndSet(false, true)) {
+				concurrencyLimit.release(start, ticker.read(), failed);
+			}
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package ee.taltech.inbankbackend.admission;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket per client: every client may send {@code burst} requests at
+ * once and {@code ratePerSecond} requests per second after that.<br>
+ * <br>
+ * A bucket is a single {@link AtomicLong}: the time at which it will be full
+ * again (the generic cell rate algorithm). Taking a token is a map lookup and
+ * one compare-and-set, so clients never wait for each other and a request
+ * never blocks. When a new client would exceed {@code maxClients} buckets, the
+ * full ones are dropped, which loses nothing, since a new bucket starts full.
+ * If that is not enough, arbitrary buckets are dropped as well.
+ */
+public class ClientRateLimiter {
+
+	private final long emissionIntervalNanos;
+	private final long burstToleranceNanos;
+	private final int maxClients;
+	private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+
+	/**
+	 * @param ratePerSecond Tokens added to a bucket per second
+	 * @param burst         Tokens a full bucket holds
+	 * @param maxClients    Maximum number of buckets kept
+	 */
+	public ClientRateLimiter(double ratePerSecond, int burst, int maxClients) {
+		if (ratePerSecond <= 0 || burst < 1 || maxClients < 1) {
+			throw new IllegalArgumentException(
+					"Rate, burst and clients must be positive: " + ratePerSecond + ", " + burst + ", " + maxClients);
+		}
+		this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+		this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+		this.maxClients = maxClients;
+	}
+
+	/**
+	 * Takes a token from the bucket of a client.
+	 *
+	 * @param client   API key or address of the client
+	 * @param nowNanos Current {@link System#nanoTime()}
+	 * @return 0 if the request is admitted, otherwise the nanoseconds until the
+	 *         bucket has a token again
+	 */
+	public long tryAcquire(String client, long nowNanos) {
+		AtomicLong bucket = buckets.get(client);
+		if (bucket == null) {
+			if (buckets.size() >= maxClients) {
+				sweep(nowNanos);
+			}
+			AtomicLong created = new AtomicLong(nowNanos);
+			bucket = buckets.putIfAbsent(client, created);
+			if (bucket == null) {
+				bucket = created;
+			}
+		}
+		while (true) {
+			long full = bucket.get();
+			// The bucket cannot fill up in the past.
+			long start = full - nowNanos > 0 ? full : nowNanos;
+			long wait = start - nowNanos - burstToleranceNanos;
+			if (wait > 0) {
+				return wait;
+			}
+			if (bucket.compareAndSet(full, start + emissionIntervalNanos)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * @return Number of clients with a bucket
+	 */
+	public int getClientCount() {
+		return buckets.size();
+	}
+
+	private void sweep(long nowNanos) {
+		// One sweep at a time; other new clients go ahead meanwhile.
+		if (!sweeping.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			buckets.values().removeIf(bucket -> bucket.get() - nowNanos <= 0);
+			Iterator<AtomicLong> iterator = buckets.values().iterator();
+			// Leaves room for new clients, so the next ones do not sweep again right away.
+			while (buckets.size() >= maxClients - maxClients / 10 && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		} finally {
+			sweeping.set(false);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package ee.taltech.inbankbackend.audit;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import ee.taltech.inbankbackend.service.DecisionAuditLog;
+
+/**
+ * Health of the audit log: down while the writer of a {@link MappedAuditLog}
+ * cannot write its segments. It is part of the readiness group, so the
+ * application stops taking traffic rather than deciding loans it does not
+ * record. A disabled audit log is always up.
+ */
+public class AuditLogHealthIndicator implements HealthIndicator {
+
+	private final DecisionAuditLog auditLog;
+
+	/**
+	 * @param auditLog Audit log of the decision engine
+	 */
+	public AuditLogHealthIndicator(DecisionAuditLog auditLog) {
+		this.auditLog = auditLog;
+	}
+
+	@Override
+	public Health health() {
+		if (!(auditLog instanceof MappedAuditLog mappedAuditLog)) {
+			return Health.up().withDetail("enabled", false).build();
+		}
+		Throwable failure = mappedAuditLog.getFailure();
+		Health.Builder health = failure == null ? Health.up() : Health.down().withException(failure);
+		return health.withDetail("written", mappedAuditLog.getWrittenCount())
+				.withDetail("dropped", mappedAuditLog.getDroppedCount())
+				.build();
+	}
+}
@@ -0,0 +1,203 @@
+package ee.taltech.inbankbackend.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Reads the segments of a {@link MappedAuditLog} and exports them.<br>
+ * <br>
+ * Usage:
+ * {@code AuditLogReader --dir=<directory> [--format=csv|json] [--output=<file>]}
+ * The export goes to standard output unless a file is given. CSV has a header
+ * line; JSON is one object per line. Records that were cut short by a crash
+ * fail their checksum; they are skipped and counted on standard error.
+ */
+public final class AuditLogReader {
+
+	private static final String CSV_HEADER = "timestamp,policyVersion,personalCode,country,loanAmount,loanPeriod,"
+			+ "approvedLoanAmount,approvedLoanPeriod,rejectionReason";
+
+	private AuditLogReader() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path directory = null;
+		String format = "csv";
+		Path output = null;
+		for (String arg : args) {
+			if (arg.startsWith("--dir=")) {
+				directory = Path.of(arg.substring("--dir=".length()));
+			} else if (arg.startsWith("--format=")) {
+				format = arg.substring("--format=".length());
+			} else if (arg.startsWith("--output=")) {
+				output = Path.of(arg.substring("--output=".length()));
+			}
+		}
+		if (directory == null) {
+			System.err.println("Usage: AuditLogReader --dir=<directory> [--format=csv|json] [--output=<file>]");
+			System.exit(2);
+		}
+
+		long corrupted;
+		try (Writer out = new BufferedWriter(output == null
+				? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+				: Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+			corrupted = export(directory, format, out);
+		}
+		if (corrupted > 0) {
+			System.err.println(corrupted + " corrupted records skipped");
+		}
+	}
+
+	/**
+	 * @param directory Directory of the segment files
+	 * @return The segment files in the order they were written
+	 * @throws IOException If the directory cannot be listed
+	 */
+	public static List<Path> segments(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> {
+				String name = file.getFileName().toString();
+				return name.startsWith(MappedAuditLog.SEGMENT_PREFIX) && name.endsWith(MappedAuditLog.SEGMENT_SUFFIX);
+			}).sorted().toList();
+		}
+	}
+
+	/**
+	 * Reads every record of every segment, in the order they were written.
+	 *
+	 * @param directory Directory of the segment files
+	 * @param consumer  Receives the records
+	 * @return Number of records skipped because their checksum did not match
+	 * @throws IOException If a segment cannot be read or is not an audit segment
+	 */
+	public static long read(Path directory, Consumer<AuditRecord> consumer) throws IOException {
+		CRC32C checksum = new CRC32C();
+		long corrupted = 0;
+		for (Path file : segments(directory)) {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				segment.order(ByteOrder.LITTLE_ENDIAN);
+				if (segment.capacity() < MappedAuditLog.HEADER_SIZE || segment.getInt(0) != MappedAuditLog.MAGIC
+						|| segment.getInt(4) != MappedAuditLog.FORMAT_VERSION
+						|| segment.getInt(8) != AuditRecord.SIZE) {
+					throw new IOException("Not an audit segment: " + file);
+				}
+				for (int offset = MappedAuditLog.HEADER_SIZE; offset + AuditRecord.SIZE <= segment.capacity()
+						&& !AuditRecord.isEmpty(segment, offset); offset += AuditRecord.SIZE) {
+					if (AuditRecord.isIntact(segment, offset, checksum)) {
+						consumer.accept(AuditRecord.read(segment, offset));
+					} else {
+						corrupted++;
+					}
+				}
+			}
+		}
+		return corrupted;
+	}
+
+	/**
+	 * Exports every record.
+	 *
+	 * @param directory Directory of the segment files
+	 * @param format    {@code csv} or {@code json}
+	 * @param out       Receives the export
+	 * @return Number of records skipped because their checksum did not match
+	 * @throws IOException If a segment cannot be read or the export not written
+	 */
+	public static long export(Path directory, String format, Writer out) throws IOException {
+		return switch (format) {
+		case "csv" -> exportCsv(directory, out);
+		case "json" -> exportJson(directory, out);
+		default -> throw new IllegalArgumentException("Unknown format: " + format);
+		};
+	}
+
+	private static long exportCsv(Path directory, Writer out) throws IOException {
+		out.write(CSV_HEADER);
+		out.write('\n');
+		StringBuilder line = new StringBuilder();
+		try {
+			return read(directory, record -> {
+				line.setLength(0);
+				line.append(record.timestampMillis()).append(',').append(record.policyVersion()).append(',');
+				appendCsvText(line, record.personalCode());
+				line.append(',').append(record.country() == null ? "" : record.country().getName())
+						.append(',').append(record.loanAmount() == null ? "" : record.loanAmount())
+						.append(',').append(record.loanPeriod())
+						.append(',').append(record.approvedLoanAmount() == null ? "" : record.approvedLoanAmount())
+						.append(',').append(record.approvedLoanPeriod() == null ? "" : record.approvedLoanPeriod())
+						.append(',').append(record.rejectionReason() == null ? "" : record.rejectionReason())
+						.append('\n');
+				write(out, line);
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static long exportJson(Path directory, Writer out) throws IOException {
+		try (JsonGenerator json = new JsonFactory().createGenerator(out)) {
+			json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+			json.setRootValueSeparator(null);
+			long corrupted = read(directory, record -> {
+				try {
+					json.writeStartObject();
+					json.writeNumberField("timestamp", record.timestampMillis());
+					json.writeNumberField("policyVersion", record.policyVersion());
+					json.writeStringField("personalCode", record.personalCode());
+					json.writeStringField("country", record.country() == null ? null : record.country().getName());
+					json.writeObjectField("loanAmount", record.loanAmount());
+					json.writeNumberField("loanPeriod", record.loanPeriod());
+					json.writeObjectField("approvedLoanAmount", record.approvedLoanAmount());
+					json.writeObjectField("approvedLoanPeriod", record.approvedLoanPeriod());
+					json.writeStringField("rejectionReason",
+							record.rejectionReason() == null ? null : record.rejectionReason().name());
+					json.writeEndObject();
+					json.writeRaw('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			return corrupted;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static void appendCsvText(StringBuilder line, String text) {
+		if (text == null) {
+			return;
+		}
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+			line.append(text);
+		} else {
+			line.append('"').append(text.replace("\"", "\"\"")).append('"');
+		}
+	}
+
+	private static void write(Writer out, CharSequence text) {
+		try {
+			out.append(text);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package ee.taltech.inbankbackend.audit;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
+import ee.taltech.inbankbackend.service.Country;
+
+/**
+ * One decision of the audit log, and the fixed binary layout it is stored in.
+ * Every record takes {@link #SIZE} bytes, little-endian:
+ *
+ * <pre>
+ *  0  long    timestamp in epoch milliseconds, 0 marks the end of a segment
+ *  8  long    requested loan amount, Long.MIN_VALUE if missing
+ * 16  int     policy version
+ * 20  int     requested loan period
+ * 24  int     approved loan amount, -1 if rejected
+ * 28  int     approved loan period, -1 if rejected
+ * 32  byte    Country ordinal, -1 if not supported
+ * 33  byte    RejectionReason ordinal, -1 if approved
+ * 34  byte    length of the personal code, -1 if missing
+ * 35  25 byte personal code, one byte per character, longer codes are cut
+ * 60  int     CRC32C of bytes 0...59
+ * </pre>
+ *
+ * Countries and rejection reasons are stored by ordinal, so new constants must
+ * be added at the end of their enums.
+ *
+ * @param timestampMillis    Time of the decision
+ * @param policyVersion      Version of the policy the decision was made with
+ * @param personalCode       Requested personal ID code, null if missing
+ * @param country            Country of the customer, null if not supported
+ * @param loanAmount         Requested loan amount, null if missing
+ * @param loanPeriod         Requested loan period
+ * @param approvedLoanAmount Approved loan amount, null if rejected
+ * @param approvedLoanPeriod Approved loan period, null if rejected
+ * @param rejectionReason    Reason of the rejection, null if approved
+ */
+public record AuditRecord(long timestampMillis, int policyVersion, String personalCode, Country country,
+		Long loanAmount, int loanPeriod, Integer approvedLoanAmount, Integer approvedLoanPeriod,
+		RejectionReason rejectionReason) {
+
+	public static final int SIZE = 64;
+
+	static final int PERSONAL_CODE_BYTES = 25;
+
+	private static final int CHECKSUM_OFFSET = 60;
+	private static final Country[] COUNTRIES = Country.values();
+	private static final RejectionReason[] REJECTION_REASONS = RejectionReason.values();
+
+	/**
+	 * Writes a record without allocating. The buffer must be little-endian.
+	 *
+	 * @param checksum CRC32C instance of the calling thread
+	 */
+	static void write(ByteBuffer buffer, int offset, CRC32C checksum, long timestampMillis, long loanAmount,
+			int policyVersion, int loanPeriod, int approvedLoanAmount, int approvedLoanPeriod, int country,
+			int rejectionReason, String personalCode) {
+		buffer.putLong(offset, timestampMillis);
+		buffer.putLong(offset + 8, loanAmount);
+		buffer.putInt(offset + 16, policyVersion);
+		buffer.putInt(offset + 20, loanPeriod);
+		buffer.putInt(offset + 24, approvedLoanAmount);
+		buffer.putInt(offset + 28, approvedLoanPeriod);
+		buffer.put(offset + 32, (byte) country);
+		buffer.put(offset + 33, (byte) rejectionReason);
+		int length = personalCode == null ? -1 : Math.min(personalCode.length(), PERSONAL_CODE_BYTES);
+		buffer.put(offset + 34, (byte) length);
+		for (int i = 0; i < PERSONAL_CODE_BYTES; i++) {
+			char c = i < length ? personalCode.charAt(i) : 0;
+			buffer.put(offset + 35 + i, c < 0x80 ? (byte) c : (byte) '?');
+		}
+		buffer.putInt(offset + CHECKSUM_OFFSET, checksum(buffer, offset, checksum));
+	}
+
+	/**
+	 * @return true if the record at the offset was never written
+	 */
+	static boolean isEmpty(ByteBuffer buffer, int offset) {
+		return buffer.getLong(offset) == 0;
+	}
+
+	/**
+	 * @return true if the checksum of the record at the offset matches, i.e. it
+	 *         was written completely
+	 */
+	static boolean isIntact(ByteBuffer buffer, int offset, CRC32C checksum) {
+		return buffer.getInt(offset + CHECKSUM_OFFSET) == checksum(buffer, offset, checksum);
+	}
+
+	/**
+	 * Reads an intact record. The buffer must be little-endian.
+	 */
+	static AuditRecord read(ByteBuffer buffer, int offset) {
+		long loanAmount = buffer.getLong(offset + 8);
+		int approvedLoanAmount = buffer.getInt(offset + 24);
+		int approvedLoanPeriod = buffer.getInt(offset + 28);
+		int country = buffer.get(offset + 32);
+		int rejectionReason = buffer.get(offset + 33);
+		int length = buffer.get(offset + 34);
+		String personalCode = null;
+		if (length >= 0) {
+			char[] chars = new char[length];
+			for (int i = 0; i < length; i++) {
+				chars[i] = (char) buffer.get(offset + 35 + i);
+			}
+			personalCode = new String(chars);
+		}
+		return new AuditRecord(buffer.getLong(offset), buffer.getInt(offset + 16), personalCode,
+				country < 0 ? null : COUNTRIES[country], loanAmount == Long.MIN_VALUE ? null : loanAmount,
+				buffer.getInt(offset + 20), approvedLoanAmount < 0 ? null : approvedLoanAmount,
+				approvedLoanPeriod < 0 ? null : approvedLoanPeriod,
+				rejectionReason < 0 ? null : REJECTION_REASONS[rejectionReason]);
+	}
+
+	private static int checksum(ByteBuffer buffer, int offset, CRC32C checksum) {
+		checksum.reset();
+		checksum.update(buffer.slice(offset, CHECKSUM_OFFSET));
+		return (int) checksum.getValue();
+	}
+}
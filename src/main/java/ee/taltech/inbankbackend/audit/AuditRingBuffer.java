@@ -0,0 +1,118 @@
+package ee.taltech.inbankbackend.audit;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.CRC32C;
+
+/**
+ * Bounded, lock-free queue of audit records from many request threads to the
+ * single writer thread.<br>
+ * <br>
+ * Records are kept field by field in preallocated arrays, so offering one
+ * allocates nothing. A producer claims a sequence number with a CAS, fills the
+ * slot and publishes it by storing the sequence number in the slot; the
+ * consumer takes slots in sequence order once they are published. A full buffer
+ * rejects the record instead of waiting. Not final only so that tests can make
+ * {@link #poll} fail like a store into a mapped segment on a full disk.
+ */
+class AuditRingBuffer {
+
+	private static final int LONGS = 2;
+	private static final int INTS = 6;
+
+	private final int capacity;
+	private final int mask;
+	private final long[] longs;
+	private final int[] ints;
+	private final String[] personalCodes;
+	// Sequence number of the record in each slot, -1 before the first one.
+	private final AtomicLongArray published;
+	// Next sequence number to claim.
+	private final AtomicLong tail = new AtomicLong();
+	// Next sequence number to consume, only advanced by the consumer.
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * @param capacity Number of slots, a power of two
+	 */
+	AuditRingBuffer(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.longs = new long[capacity * LONGS];
+		this.ints = new int[capacity * INTS];
+		this.personalCodes = new String[capacity];
+		this.published = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			published.set(i, -1);
+		}
+	}
+
+	/**
+	 * Adds a record without blocking. Safe to call from any thread.
+	 *
+	 * @return false if the buffer is full and the record was not added
+	 */
+	boolean offer(long timestampMillis, long loanAmount, int policyVersion, int loanPeriod, int approvedLoanAmount,
+			int approvedLoanPeriod, int country, int rejectionReason, String personalCode) {
+		long sequence;
+		do {
+			sequence = tail.get();
+			if (sequence - head.get() >= capacity) {
+				return false;
+			}
+		} while (!tail.compareAndSet(sequence, sequence + 1));
+
+		int slot = (int) sequence & mask;
+		longs[slot * LONGS] = timestampMillis;
+		longs[slot * LONGS + 1] = loanAmount;
+		ints[slot * INTS] = policyVersion;
+		ints[slot * INTS + 1] = loanPeriod;
+		ints[slot * INTS + 2] = approvedLoanAmount;
+		ints[slot * INTS + 3] = approvedLoanPeriod;
+		ints[slot * INTS + 4] = country;
+		ints[slot * INTS + 5] = rejectionReason;
+		personalCodes[slot] = personalCode;
+		// Release store: the fields above are visible to the consumer that sees the sequence number.
+		published.lazySet(slot, sequence);
+		return true;
+	}
+
+	/**
+	 * Moves the next record, if it is published, into a buffer as an
+	 * {@link AuditRecord}. Only called by the consumer thread.
+	 *
+	 * @return false if no record is ready
+	 */
+	boolean poll(ByteBuffer buffer, int offset, CRC32C checksum) {
+		long sequence = head.get();
+		int slot = (int) sequence & mask;
+		if (published.get(slot) != sequence) {
+			return false;
+		}
+		AuditRecord.write(buffer, offset, checksum, longs[slot * LONGS], longs[slot * LONGS + 1], ints[slot * INTS],
+				ints[slot * INTS + 1], ints[slot * INTS + 2], ints[slot * INTS + 3], ints[slot * INTS + 4],
+				ints[slot * INTS + 5], personalCodes[slot]);
+		personalCodes[slot] = null;
+		// Frees the slot for producers.
+		head.lazySet(sequence + 1);
+		return true;
+	}
+
+	/**
+	 * @return true if every record offered so far was polled
+	 */
+	boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+
+	/**
+	 * @return Records offered but not polled yet
+	 */
+	long size() {
+		return tail.get() - head.get();
+	}
+}
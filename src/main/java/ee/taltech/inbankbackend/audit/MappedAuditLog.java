@@ -0,0 +1,316 @@
+package ee.taltech.inbankbackend.audit;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ee.taltech.inbankbackend.service.Country;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionAuditLog;
+
+/**
+ * Audit log in memory-mapped segment files.<br>
+ * <br>
+ * Request threads only put the decision into an {@link AuditRingBuffer}, which
+ * never blocks: if the writer falls behind and the buffer is full, the record
+ * is dropped and counted in {@link #getDroppedCount()}. A single writer thread
+ * copies the records into the mapped segment as {@link AuditRecord}s and
+ * forces them to disk in batches, after {@code fsyncRecords} records or
+ * {@code fsyncIntervalMillis}, whichever comes first. A full segment is forced
+ * before the next one is created, and so is the last one on {@link #close()}.
+ * Every start begins a new segment, so a segment is never written by two
+ * processes.<br>
+ * <br>
+ * A segment that cannot be created, written or forced, e.g. on a full disk, is
+ * retried with a growing delay of up to a second. A store into a mapped page
+ * that the file system cannot allocate surfaces as an {@link InternalError},
+ * and is retried the same way. Meanwhile decisions wait in the ring buffer, and
+ * {@link #getFailure()} reports the error so that the application can stop
+ * taking traffic. Any other error stops the writer for good: it stays reported,
+ * and the buffered and all later decisions are counted as dropped.<br>
+ * <br>
+ * Segments are named {@code decisions-<index>.audit} and start with a header of
+ * {@link #HEADER_SIZE} bytes: magic, format version, record size and creation
+ * time. The unwritten rest of a segment is zeros. Use {@link AuditLogReader} to
+ * read them.
+ */
+public class MappedAuditLog implements DecisionAuditLog {
+
+	static final int MAGIC = 0x41554454;
+	static final int FORMAT_VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final String SEGMENT_PREFIX = "decisions-";
+	static final String SEGMENT_SUFFIX = ".audit";
+
+	private static final Logger log = LoggerFactory.getLogger(MappedAuditLog.class);
+	private static final int MAX_BATCH = 4096;
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long DROP_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+	private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final Path directory;
+	private final long segmentRecords;
+	private final int fsyncRecords;
+	private final long fsyncIntervalNanos;
+	private final AuditRingBuffer ringBuffer;
+	private final CRC32C checksum = new CRC32C();
+	private final LongAdder dropped = new LongAdder();
+	private final AtomicLong written = new AtomicLong();
+	private final Thread writer;
+	private volatile boolean running = true;
+	private volatile boolean stopped;
+	private volatile Throwable failure;
+
+	// Writer thread state
+	private long segmentIndex;
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+	private int position;
+	private int forcedPosition;
+	private long lastForceNanos;
+	private long reportedDrops;
+	private long lastDropWarningNanos;
+
+	/**
+	 * Creates the first segment and starts the writer thread.
+	 *
+	 * @param directory           Directory of the segment files, created if
+	 *                            missing
+	 * @param segmentBytes        Size of a segment file
+	 * @param bufferCapacity      Records the ring buffer holds, a power of two
+	 * @param fsyncRecords        Force the segment to disk after this many
+	 *                            records, 0 to leave it to the operating system
+	 * @param fsyncIntervalMillis Force written records to disk at least this
+	 *                            often, 0 for no time limit
+	 * @throws IOException If the directory or the first segment cannot be
+	 *                     created
+	 */
+	public MappedAuditLog(Path directory, long segmentBytes, int bufferCapacity, int fsyncRecords,
+			long fsyncIntervalMillis) throws IOException {
+		this(directory, segmentBytes, new AuditRingBuffer(bufferCapacity), fsyncRecords, fsyncIntervalMillis);
+	}
+
+	MappedAuditLog(Path directory, long segmentBytes, AuditRingBuffer ringBuffer, int fsyncRecords,
+			long fsyncIntervalMillis) throws IOException {
+		if (segmentBytes < HEADER_SIZE + AuditRecord.SIZE || segmentBytes > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid segment size: " + segmentBytes);
+		}
+		if (fsyncRecords < 0 || fsyncIntervalMillis < 0) {
+			throw new IllegalArgumentException("Invalid fsync batching: " + fsyncRecords + " records, "
+					+ fsyncIntervalMillis + " ms");
+		}
+		this.directory = directory;
+		this.segmentRecords = (segmentBytes - HEADER_SIZE) / AuditRecord.SIZE;
+		this.fsyncRecords = fsyncRecords;
+		this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+		this.ringBuffer = ringBuffer;
+
+		Files.createDirectories(directory);
+		List<Path> segments = AuditLogReader.segments(directory);
+		segmentIndex = segments.isEmpty() ? 0 : segmentIndex(segments.get(segments.size() - 1)) + 1;
+		openSegment();
+		writer = Thread.ofPlatform().name("audit-writer").daemon().start(this::write);
+	}
+
+	@Override
+	public void append(long timestampMillis, int policyVersion, String personalCode, Long loanAmount,
+			int loanPeriod, Country country, Decision decision) {
+		if (stopped || !ringBuffer.offer(timestampMillis, loanAmount == null ? Long.MIN_VALUE : loanAmount,
+				policyVersion, loanPeriod, decision.isRejected() ? -1 : decision.getLoanAmount(),
+				decision.isRejected() ? -1 : decision.getLoanPeriod(), country == null ? -1 : country.ordinal(),
+				decision.isRejected() ? decision.getRejectionReason().ordinal() : -1, personalCode)) {
+			dropped.increment();
+		}
+	}
+
+	/**
+	 * Writes the remaining records, forces them to disk and stops the writer.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return Records written to the segments so far
+	 */
+	public long getWrittenCount() {
+		return written.get();
+	}
+
+	/**
+	 * @return Records dropped because the ring buffer was full, or because the
+	 *         writer stopped before writing them
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return Error of the last failed attempt to write, open or force a
+	 *         segment, null once the writer succeeds again, or the error that
+	 *         stopped the writer
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	private void write() {
+		try {
+			writeUntilClosed();
+		} catch (Throwable e) {
+			failure = e;
+			log.error("Audit log writer stopped, decisions are no longer recorded", e);
+		} finally {
+			// Set first, so that appends from now on are counted as dropped rather than buffered.
+			stopped = true;
+			long unwritten = ringBuffer.size();
+			if (unwritten > 0) {
+				dropped.add(unwritten);
+				log.error("Audit log stopped with {} decisions not recorded", unwritten);
+			}
+		}
+	}
+
+	private void writeUntilClosed() {
+		lastForceNanos = System.nanoTime();
+		long retryNanos = MIN_RETRY_NANOS;
+		while (running || !ringBuffer.isEmpty()) {
+			try {
+				if (segment == null || position + AuditRecord.SIZE > segment.capacity()) {
+					nextSegment();
+				}
+				int polled = 0;
+				// Bounded, so the time-based force still runs under constant load.
+				while (polled < MAX_BATCH && position + AuditRecord.SIZE <= segment.capacity()
+						&& ringBuffer.poll(segment, position, checksum)) {
+					polled++;
+					position += AuditRecord.SIZE;
+					written.lazySet(written.get() + 1);
+					if (fsyncRecords > 0 && position - forcedPosition >= fsyncRecords * AuditRecord.SIZE) {
+						force();
+					}
+				}
+				long now = System.nanoTime();
+				if (fsyncIntervalNanos > 0 && position > forcedPosition
+						&& now - lastForceNanos >= fsyncIntervalNanos) {
+					force();
+				}
+				if (failure != null) {
+					log.info("Audit log recovered");
+					failure = null;
+					retryNanos = MIN_RETRY_NANOS;
+				}
+				warnAboutDrops(now);
+				if (polled == 0 && running) {
+					LockSupport.parkNanos(IDLE_PARK_NANOS);
+				}
+			} catch (IOException | RuntimeException | InternalError e) {
+				// A faulting store leaves the record in the buffer, and it is written again at the same position.
+				if (failure == null) {
+					log.error("Audit log failed, decisions are buffered until it is written again", e);
+				}
+				failure = e;
+				if (!running) {
+					break;
+				}
+				// Records keep arriving in the buffer meanwhile, and are dropped once it is full.
+				warnAboutDrops(System.nanoTime());
+				LockSupport.parkNanos(retryNanos);
+				retryNanos = Math.min(retryNanos * 2, MAX_RETRY_NANOS);
+			}
+		}
+		try {
+			if (segment != null) {
+				force();
+				channel.close();
+			}
+		} catch (IOException | RuntimeException | InternalError e) {
+			failure = e;
+			log.error("Audit log could not be closed", e);
+		}
+	}
+
+	/**
+	 * Forces and closes the current segment, if any, and opens the next one. A
+	 * segment that cannot be created is removed again and retried under the same
+	 * name.
+	 */
+	private void nextSegment() throws IOException {
+		if (segment != null) {
+			force();
+			channel.close();
+			segment = null;
+			channel = null;
+		}
+		openSegment();
+	}
+
+	private void openSegment() throws IOException {
+		Path file = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+		FileChannel created = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		MappedByteBuffer mapped;
+		try {
+			mapped = created.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + segmentRecords * AuditRecord.SIZE);
+		} catch (IOException | RuntimeException e) {
+			created.close();
+			Files.deleteIfExists(file);
+			throw e;
+		}
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		mapped.putInt(0, MAGIC);
+		mapped.putInt(4, FORMAT_VERSION);
+		mapped.putInt(8, AuditRecord.SIZE);
+		mapped.putLong(16, System.currentTimeMillis());
+		segmentIndex++;
+		channel = created;
+		segment = mapped;
+		position = HEADER_SIZE;
+		forcedPosition = 0;
+	}
+
+	private void force() {
+		// Throws UncheckedIOException, and is retried from the same position.
+		segment.force(forcedPosition, position - forcedPosition);
+		forcedPosition = position;
+		lastForceNanos = System.nanoTime();
+	}
+
+	private void warnAboutDrops(long now) {
+		if (now - lastDropWarningNanos < DROP_WARNING_INTERVAL_NANOS) {
+			return;
+		}
+		long drops = dropped.sum();
+		if (drops > reportedDrops) {
+			log.warn("Audit ring buffer full, {} decisions not recorded", drops - reportedDrops);
+			reportedDrops = drops;
+			lastDropWarningNanos = now;
+		}
+	}
+
+	static long segmentIndex(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+}
@@ -0,0 +1,106 @@
+package ee.taltech.inbankbackend.config;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.DispatcherType;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import ee.taltech.inbankbackend.admission.AdaptiveConcurrencyLimit;
+import ee.taltech.inbankbackend.admission.AdmissionControlFilter;
+import ee.taltech.inbankbackend.admission.ClientRateLimiter;
+import ee.taltech.inbankbackend.endpoint.DecisionResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Puts admission control in front of {@code POST /loan/decision} when
+ * {@code decision.admission.enabled} is set, see {@link AdmissionControlFilter}.
+ * The filter is a servlet filter, so the reactive variant runs without it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "decision.admission.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionControlConfig {
+
+	/**
+	 * Registers the admission control filter ahead of every other filter, so a
+	 * shed request is answered before anything reads it.
+	 *
+	 * @param clientHeader  Header holding the API key of the client
+	 * @param apiKeys       API keys of the clients limited by key rather than
+	 *                      by address
+	 * @param ratePerSecond Requests per second of a client
+	 * @param burst         Requests a client may send at once
+	 * @param maxClients    Maximum number of clients tracked
+	 * @param initialLimit  Concurrency limit at startup
+	 * @param minLimit      Lowest concurrency limit
+	 * @param maxLimit      Highest concurrency limit
+	 * @param latencyTarget Milliseconds within which a request raises the limit
+	 * @param backoffRatio  Factor applied to the limit on a slow or failed
+	 *                      request
+	 * @param objectMapper  Mapper writing the bodies of shed requests
+	 * @param meterRegistry Registry receiving the admission counts and the limit
+	 * @return Registration of the filter
+	 * @throws JsonProcessingException If a response body cannot be written
+	 */
+	@Bean
+	public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+			@Value("${decision.admission.client-header:X-API-Key}") String clientHeader,
+			@Value("${decision.admission.api-keys:}") Set<String> apiKeys,
+			@Value("${decision.admission.rate-per-second:50}") double ratePerSecond,
+			@Value("${decision.admission.burst:100}") int burst,
+			@Value("${decision.admission.max-clients:100000}") int maxClients,
+			@Value("${decision.admission.initial-limit:100}") int initialLimit,
+			@Value("${decision.admission.min-limit:10}") int minLimit,
+			@Value("${decision.admission.max-limit:1000}") int maxLimit,
+			@Value("${decision.admission.latency-target-ms:250}") long latencyTarget,
+			@Value("${decision.admission.backoff-ratio:0.9}") double backoffRatio, ObjectMapper objectMapper,
+			MeterRegistry meterRegistry) throws JsonProcessingException {
+		Ticker ticker = Ticker.systemTicker();
+		AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+				TimeUnit.MILLISECONDS.toNanos(latencyTarget), backoffRatio, ticker.read());
+		AdmissionControlFilter filter = new AdmissionControlFilter(clientHeader, apiKeys,
+				new ClientRateLimiter(ratePerSecond, burst, maxClients), concurrencyLimit, ticker,
+				objectMapper.writeValueAsBytes(DecisionResponse.error("Too many requests")),
+				objectMapper.writeValueAsBytes(DecisionResponse.error("Service overloaded")));
+
+		FunctionCounter.builder("decision.admission", filter, AdmissionControlFilter::getAdmittedCount)
+				.tag("outcome", "admitted")
+				.description("Decision requests by admission outcome")
+				.register(meterRegistry);
+		FunctionCounter.builder("decision.admission", filter, AdmissionControlFilter::getRateLimitedCount)
+				.tag("outcome", "rate-limited")
+				.description("Decision requests by admission outcome")
+				.register(meterRegistry);
+		FunctionCounter.builder("decision.admission", filter, AdmissionControlFilter::getOverloadedCount)
+				.tag("outcome", "overloaded")
+				.description("Decision requests by admission outcome")
+				.register(meterRegistry);
+		Gauge.builder("decision.admission.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+				.description("Current concurrency limit of decision requests")
+				.register(meterRegistry);
+		Gauge.builder("decision.admission.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+				.description("Admitted decision requests not yet answered")
+				.register(meterRegistry);
+
+		FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+		registration.addUrlPatterns("/loan/decision");
+		// Asynchronous dispatches belong to requests that were already admitted.
+		registration.setDispatcherTypes(DispatcherType.REQUEST);
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+}
@@ -0,0 +1,230 @@
+package ee.taltech.inbankbackend.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ee.taltech.inbankbackend.audit.AuditLogHealthIndicator;
+import ee.taltech.inbankbackend.audit.MappedAuditLog;
+import ee.taltech.inbankbackend.service.BinarySearchLoanPeriodSolver;
+import ee.taltech.inbankbackend.service.CachingCreditDataProvider;
+import ee.taltech.inbankbackend.service.ConfigFileWatcher;
+import ee.taltech.inbankbackend.service.CreditDataProvider;
+import ee.taltech.inbankbackend.service.CreditDataService;
+import ee.taltech.inbankbackend.service.CreditScoreCalculator;
+import ee.taltech.inbankbackend.service.DecisionAuditLog;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionPolicy;
+import ee.taltech.inbankbackend.service.DecisionRules;
+import ee.taltech.inbankbackend.service.HttpCreditDataProvider;
+import ee.taltech.inbankbackend.service.LinearScoringModel;
+import ee.taltech.inbankbackend.service.LoanPeriodSolver;
+import ee.taltech.inbankbackend.service.LogisticScoringModel;
+import ee.taltech.inbankbackend.service.ScoringModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Wires the pluggable parts of the decision engine.
+ */
+@Configuration
+@ImportRuntimeHints(DecisionRuntimeHints.class)
+public class DecisionEngineConfig {
+
+	/**
+	 * @return Clock that defines "today" for the age limits
+	 */
+	@Bean
+	public Clock clock() {
+		return Clock.systemDefaultZone();
+	}
+
+	/**
+	 * Audit log of every decision, enabled by {@code decision.audit.enabled}.
+	 * Segments of {@code decision.audit.segment-size-mb} are written to
+	 * {@code decision.audit.directory} and forced to disk after
+	 * {@code decision.audit.fsync-records} records or
+	 * {@code decision.audit.fsync-interval-ms}, whichever comes first.
+	 *
+	 * @param enabled             Whether decisions are recorded
+	 * @param directory           Directory of the segment files
+	 * @param segmentSizeMb       Size of a segment file in megabytes
+	 * @param bufferSize          Decisions buffered for the writer, a power of two
+	 * @param fsyncRecords        Records per forced write, 0 for no limit
+	 * @param fsyncIntervalMillis Longest time between forced writes, 0 for none
+	 * @param meterRegistry       Registry receiving the written and dropped counts
+	 * @return Audit log of the decision engine
+	 * @throws IOException If the first segment cannot be created
+	 */
+	@Bean(destroyMethod = "close")
+	public DecisionAuditLog decisionAuditLog(@Value("${decision.audit.enabled:false}") boolean enabled,
+			@Value("${decision.audit.directory:audit}") String directory,
+			@Value("${decision.audit.segment-size-mb:64}") long segmentSizeMb,
+			@Value("${decision.audit.buffer-size:65536}") int bufferSize,
+			@Value("${decision.audit.fsync-records:1000}") int fsyncRecords,
+			@Value("${decision.audit.fsync-interval-ms:100}") long fsyncIntervalMillis, MeterRegistry meterRegistry)
+			throws IOException {
+		if (!enabled) {
+			return DecisionAuditLog.DISABLED;
+		}
+		MappedAuditLog auditLog = new MappedAuditLog(Path.of(directory), segmentSizeMb * 1024 * 1024, bufferSize,
+				fsyncRecords, fsyncIntervalMillis);
+		FunctionCounter.builder("decision.audit.written", auditLog, MappedAuditLog::getWrittenCount)
+				.description("Decisions written to the audit log")
+				.register(meterRegistry);
+		FunctionCounter.builder("decision.audit.dropped", auditLog, MappedAuditLog::getDroppedCount)
+				.description("Decisions not recorded because the audit buffer was full or the log closed unwritten")
+				.register(meterRegistry);
+		return auditLog;
+	}
+
+	/**
+	 * @param decisionAuditLog Audit log of the decision engine
+	 * @return Health of the audit log, reported as {@code auditLog}
+	 */
+	@Bean
+	public HealthIndicator auditLogHealthIndicator(DecisionAuditLog decisionAuditLog) {
+		return new AuditLogHealthIndicator(decisionAuditLog);
+	}
+
+	/**
+	 * Loads the decision policy from {@code decision.policy.file} and applies
+	 * every later change of the file to the decision engine. Without the property
+	 * the engine keeps the default policy.
+	 *
+	 * @param file           Path of the policy properties file
+	 * @param decisionEngine Engine the policy is applied to
+	 * @return Watcher of the policy file
+	 * @throws IOException If the file cannot be read or watched
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty("decision.policy.file")
+	public ConfigFileWatcher<DecisionPolicy> decisionPolicyWatcher(@Value("${decision.policy.file}") String file,
+			DecisionEngine decisionEngine) throws IOException {
+		return new ConfigFileWatcher<>(Path.of(file), DecisionPolicy::load, decisionEngine::applyPolicy);
+	}
+
+	/**
+	 * Loads the decision rules from {@code decision.rules.file} and applies every
+	 * later change of the file to the decision engine. Without the property no
+	 * rules apply.
+	 *
+	 * @param file           Path of the JSON rule file
+	 * @param decisionEngine Engine the rules are applied to
+	 * @return Watcher of the rule file
+	 * @throws IOException If the file cannot be read or watched
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty("decision.rules.file")
+	public ConfigFileWatcher<DecisionRules> decisionRulesWatcher(@Value("${decision.rules.file}") String file,
+			DecisionEngine decisionEngine) throws IOException {
+		return new ConfigFileWatcher<>(Path.of(file), DecisionRules::load, decisionEngine::applyRules);
+	}
+
+	/**
+	 * Scoring model selected by {@code decision.scoring.model}: {@code linear}
+	 * multiplies the credit modifier by the loan period, {@code logistic} is a
+	 * logistic regression with the {@code decision.scoring.logistic.*} weights.
+	 *
+	 * @param model          Configured model
+	 * @param scale          Score of a certain repayment
+	 * @param intercept      Bias of the logistic model
+	 * @param modifierWeight Weight of the credit modifier
+	 * @param periodWeight   Weight of the loan period
+	 * @param featureWeights Weights of the additional batch features
+	 * @param vectorized     Whether batches may use the Vector API
+	 * @return Scoring model of the credit score calculator
+	 */
+	@Bean
+	public ScoringModel scoringModel(@Value("${decision.scoring.model:linear}") String model,
+			@Value("${decision.scoring.logistic.scale:10000}") float scale,
+			@Value("${decision.scoring.logistic.intercept:-4}") float intercept,
+			@Value("${decision.scoring.logistic.modifier-weight:0.004}") float modifierWeight,
+			@Value("${decision.scoring.logistic.period-weight:0.04}") float periodWeight,
+			@Value("${decision.scoring.logistic.feature-weights:}") float[] featureWeights,
+			@Value("${decision.scoring.logistic.vectorized:true}") boolean vectorized) {
+		return switch (model) {
+		case "linear" -> new LinearScoringModel();
+		case "logistic" -> new LogisticScoringModel(scale, intercept, modifierWeight, periodWeight, featureWeights,
+				vectorized);
+		default -> throw new IllegalArgumentException("Unknown decision.scoring.model: " + model);
+		};
+	}
+
+	/**
+	 * Loan period solver selected by {@code decision.solver}: {@code auto} picks
+	 * the closed form for linear scorers and binary search otherwise,
+	 * {@code binary-search} always uses binary search.
+	 *
+	 * @param creditScoreCalculator Calculator used by the decision engine
+	 * @param solver                Configured solver
+	 * @return Loan period solver
+	 */
+	@Bean
+	public LoanPeriodSolver loanPeriodSolver(CreditScoreCalculator creditScoreCalculator,
+			@Value("${decision.solver:auto}") String solver) {
+		return switch (solver) {
+		case "auto" -> LoanPeriodSolver.forCalculator(creditScoreCalculator);
+		case "binary-search" -> new BinarySearchLoanPeriodSolver(creditScoreCalculator);
+		default -> throw new IllegalArgumentException("Unknown decision.solver: " + solver);
+		};
+	}
+
+	/**
+	 * Credit data provider selected by {@code decision.credit-data.provider}:
+	 * {@code local} derives the segment from the personal code, {@code http} asks
+	 * the credit bureau at {@code decision.credit-data.url}.
+	 *
+	 * @param provider      Configured provider
+	 * @param latencyMillis Artificial latency of the local provider
+	 * @param url           Credit bureau endpoint of the HTTP provider
+	 * @param timeoutMillis Timeout of a single HTTP lookup
+	 * @param objectMapper  Mapper for the credit bureau messages
+	 * @param cacheEnabled  Whether lookups go through a credit modifier cache
+	 * @param cacheSize     Maximum number of cached customers
+	 * @param cacheTtl      Seconds until a cached modifier is fetched again
+	 * @param meterRegistry Registry receiving the cache statistics
+	 * @return Credit data provider, cached if {@code decision.credit-data.cache.enabled}
+	 */
+	@Bean
+	public CreditDataProvider creditDataProvider(@Value("${decision.credit-data.provider:local}") String provider,
+			@Value("${decision.credit-data.latency-ms:0}") long latencyMillis,
+			@Value("${decision.credit-data.url:}") String url,
+			@Value("${decision.credit-data.timeout-ms:2000}") long timeoutMillis, ObjectMapper objectMapper,
+			@Value("${decision.credit-data.cache.enabled:false}") boolean cacheEnabled,
+			@Value("${decision.credit-data.cache.maximum-size:100000}") long cacheSize,
+			@Value("${decision.credit-data.cache.ttl-seconds:300}") long cacheTtl, MeterRegistry meterRegistry) {
+		CreditDataProvider creditDataProvider = switch (provider) {
+		case "local" -> new CreditDataService(latencyMillis);
+		case "http" -> new HttpCreditDataProvider(URI.create(url), Duration.ofMillis(timeoutMillis), objectMapper);
+		default -> throw new IllegalArgumentException("Unknown decision.credit-data.provider: " + provider);
+		};
+		if (!cacheEnabled) {
+			return creditDataProvider;
+		}
+		CachingCreditDataProvider cachingProvider = new CachingCreditDataProvider(creditDataProvider, cacheSize,
+				Duration.ofSeconds(cacheTtl));
+		CaffeineCacheMetrics.monitor(meterRegistry, cachingProvider.getCache(), "creditModifiers");
+		// Micrometer only reports load times of loading caches.
+		FunctionTimer.builder("cache.load.duration", cachingProvider.getCache().synchronous(),
+				c -> c.stats().loadCount(), c -> c.stats().totalLoadTime(), TimeUnit.NANOSECONDS)
+				.tag("cache", "creditModifiers")
+				.description("Time spent fetching credit modifiers on cache misses")
+				.register(meterRegistry);
+		return cachingProvider;
+	}
+}
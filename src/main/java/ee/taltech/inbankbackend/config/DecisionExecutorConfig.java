@@ -0,0 +1,60 @@
+package ee.taltech.inbankbackend.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Provides the worker pool used to evaluate decisions in parallel (batch
+ * requests and other internal fan-out) and, in virtual mode, the executor of
+ * the web server.
+ * <p>
+ * {@code decision.execution.mode} selects the kind of threads: {@code platform}
+ * (default) for a fixed pool sized for CPU-bound work, or {@code virtual} to
+ * run every request and every decision task on its own virtual thread, so that
+ * blocking credit data lookups do not hold on to a scarce platform thread.
+ */
+@Configuration
+public class DecisionExecutorConfig {
+
+	/**
+	 * Executor for decision fan-out. In platform mode this is a fixed pool where a
+	 * thread count of 0 or less means one thread per available processor. In
+	 * virtual mode every task gets a new virtual thread.
+	 *
+	 * @param threads Configured number of worker threads
+	 * @param mode    Configured execution mode
+	 * @return Executor service used for decision fan-out
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService decisionExecutor(@Value("${decision.executor.threads:0}") int threads,
+			@Value("${decision.execution.mode:platform}") String mode) {
+		return switch (mode) {
+		case "platform" -> {
+			int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("decision-");
+			threadFactory.setDaemon(true);
+			yield Executors.newFixedThreadPool(poolSize, threadFactory);
+		}
+		case "virtual" -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("decision-", 1).factory());
+		default -> throw new IllegalArgumentException("Unknown decision.execution.mode: " + mode);
+		};
+	}
+
+	/**
+	 * Replaces Tomcat's request thread pool with one virtual thread per request.
+	 *
+	 * @return Customizer applied to the Tomcat protocol handler
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "decision.execution.mode", havingValue = "virtual")
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+	}
+}
@@ -0,0 +1,30 @@
+package ee.taltech.inbankbackend.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import ee.taltech.inbankbackend.endpoint.DecisionExplanation;
+import ee.taltech.inbankbackend.endpoint.DecisionRequest;
+import ee.taltech.inbankbackend.endpoint.DecisionResponse;
+
+/**
+ * Reflection the native image needs beyond what Spring AOT finds on its own.
+ * <br>
+ * <br>
+ * The JSON bodies are registered for binding: their Lombok-generated
+ * constructors and getters are found by reflection, and the NDJSON stream and
+ * the admission control error bodies use them outside of any controller
+ * signature, so AOT does not discover them. The personal code library uses
+ * no reflection, resources or service loading, so it needs no hints.
+ */
+public class DecisionRuntimeHints implements RuntimeHintsRegistrar {
+
+	private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		bindingRegistrar.registerReflectionHints(hints.reflection(), DecisionRequest.class, DecisionResponse.class,
+				DecisionExplanation.class);
+	}
+}
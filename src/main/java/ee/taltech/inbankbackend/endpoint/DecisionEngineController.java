@@ -1,14 +1,27 @@
 package ee.taltech.inbankbackend.endpoint;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import ee.taltech.inbankbackend.exceptions.IdempotencyKeyReusedException;
 import ee.taltech.inbankbackend.exceptions.InvalidCountryException;
 import ee.taltech.inbankbackend.exceptions.InvalidCustomerAgeException;
 import ee.taltech.inbankbackend.exceptions.InvalidLoanAmountException;
@@ -17,19 +30,31 @@ import ee.taltech.inbankbackend.exceptions.InvalidPersonalCodeException;
 import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
 import ee.taltech.inbankbackend.service.Decision;
 import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionTrace;
 
 @RestController
 @RequestMapping("/loan")
 @CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DecisionEngineController {
 
+	private static final String NDJSON = "application/x-ndjson";
+
 	private final DecisionEngine decisionEngine;
-	private final DecisionResponse response;
+	private final DecisionRequestProcessor requestProcessor;
+	private final DecisionReplayCache replayCache;
+	private final NdjsonDecisionPipeline ndjsonPipeline;
+	private final int maxBatchSize;
 
 	@Autowired
-	DecisionEngineController(DecisionEngine decisionEngine, DecisionResponse response) {
+	DecisionEngineController(DecisionEngine decisionEngine, DecisionRequestProcessor requestProcessor,
+			DecisionReplayCache replayCache, NdjsonDecisionPipeline ndjsonPipeline,
+			@Value("${decision.batch.max-size:10000}") int maxBatchSize) {
 		this.decisionEngine = decisionEngine;
-		this.response = response;
+		this.requestProcessor = requestProcessor;
+		this.replayCache = replayCache;
+		this.ndjsonPipeline = ndjsonPipeline;
+		this.maxBatchSize = maxBatchSize;
 	}
 
 	/**
@@ -46,42 +71,117 @@ public class DecisionEngineController {
 	 * - If no valid loans can be found, the endpoint returns a not found response
 	 * with an error message.<br>
 	 * - If a valid loan is found, a DecisionResponse is returned containing the
-	 * approved loan amount and period.
+	 * approved loan amount and period.<br>
+	 * - If the Idempotency-Key was already used for a different request, the
+	 * endpoint returns an unprocessable entity response with an error
+	 * message.<br>
+	 * <br>
+	 * The response is completed asynchronously, so the request thread is released
+	 * while the credit data is retrieved. With {@code decision.idempotency.enabled}
+	 * a repeated request is answered with the decision of the first one, see
+	 * {@link DecisionReplayCache}.
 	 *
-	 * @param request The request body containing the customer's personal ID code,
-	 *                requested loan amount, and loan period
-	 * @return A ResponseEntity with a DecisionResponse body containing the approved
-	 *         loan amount and period, and an error message (if any)
+	 * @param request        The request body containing the customer's personal
+	 *                       ID code, requested loan amount, and loan period
+	 * @param idempotencyKey Optional key identifying retries of the same request
+	 * @return A future ResponseEntity with a DecisionResponse body containing the
+	 *         approved loan amount and period, and an error message (if any)
 	 */
 	@PostMapping("/decision")
-	public ResponseEntity<DecisionResponse> requestDecision(@RequestBody DecisionRequest request) {
-		try {
-			Decision decision = decisionEngine.calculateApprovedLoan(request.getPersonalCode(), request.getLoanAmount(),
-					request.getLoanPeriod(), request.getCountry());
-			response.setLoanAmount(decision.getLoanAmount());
-			response.setLoanPeriod(decision.getLoanPeriod());
-			response.setErrorMessage(decision.getErrorMessage());
-
-			return ResponseEntity.ok(response);
-		} catch (InvalidPersonalCodeException | InvalidLoanAmountException | InvalidLoanPeriodException
-				| InvalidCountryException | InvalidCustomerAgeException e) {
-			response.setLoanAmount(null);
-			response.setLoanPeriod(null);
-			response.setErrorMessage(e.getMessage());
-
-			return ResponseEntity.badRequest().body(response);
-		} catch (NoValidLoanException e) {
-			response.setLoanAmount(null);
-			response.setLoanPeriod(null);
-			response.setErrorMessage(e.getMessage());
+	public CompletableFuture<ResponseEntity<DecisionResponse>> requestDecision(@RequestBody DecisionRequest request,
+			@RequestHeader(value = DecisionReplayCache.IDEMPOTENCY_KEY_HEADER, required = false)
+			String idempotencyKey) {
+		return replayCache.calculateApprovedLoanAsync(request, idempotencyKey)
+				.handle(DecisionEngineController::toResponseEntity);
+	}
 
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+	/**
+	 * Explains a loan decision for support staff. The request is the same as for
+	 * {@code /loan/decision}; the response holds the decision together with the
+	 * checks in the order they ran, the credit segment, every scorer call and the
+	 * steps of the loan period search. Rejections are part of the explanation, so
+	 * the endpoint answers them with 200 OK.
+	 *
+	 * @param request The request body containing the customer's personal ID code,
+	 *                requested loan amount, loan period and country
+	 * @return A future ResponseEntity with the DecisionExplanation, or an internal
+	 *         server error if the credit data cannot be retrieved
+	 */
+	@PostMapping("/decision/explain")
+	public CompletableFuture<ResponseEntity<DecisionExplanation>> explainDecision(
+			@RequestBody DecisionRequest request) {
+		DecisionTrace trace = new DecisionTrace();
+		CompletableFuture<Decision> decision;
+		try {
+			decision = decisionEngine.explainAsync(request.getPersonalCode(), request.getLoanAmount(),
+					request.getLoanPeriod(), request.getCountry(), trace);
 		} catch (Exception e) {
-			response.setLoanAmount(null);
-			response.setLoanPeriod(null);
-			response.setErrorMessage("An unexpected error occurred");
+			decision = CompletableFuture.failedFuture(e);
+		}
+		return decision.handle((result, failure) -> failure == null
+				? ResponseEntity.ok(new DecisionExplanation(DecisionResponse.of(result), trace))
+				: ResponseEntity.internalServerError()
+						.body(new DecisionExplanation(DecisionResponse.error("An unexpected error occurred"), trace)));
+	}
+
+	static ResponseEntity<DecisionResponse> toResponseEntity(Decision decision, Throwable failure) {
+		Throwable e = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+				: failure;
+		if (e == null) {
+			return ResponseEntity.ok(DecisionResponse.of(decision));
+		} else if (e instanceof InvalidPersonalCodeException || e instanceof InvalidLoanAmountException
+				|| e instanceof InvalidLoanPeriodException || e instanceof InvalidCountryException
+				|| e instanceof InvalidCustomerAgeException) {
+			return ResponseEntity.badRequest().body(DecisionResponse.error(e.getMessage()));
+		} else if (e instanceof NoValidLoanException) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(DecisionResponse.error(e.getMessage()));
+		} else if (e instanceof IdempotencyKeyReusedException) {
+			return ResponseEntity.unprocessableEntity().body(DecisionResponse.error(e.getMessage()));
+		}
+		return ResponseEntity.internalServerError().body(DecisionResponse.error("An unexpected error occurred"));
+	}
 
-			return ResponseEntity.internalServerError().body(response);
+	/**
+	 * A REST endpoint that handles loan decisions in bulk. The endpoint accepts
+	 * POST requests with an array of decision requests and evaluates them in
+	 * parallel.<br>
+	 * <br>
+	 * - Every request gets its own DecisionResponse, in the same order as the
+	 * requests. An invalid request only sets the error message of its own
+	 * response.<br>
+	 * - If the batch is larger than the configured maximum size, the endpoint
+	 * returns a payload too large response.<br>
+	 * <br>
+	 * Like {@code /loan/decision}, the response is completed asynchronously, so
+	 * the request thread is released while the decisions are made.
+	 *
+	 * @param requests The request body containing the decision requests
+	 * @return A future ResponseEntity with one DecisionResponse per request
+	 */
+	@PostMapping("/decisions/batch")
+	public CompletableFuture<ResponseEntity<List<DecisionResponse>>> requestDecisions(
+			@RequestBody List<DecisionRequest> requests) {
+		if (requests.size() > maxBatchSize) {
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
 		}
+		return requestProcessor.processAll(requests).thenApply(ResponseEntity::ok);
+	}
+
+	/**
+	 * A streaming endpoint for file-sized inputs. The request body is read as
+	 * newline-delimited JSON decision requests and the decisions are written back
+	 * as newline-delimited JSON while the input is still being read.
+	 *
+	 * @param ordered      If true (default), decisions are written in request
+	 *                     order, otherwise as soon as they are ready
+	 * @param httpRequest  Servlet request providing the NDJSON input
+	 * @param httpResponse Servlet response receiving the NDJSON output
+	 * @throws IOException If reading the request or writing the response fails
+	 */
+	@PostMapping(value = "/decisions/stream", consumes = NDJSON)
+	public void streamDecisions(@RequestParam(defaultValue = "true") boolean ordered, HttpServletRequest httpRequest,
+			HttpServletResponse httpResponse) throws IOException {
+		httpResponse.setContentType(NDJSON);
+		ndjsonPipeline.run(httpRequest.getInputStream(), httpResponse.getOutputStream(), ordered);
 	}
 }
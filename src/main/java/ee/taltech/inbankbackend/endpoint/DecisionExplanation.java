@@ -0,0 +1,16 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.service.DecisionTrace;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Holds the response data of the explain endpoint: the decision and how it was
+ * reached.
+ */
+@Getter
+@AllArgsConstructor
+public class DecisionExplanation {
+	private final DecisionResponse decision;
+	private final DecisionTrace trace;
+}
@@ -0,0 +1,168 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.ResponseEntity;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * A client of the binary decision protocol over a single connection, see
+ * {@link DecisionFrames}. Any number of threads may send requests at once;
+ * requests are written as they come and flushed together, and every response
+ * completes the future of its own request.
+ */
+public class DecisionFrameClient implements AutoCloseable {
+
+	private final EventLoopGroup group;
+	private final Channel channel;
+	private final AtomicLong nextId = new AtomicLong();
+	private final Map<Long, CompletableFuture<ResponseEntity<DecisionResponse>>> pending =
+			new ConcurrentHashMap<>();
+	private final Queue<ByteBuf> unwritten = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+	/**
+	 * Connects to a server.
+	 *
+	 * @param host Host of the server
+	 * @param port Port of the server
+	 * @throws InterruptedException If interrupted while connecting
+	 */
+	public DecisionFrameClient(String host, int port) throws InterruptedException {
+		this.group = new NioEventLoopGroup(1, new DefaultThreadFactory("decision-binary-client", true));
+		try {
+			this.channel = new Bootstrap().group(group)
+					.channel(NioSocketChannel.class)
+					.option(ChannelOption.TCP_NODELAY, true)
+					.handler(new ChannelInitializer<SocketChannel>() {
+						@Override
+						protected void initChannel(SocketChannel channel) {
+							channel.pipeline()
+									.addLast(new LengthFieldBasedFrameDecoder(DecisionFrames.MAX_PAYLOAD
+											+ DecisionFrames.LENGTH_FIELD, 0, DecisionFrames.LENGTH_FIELD, 0,
+											DecisionFrames.LENGTH_FIELD))
+									.addLast(new ResponseHandler());
+						}
+					})
+					.connect(host, port)
+					.sync()
+					.channel();
+		} catch (InterruptedException | RuntimeException e) {
+			group.shutdownGracefully();
+			throw e;
+		}
+	}
+
+	/**
+	 * Sends a decision request without waiting for earlier ones.
+	 *
+	 * @param request Decision request; the loan amount must be present
+	 * @return Future of the status and body {@code POST /loan/decision} would
+	 *         answer with, failed if the connection closes first
+	 */
+	public CompletableFuture<ResponseEntity<DecisionResponse>> decide(DecisionRequest request) {
+		ByteBuf frame;
+		long id = nextId.incrementAndGet();
+		try {
+			frame = DecisionFrames.encodeRequest(channel.alloc(), id, request);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		CompletableFuture<ResponseEntity<DecisionResponse>> response = new CompletableFuture<>();
+		pending.put(id, response);
+		// Checked after adding it, so either this or closing the connection fails the request.
+		if (!channel.isActive()) {
+			frame.release();
+			fail(id, new IOException("Connection closed"));
+			return response;
+		}
+		unwritten.add(frame);
+		if (writeScheduled.compareAndSet(false, true)) {
+			channel.eventLoop().execute(this::writeAll);
+		}
+		return response;
+	}
+
+	/**
+	 * Writes the requests queued until the event loop got to them with one flush.
+	 */
+	private void writeAll() {
+		writeScheduled.set(false);
+		ByteBuf frame;
+		while ((frame = unwritten.poll()) != null) {
+			channel.write(frame, channel.voidPromise());
+		}
+		channel.flush();
+	}
+
+	/**
+	 * Closes the connection, failing the requests still waiting for a response.
+	 */
+	@Override
+	public void close() {
+		if (group.isShuttingDown()) {
+			return;
+		}
+		channel.close().syncUninterruptibly();
+		group.shutdownGracefully().syncUninterruptibly();
+	}
+
+	private void fail(long id, Throwable cause) {
+		CompletableFuture<ResponseEntity<DecisionResponse>> response = pending.remove(id);
+		if (response != null) {
+			response.completeExceptionally(cause);
+		}
+	}
+
+	/**
+	 * Completes the futures of the responses read.
+	 */
+	private class ResponseHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, ByteBuf payload) {
+			DecisionFrames.Response response = DecisionFrames.decodeResponse(payload);
+			CompletableFuture<ResponseEntity<DecisionResponse>> future = pending.remove(response.id());
+			if (future != null) {
+				future.complete(ResponseEntity.status(response.status()).body(response.response()));
+			}
+		}
+
+		@Override
+		public void channelInactive(ChannelHandlerContext ctx) {
+			ByteBuf frame;
+			while ((frame = unwritten.poll()) != null) {
+				frame.release();
+			}
+			IOException closed = new IOException("Connection closed");
+			for (Long id : pending.keySet()) {
+				fail(id, closed);
+			}
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			ctx.close();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Serves loan decisions over the binary protocol of {@link DecisionFrames}, for
+ * internal callers that send thousands of requests per second. Enabled by
+ * {@code decision.binary.enabled}, listening on {@code decision.binary.port}.
+ * <br>
+ * <br>
+ * Requests are decided as soon as they are read, without waiting for earlier
+ * ones on the same connection, and answered when their decision completes.
+ * Answers are flushed once per read instead of once per decision. A connection
+ * with {@code decision.binary.max-in-flight} undecided requests is not read
+ * from until half of them are answered. A malformed or oversized frame closes
+ * the connection.
+ */
+@Component
+@ConditionalOnProperty(name = "decision.binary.enabled", havingValue = "true")
+public class DecisionFrameServer implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(DecisionFrameServer.class);
+
+	private final DecisionEngine decisionEngine;
+	private final int maxInFlight;
+	private final EventLoopGroup acceptGroup;
+	private final EventLoopGroup workerGroup;
+	private final Channel serverChannel;
+
+	/**
+	 * Binds the server.
+	 *
+	 * @param decisionEngine Engine deciding the requests
+	 * @param port           Port to listen on, 0 for any free port
+	 * @param threads        Event loop threads, 0 for twice the processors
+	 * @param maxInFlight    Undecided requests per connection before it is no
+	 *                       longer read
+	 * @throws InterruptedException If interrupted while binding
+	 */
+	@Autowired
+	public DecisionFrameServer(DecisionEngine decisionEngine, @Value("${decision.binary.port:9090}") int port,
+			@Value("${decision.binary.threads:0}") int threads,
+			@Value("${decision.binary.max-in-flight:1024}") int maxInFlight) throws InterruptedException {
+		this.decisionEngine = decisionEngine;
+		this.maxInFlight = maxInFlight;
+		this.acceptGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("decision-binary-accept", true));
+		this.workerGroup = new NioEventLoopGroup(threads, new DefaultThreadFactory("decision-binary", true));
+		try {
+			this.serverChannel = new ServerBootstrap().group(acceptGroup, workerGroup)
+					.channel(NioServerSocketChannel.class)
+					.childOption(ChannelOption.TCP_NODELAY, true)
+					.childHandler(new ChannelInitializer<SocketChannel>() {
+						@Override
+						protected void initChannel(SocketChannel channel) {
+							channel.pipeline()
+									.addLast(new FlushConsolidationHandler(FlushConsolidationHandler
+											.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true))
+									.addLast(new LengthFieldBasedFrameDecoder(DecisionFrames.MAX_PAYLOAD
+											+ DecisionFrames.LENGTH_FIELD, 0, DecisionFrames.LENGTH_FIELD, 0,
+											DecisionFrames.LENGTH_FIELD))
+									.addLast(new RequestHandler());
+						}
+					})
+					.bind(port)
+					.sync()
+					.channel();
+		} catch (InterruptedException | RuntimeException e) {
+			close();
+			throw e;
+		}
+		log.info("Binary decision protocol listening on port {}", getPort());
+	}
+
+	/**
+	 * @return Port the server listens on
+	 */
+	public int getPort() {
+		return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+	}
+
+	/**
+	 * Closes the server and every open connection.
+	 */
+	@Override
+	public void close() {
+		if (workerGroup.isShuttingDown()) {
+			return;
+		}
+		if (serverChannel != null) {
+			serverChannel.close().syncUninterruptibly();
+		}
+		acceptGroup.shutdownGracefully().syncUninterruptibly();
+		workerGroup.shutdownGracefully().syncUninterruptibly();
+	}
+
+	private CompletableFuture<Decision> decide(DecisionRequest request) {
+		try {
+			return decisionEngine.calculateApprovedLoanAsync(request.getPersonalCode(), request.getLoanAmount(),
+					request.getLoanPeriod(), request.getCountry());
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Decides the requests of one connection.
+	 */
+	private class RequestHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, ByteBuf payload) {
+			DecisionFrames.Request request = DecisionFrames.decodeRequest(payload);
+			if (inFlight.incrementAndGet() >= maxInFlight) {
+				ctx.channel().config().setAutoRead(false);
+				// The decisions may have completed meanwhile.
+				resumeIfDrained(ctx);
+			}
+			decide(request.request()).whenComplete((decision, failure) -> {
+				ResponseEntity<DecisionResponse> response = DecisionEngineController.toResponseEntity(decision,
+						failure);
+				ctx.writeAndFlush(DecisionFrames.encodeResponse(ctx.alloc(), request.id(),
+						response.getStatusCode().value(), response.getBody()));
+				inFlight.decrementAndGet();
+				resumeIfDrained(ctx);
+			});
+		}
+
+		private void resumeIfDrained(ChannelHandlerContext ctx) {
+			if (!ctx.channel().config().isAutoRead() && inFlight.get() <= maxInFlight / 2) {
+				ctx.channel().config().setAutoRead(true);
+			}
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			log.debug("Closing binary decision connection {}", ctx.channel().remoteAddress(), cause);
+			ctx.close();
+		}
+	}
+}
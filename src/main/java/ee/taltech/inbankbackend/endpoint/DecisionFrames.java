@@ -0,0 +1,112 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+
+/**
+ * Layout of the frames of the binary decision protocol. Every frame is a
+ * 4-byte length followed by that many bytes of payload; numbers are big-endian
+ * and strings are a 1-byte length followed by UTF-8.<br>
+ * <br>
+ * Request: {@code id (8) | loanAmount (8) | loanPeriod (4) | personalCode | country}<br>
+ * Response: {@code id (8) | status (2) | loanAmount (4) | loanPeriod (4) | errorMessage}<br>
+ * <br>
+ * The id is chosen by the caller and returned with the response, so any number
+ * of requests can be sent on a connection without waiting; responses arrive
+ * in the order the decisions complete. The status is the HTTP status
+ * {@code POST /loan/decision} would answer with, a missing amount or period is
+ * -1 and a missing error message is empty.
+ */
+final class DecisionFrames {
+
+	static final int LENGTH_FIELD = Integer.BYTES;
+	static final int MAX_PAYLOAD = 1024;
+
+	private DecisionFrames() {
+	}
+
+	/**
+	 * A decoded request payload.
+	 */
+	record Request(long id, DecisionRequest request) {
+	}
+
+	/**
+	 * A decoded response payload.
+	 */
+	record Response(long id, int status, DecisionResponse response) {
+	}
+
+	static ByteBuf encodeRequest(ByteBufAllocator allocator, long id, DecisionRequest request) {
+		byte[] personalCode = bytes(request.getPersonalCode());
+		byte[] country = bytes(request.getCountry());
+		int length = Long.BYTES + Long.BYTES + Integer.BYTES + 1 + personalCode.length + 1 + country.length;
+		ByteBuf frame = allocator.buffer(LENGTH_FIELD + length);
+		frame.writeInt(length);
+		frame.writeLong(id);
+		frame.writeLong(request.getLoanAmount());
+		frame.writeInt(request.getLoanPeriod());
+		writeString(frame, personalCode);
+		writeString(frame, country);
+		return frame;
+	}
+
+	static Request decodeRequest(ByteBuf payload) {
+		long id = payload.readLong();
+		long loanAmount = payload.readLong();
+		int loanPeriod = payload.readInt();
+		String personalCode = readString(payload);
+		String country = readString(payload);
+		return new Request(id, new DecisionRequest(personalCode, loanAmount, loanPeriod, country));
+	}
+
+	static ByteBuf encodeResponse(ByteBufAllocator allocator, long id, int status, DecisionResponse response) {
+		byte[] errorMessage = bytes(response.getErrorMessage());
+		int length = Long.BYTES + Short.BYTES + Integer.BYTES + Integer.BYTES + 1 + errorMessage.length;
+		ByteBuf frame = allocator.buffer(LENGTH_FIELD + length);
+		frame.writeInt(length);
+		frame.writeLong(id);
+		frame.writeShort(status);
+		frame.writeInt(response.getLoanAmount() == null ? -1 : response.getLoanAmount());
+		frame.writeInt(response.getLoanPeriod() == null ? -1 : response.getLoanPeriod());
+		writeString(frame, errorMessage);
+		return frame;
+	}
+
+	static Response decodeResponse(ByteBuf payload) {
+		long id = payload.readLong();
+		int status = payload.readUnsignedShort();
+		int loanAmount = payload.readInt();
+		int loanPeriod = payload.readInt();
+		String errorMessage = readString(payload);
+		return new Response(id, status, new DecisionResponse(loanAmount < 0 ? null : loanAmount,
+				loanPeriod < 0 ? null : loanPeriod, errorMessage.isEmpty() ? null : errorMessage));
+	}
+
+	private static byte[] bytes(String text) {
+		byte[] bytes = text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 255) {
+			throw new IllegalArgumentException("String longer than 255 bytes: " + text);
+		}
+		return bytes;
+	}
+
+	private static void writeString(ByteBuf frame, byte[] bytes) {
+		frame.writeByte(bytes.length);
+		frame.writeBytes(bytes);
+	}
+
+	private static String readString(ByteBuf payload) {
+		int length = payload.readUnsignedByte();
+		if (payload.readableBytes() < length) {
+			throw new CorruptedFrameException("String of " + length + " bytes in a frame of "
+					+ payload.readableBytes() + " more bytes");
+		}
+		String text = payload.toString(payload.readerIndex(), length, StandardCharsets.UTF_8);
+		payload.skipBytes(length);
+		return text;
+	}
+}
@@ -0,0 +1,186 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.crypto.Mac;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import ee.taltech.inbankbackend.exceptions.IdempotencyKeyReusedException;
+import ee.taltech.inbankbackend.exceptions.InvalidCountryException;
+import ee.taltech.inbankbackend.exceptions.InvalidCustomerAgeException;
+import ee.taltech.inbankbackend.exceptions.InvalidLoanAmountException;
+import ee.taltech.inbankbackend.exceptions.InvalidLoanPeriodException;
+import ee.taltech.inbankbackend.exceptions.InvalidPersonalCodeException;
+import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.SecretHasher;
+import ee.taltech.inbankbackend.service.SecretHasher.SecretHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Answers repeated decision requests with the decision of the first one. The
+ * frontend retries and double-submits, so identical requests arrive within
+ * seconds; a replayed request skips validation, the credit lookup and scoring.
+ * <br>
+ * <br>
+ * A request is identified by its {@value #IDEMPOTENCY_KEY_HEADER} header if it
+ * has one, otherwise by a fingerprint of its fields and the SHA-256 digest of
+ * the policy, rules and scoring model, so a change of any of them is never
+ * answered with a decision made before it. A key
+ * sent again with a different request fails with
+ * {@link IdempotencyKeyReusedException}.<br>
+ * <br>
+ * Decisions are kept for a fixed window after the first request, in a cache
+ * bounded in size. Requests that arrive while the first one is still being
+ * decided wait for it. Rejections are replayed like approvals, but unexpected
+ * errors are not: the next request is decided again. Fingerprints are HMACs
+ * under a random key that never leaves the process, so personal codes are not
+ * stored.
+ */
+@Component
+public class DecisionReplayCache {
+
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	private final DecisionEngine decisionEngine;
+	// Null when disabled.
+	private final Cache<Object, Replay> cache;
+	private final SecretHasher hasher = new SecretHasher();
+
+	@Autowired
+	public DecisionReplayCache(DecisionEngine decisionEngine,
+			@Value("${decision.idempotency.enabled:false}") boolean enabled,
+			@Value("${decision.idempotency.maximum-size:100000}") long maximumSize,
+			@Value("${decision.idempotency.window-seconds:10}") long windowSeconds, MeterRegistry meterRegistry) {
+		this(decisionEngine, enabled ? maximumSize : 0, Duration.ofSeconds(windowSeconds), Ticker.systemTicker());
+		if (cache != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, cache, "decisionReplays");
+		}
+	}
+
+	/**
+	 * @param maximumSize Maximum number of kept decisions, 0 to disable replays
+	 */
+	DecisionReplayCache(DecisionEngine decisionEngine, long maximumSize, Duration window, Ticker ticker) {
+		this.decisionEngine = decisionEngine;
+		this.cache = maximumSize > 0
+				? Caffeine.newBuilder()
+						.maximumSize(maximumSize)
+						.expireAfterWrite(window)
+						.ticker(ticker)
+						.recordStats()
+						.build()
+				: null;
+	}
+
+	/**
+	 * Same as {@link DecisionEngine#calculateApprovedLoanAsync}, replaying the
+	 * decision of an identical request within the window.
+	 *
+	 * @param request        Decision request
+	 * @param idempotencyKey Value of the {@value #IDEMPOTENCY_KEY_HEADER}
+	 *                       header, null to identify the request by its fields
+	 * @return Future of the decision, failed with the rejection exception if the
+	 *         loan is rejected, or with {@link IdempotencyKeyReusedException}
+	 */
+	public CompletableFuture<Decision> calculateApprovedLoanAsync(DecisionRequest request, String idempotencyKey) {
+		if (cache == null) {
+			return decide(request);
+		}
+		SecretHash fingerprint = fingerprint(request);
+		Object key = idempotencyKey != null ? new IdempotencyKey(idempotencyKey)
+				: new FingerprintKey(decisionEngine.getPolicyDigest(), fingerprint);
+		Replay replay = cache.get(key, k -> new Replay(fingerprint, decide(request)));
+		if (!replay.fingerprint().equals(fingerprint)) {
+			return CompletableFuture.failedFuture(new IdempotencyKeyReusedException(
+					IDEMPOTENCY_KEY_HEADER + " was already used for a different request"));
+		}
+		// Our own fingerprint instance means this call created the entry.
+		if (replay.fingerprint() == fingerprint) {
+			replay.decision().whenComplete((decision, failure) -> {
+				if (failure != null && !isRejection(failure)) {
+					cache.asMap().remove(key, replay);
+				}
+			});
+		}
+		return replay.decision();
+	}
+
+	/**
+	 * @return The underlying cache, null if replays are disabled
+	 */
+	public Cache<Object, Replay> getCache() {
+		return cache;
+	}
+
+	private CompletableFuture<Decision> decide(DecisionRequest request) {
+		try {
+			return decisionEngine.calculateApprovedLoanAsync(request.getPersonalCode(), request.getLoanAmount(),
+					request.getLoanPeriod(), request.getCountry());
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * @return The HMAC of the request fields
+	 */
+	private SecretHash fingerprint(DecisionRequest request) {
+		Mac mac = hasher.newMac();
+		ByteBuffer fields = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + 2);
+		fields.putLong(request.getLoanAmount() == null ? Long.MIN_VALUE : request.getLoanAmount());
+		fields.putInt(request.getLoanPeriod());
+		// Tell missing strings from empty ones.
+		fields.put((byte) (request.getPersonalCode() == null ? 0 : 1));
+		fields.put((byte) (request.getCountry() == null ? 0 : 1));
+		mac.update(fields.array());
+		updateText(mac, request.getPersonalCode());
+		updateText(mac, request.getCountry());
+		return SecretHasher.finish(mac);
+	}
+
+	private static void updateText(Mac mac, String text) {
+		byte[] bytes = text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+		mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+		mac.update(bytes);
+	}
+
+	private static boolean isRejection(Throwable failure) {
+		Throwable e = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+				: failure;
+		return e instanceof InvalidPersonalCodeException || e instanceof InvalidLoanAmountException
+				|| e instanceof InvalidLoanPeriodException || e instanceof InvalidCountryException
+				|| e instanceof InvalidCustomerAgeException || e instanceof NoValidLoanException;
+	}
+
+	/**
+	 * Cache key of a request with an idempotency key.
+	 */
+	public record IdempotencyKey(String value) {
+	}
+
+	/**
+	 * Cache key of a request without an idempotency key.
+	 */
+	public record FingerprintKey(String policyDigest, SecretHash fingerprint) {
+	}
+
+	/**
+	 * A kept decision and the request it was made for.
+	 */
+	public record Replay(SecretHash fingerprint, CompletableFuture<Decision> decision) {
+	}
+}
@@ -0,0 +1,113 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+
+/**
+ * Evaluates decision requests without throwing, so that bulk callers get one
+ * response per request even when some of them are invalid.
+ */
+@Component
+public class DecisionRequestProcessor {
+
+	// Below this many requests per worker the hand-off costs more than it saves.
+	private static final int MIN_CHUNK_SIZE = 64;
+
+	private final DecisionEngine decisionEngine;
+	private final ExecutorService executor;
+	private final int parallelism;
+
+	public DecisionRequestProcessor(DecisionEngine decisionEngine,
+			@Qualifier("decisionExecutor") ExecutorService executor,
+			@Value("${decision.executor.threads:0}") int threads) {
+		this.decisionEngine = decisionEngine;
+		this.executor = executor;
+		this.parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Runs a single request through the decision engine. Validation failures and
+	 * unexpected errors are reported in the error message of the response.
+	 *
+	 * @param request Decision request, may be null
+	 * @return A new DecisionResponse for the request
+	 */
+	public DecisionResponse process(DecisionRequest request) {
+		return processAsync(request).join();
+	}
+
+	/**
+	 * Same as {@link #process}, without waiting for the credit data.
+	 *
+	 * @param request Decision request, may be null
+	 * @return Future of a new DecisionResponse for the request, never completes
+	 *         exceptionally
+	 */
+	public CompletableFuture<DecisionResponse> processAsync(DecisionRequest request) {
+		CompletableFuture<Decision> decision;
+		try {
+			decision = decisionEngine.evaluateAsync(request.getPersonalCode(), request.getLoanAmount(),
+					request.getLoanPeriod(), request.getCountry());
+		} catch (Exception e) {
+			decision = CompletableFuture.failedFuture(e);
+		}
+		return decision.handle((result, e) -> e == null ? DecisionResponse.of(result)
+				: DecisionResponse.error("An unexpected error occurred"));
+	}
+
+	/**
+	 * Evaluates all requests in parallel. The list is split into contiguous
+	 * chunks, one per worker, and the calling thread processes the first chunk
+	 * itself. Credit data lookups of all requests overlap, and neither the workers
+	 * nor the calling thread wait for them.
+	 *
+	 * @param requests Decision requests
+	 * @return Future of the responses in the same order as the requests, never
+	 *         completes exceptionally
+	 */
+	public CompletableFuture<List<DecisionResponse>> processAll(List<DecisionRequest> requests) {
+		int size = requests.size();
+		@SuppressWarnings("unchecked")
+		CompletableFuture<DecisionResponse>[] pending = new CompletableFuture[size];
+		int chunks = Math.min(parallelism, Math.max(1, size / MIN_CHUNK_SIZE));
+
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks - 1];
+		for (int chunk = 1; chunk < chunks; chunk++) {
+			int from = chunkStart(size, chunks, chunk);
+			int to = chunkStart(size, chunks, chunk + 1);
+			futures[chunk - 1] = CompletableFuture.runAsync(() -> processRange(requests, pending, from, to),
+					executor);
+		}
+		processRange(requests, pending, 0, chunkStart(size, chunks, 1));
+
+		// The workers' futures complete after they filled their chunks, so every slot is set once they have.
+		return CompletableFuture.allOf(futures).thenCompose(started -> CompletableFuture.allOf(pending))
+				.thenApply(done -> {
+					DecisionResponse[] responses = new DecisionResponse[size];
+					for (int i = 0; i < size; i++) {
+						responses[i] = pending[i].join();
+					}
+					return Arrays.asList(responses);
+				});
+	}
+
+	private void processRange(List<DecisionRequest> requests, CompletableFuture<DecisionResponse>[] pending, int from,
+			int to) {
+		for (int i = from; i < to; i++) {
+			pending[i] = processAsync(requests.get(i));
+		}
+	}
+
+	private static int chunkStart(int size, int chunks, int chunk) {
+		return (int) ((long) size * chunk / chunks);
+	}
+}
@@ -1,18 +1,34 @@
 package ee.taltech.inbankbackend.endpoint;
 
-import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
+import ee.taltech.inbankbackend.service.Decision;
 import lombok.Getter;
-import lombok.Setter;
 
 /**
- * Holds the response data of the REST endpoint.
+ * Holds the response data of the REST endpoint. Responses are immutable and
+ * created per request, so concurrent requests can never see each other's data.
  */
 @Getter
-@Setter
-@Component
 public class DecisionResponse {
-	private Integer loanAmount;
-	private Integer loanPeriod;
-	private String errorMessage;
+	private final Integer loanAmount;
+	private final Integer loanPeriod;
+	private final String errorMessage;
+
+	@JsonCreator
+	public DecisionResponse(@JsonProperty("loanAmount") Integer loanAmount,
+			@JsonProperty("loanPeriod") Integer loanPeriod, @JsonProperty("errorMessage") String errorMessage) {
+		this.loanAmount = loanAmount;
+		this.loanPeriod = loanPeriod;
+		this.errorMessage = errorMessage;
+	}
+
+	public static DecisionResponse of(Decision decision) {
+		return new DecisionResponse(decision.getLoanAmount(), decision.getLoanPeriod(), decision.getErrorMessage());
+	}
+
+	public static DecisionResponse error(String errorMessage) {
+		return new DecisionResponse(null, null, errorMessage);
+	}
 }
@@ -0,0 +1,276 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import ee.taltech.inbankbackend.service.CreditDataService;
+import ee.taltech.inbankbackend.service.CreditScoreCalculator;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionAuditLog;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionMetrics;
+import ee.taltech.inbankbackend.service.LoanPeriodSolver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Warms up the decision path before the application reports ready, enabled by
+ * {@code decision.warmup.enabled}. Otherwise the first requests after a deploy
+ * are decided by the interpreter, while Jackson introspects the request and
+ * response types and the decision classes are still being loaded.<br>
+ * <br>
+ * Synthetic requests, approvals in every credit segment and country and every
+ * kind of rejection, are read as JSON with the application's object mapper,
+ * decided, mapped to responses as {@code POST /loan/decision} does and written
+ * as JSON. They are repeated in phases, each sending every request as often
+ * as the C2 compile threshold of the JVM, until a phase changes none of the
+ * compiled application and Jackson methods, or
+ * {@code decision.warmup.max-duration-ms} has passed. An engine of their own
+ * decides them, with the live policy and rules, the same scorer and solver,
+ * and local credit data, so they reach neither the credit bureau, the audit
+ * log nor the decision metrics. The serializers Jackson built stay
+ * cached in the shared object mapper.<br>
+ * <br>
+ * Spring Boot reports the application ready only once its runners return, so
+ * the readiness probe refuses traffic during the warm-up. Its duration, the
+ * requests sent and the methods compiled are published as
+ * {@code decision.warmup.*} metrics.
+ */
+@Component
+@ConditionalOnProperty(name = "decision.warmup.enabled", havingValue = "true")
+public class DecisionWarmup implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(DecisionWarmup.class);
+
+	// Tier4CompileThreshold of HotSpot, for JVMs that do not tell theirs.
+	private static final long DEFAULT_COMPILE_THRESHOLD = 15000;
+	// Requests of each kind per round: every loan period, each with another amount.
+	private static final int VARIANTS = 37;
+	private static final String[] PERSONAL_CODES = { "50307172740", "38411266610", "35006069515", "37605030299",
+			"12345678901", "44110230825" };
+	private static final String[] COUNTRIES = { "Estonia", "Latvia", "Lithuania", "Finland", null };
+	private static final String LATVIAN_PERSONAL_CODE = "261184-16665";
+	// Package prefixes of the compiled methods reported, by metric tag.
+	private static final String[][] CODE = { { "application", "ee.taltech.inbankbackend." },
+			{ "jackson", "com.fasterxml.jackson." } };
+
+	private final DecisionEngine decisionEngine;
+	private final CreditScoreCalculator creditScoreCalculator;
+	private final LoanPeriodSolver loanPeriodSolver;
+	private final boolean decisionTableEnabled;
+	private final Clock clock;
+	private final ObjectReader requestReader;
+	private final ObjectWriter responseWriter;
+	private final long maxDurationNanos;
+	private final MeterRegistry meterRegistry;
+	private final List<byte[]> requests;
+
+	private volatile long sentCount;
+	private volatile long durationNanos;
+
+	/**
+	 * @param decisionEngine        Engine whose policy and rules are warmed up
+	 * @param creditScoreCalculator Scorer of the application
+	 * @param loanPeriodSolver      Loan period solver of the application
+	 * @param decisionTableEnabled  Whether decisions are looked up in a table
+	 * @param clock                 Clock of the age limits
+	 * @param objectMapper          Object mapper of the JSON endpoints
+	 * @param maxDurationMillis     Longest the warm-up may take
+	 * @param meterRegistry         Registry of the warm-up metrics
+	 * @throws IOException If the synthetic requests cannot be written
+	 */
+	@Autowired
+	public DecisionWarmup(DecisionEngine decisionEngine, CreditScoreCalculator creditScoreCalculator,
+			LoanPeriodSolver loanPeriodSolver, @Value("${decision.table.enabled:true}") boolean decisionTableEnabled,
+			Clock clock, ObjectMapper objectMapper,
+			@Value("${decision.warmup.max-duration-ms:30000}") long maxDurationMillis, MeterRegistry meterRegistry)
+			throws IOException {
+		if (maxDurationMillis <= 0) {
+			throw new IllegalArgumentException("Warm-up duration must be positive: " + maxDurationMillis);
+		}
+		this.decisionEngine = decisionEngine;
+		this.creditScoreCalculator = creditScoreCalculator;
+		this.loanPeriodSolver = loanPeriodSolver;
+		this.decisionTableEnabled = decisionTableEnabled;
+		this.clock = clock;
+		this.requestReader = objectMapper.readerFor(DecisionRequest.class);
+		this.responseWriter = objectMapper.writerFor(DecisionResponse.class);
+		this.maxDurationNanos = TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+		this.meterRegistry = meterRegistry;
+
+		this.requests = new ArrayList<>();
+		ObjectWriter requestWriter = objectMapper.writerFor(DecisionRequest.class);
+		for (int variant = 0; variant < VARIANTS; variant++) {
+			int loanPeriod = 12 + variant;
+			long loanAmount = 2000 + 100 * (variant * 7 % 81);
+			for (String personalCode : PERSONAL_CODES) {
+				for (String country : COUNTRIES) {
+					requests.add(requestWriter.writeValueAsBytes(
+							new DecisionRequest(personalCode, loanAmount, loanPeriod, country)));
+				}
+			}
+			requests.add(requestWriter.writeValueAsBytes(
+					new DecisionRequest(LATVIAN_PERSONAL_CODE, loanAmount, loanPeriod, "Latvia")));
+			// Out of range amount and period
+			requests.add(requestWriter.writeValueAsBytes(
+					new DecisionRequest(PERSONAL_CODES[0], loanAmount * 10, loanPeriod, "Estonia")));
+			requests.add(requestWriter.writeValueAsBytes(
+					new DecisionRequest(PERSONAL_CODES[0], loanAmount, loanPeriod + 60, "Estonia")));
+		}
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		long start = System.nanoTime();
+		DecisionEngine engine = new DecisionEngine(new CreditDataService(), creditScoreCalculator, loanPeriodSolver,
+				decisionTableEnabled, DecisionMetrics.noop(), clock, DecisionAuditLog.DISABLED);
+		engine.applyPolicy(decisionEngine.getPolicy());
+		engine.applyRules(decisionEngine.getRules());
+
+		long threshold = compileThreshold();
+		long roundsPerPhase = (threshold + VARIANTS - 1) / VARIANTS;
+		int[][] compiledMethods = compiledMethods();
+		long sent = 0;
+		boolean compiling;
+		// Phases of the threshold each, until one changes none of the compiled methods. At least one round is sent
+		// however short the maximum duration.
+		do {
+			for (long round = 0; round < roundsPerPhase && (round == 0 || !expired(start)); round++) {
+				for (byte[] request : requests) {
+					send(engine, request);
+				}
+				sent += requests.size();
+			}
+			int[][] compiled = compiledMethods();
+			compiling = compiled != null && !Arrays.deepEquals(compiled, compiledMethods);
+			compiledMethods = compiled;
+		} while (compiling && !expired(start));
+		sentCount = sent;
+		durationNanos = System.nanoTime() - start;
+
+		TimeGauge.builder("decision.warmup.duration", () -> durationNanos, TimeUnit.NANOSECONDS)
+				.description("Time the warm-up took before the application was ready")
+				.register(meterRegistry);
+		Gauge.builder("decision.warmup.requests", () -> sentCount)
+				.description("Synthetic requests decided by the warm-up")
+				.register(meterRegistry);
+		StringBuilder report = new StringBuilder();
+		if (compiledMethods != null) {
+			for (int code = 0; code < CODE.length; code++) {
+				int[] counts = compiledMethods[code];
+				Gauge.builder("decision.warmup.compiled-methods", () -> counts[0])
+						.description("Methods compiled by the end of the warm-up")
+						.tags("code", CODE[code][0], "tier", "c1")
+						.register(meterRegistry);
+				Gauge.builder("decision.warmup.compiled-methods", () -> counts[1])
+						.description("Methods compiled by the end of the warm-up")
+						.tags("code", CODE[code][0], "tier", "c2")
+						.register(meterRegistry);
+				report.append(", ").append(CODE[code][0]).append(' ').append(counts[0]).append('/').append(counts[1]);
+			}
+		}
+		log.info("Warmed up with {} requests in {} ms; compiled methods (C1/C2){}", sent,
+				TimeUnit.NANOSECONDS.toMillis(durationNanos), compiledMethods != null ? report : " unknown");
+	}
+
+	/**
+	 * @return Synthetic requests decided by the last warm-up
+	 */
+	public long getSentCount() {
+		return sentCount;
+	}
+
+	/**
+	 * @return Duration of the last warm-up in nanoseconds
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	private boolean expired(long start) {
+		return System.nanoTime() - start >= maxDurationNanos;
+	}
+
+	private void send(DecisionEngine engine, byte[] json) throws IOException {
+		DecisionRequest request = requestReader.readValue(json);
+		CompletableFuture<Decision> decision;
+		try {
+			decision = engine.calculateApprovedLoanAsync(request.getPersonalCode(), request.getLoanAmount(),
+					request.getLoanPeriod(), request.getCountry());
+		} catch (RuntimeException e) {
+			decision = CompletableFuture.failedFuture(e);
+		}
+		ResponseEntity<DecisionResponse> response = decision.handle(DecisionEngineController::toResponseEntity)
+				.join();
+		responseWriter.writeValueAsBytes(response.getBody());
+	}
+
+	/**
+	 * @return How often a method runs before C2 compiles it
+	 */
+	private static long compileThreshold() {
+		try {
+			HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+			return (long) (Long.parseLong(hotSpot.getVMOption("Tier4CompileThreshold").getValue())
+					* Double.parseDouble(hotSpot.getVMOption("CompileThresholdScaling").getValue()));
+		} catch (RuntimeException e) {
+			return DEFAULT_COMPILE_THRESHOLD;
+		}
+	}
+
+	/**
+	 * Counts the compiled methods in the code cache by {@link #CODE} and tier,
+	 * from the {@code Compiler.codelist} diagnostic command.
+	 *
+	 * @return C1 and C2 counts per entry of {@link #CODE}, null if unknown
+	 */
+	private static int[][] compiledMethods() {
+		String codeList;
+		try {
+			codeList = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+					new ObjectName("com.sun.management:type=DiagnosticCommand"), "compilerCodelist",
+					new Object[] { null }, new String[] { String[].class.getName() });
+		} catch (JMException | RuntimeException e) {
+			return null;
+		}
+		int[][] counts = new int[CODE.length][2];
+		// Lines are "compile id, tier, state, method", state 0 for code in use.
+		for (String line : codeList.split("\n")) {
+			String[] fields = line.split(" ", 5);
+			if (fields.length < 4 || !fields[2].equals("0") || fields[1].equals("0")) {
+				continue;
+			}
+			for (int code = 0; code < CODE.length; code++) {
+				if (fields[3].startsWith(CODE[code][1])) {
+					counts[code][fields[1].equals("4") ? 1 : 0]++;
+				}
+			}
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,244 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams newline-delimited JSON decision requests through the decision engine
+ * and writes one NDJSON decision per request line.<br>
+ * <br>
+ * At most {@code decision.stream.window} requests are in flight at any time.
+ * When the window is full the reader stops consuming input until the writer has
+ * caught up, so memory use does not depend on the input size and a slow
+ * consumer slows down the producer.
+ */
+@Component
+public class NdjsonDecisionPipeline {
+
+	private static final CompletableFuture<byte[]> END_OF_STREAM = CompletableFuture.completedFuture(null);
+	private static final byte[] MALFORMED_REQUEST = "{\"loanAmount\":null,\"loanPeriod\":null,\"errorMessage\":\"Malformed request\"}\n"
+			.getBytes(StandardCharsets.UTF_8);
+
+	private final DecisionRequestProcessor requestProcessor;
+	private final ExecutorService executor;
+	private final ObjectMapper objectMapper;
+	private final int window;
+	private final int maxLineLength;
+
+	public NdjsonDecisionPipeline(DecisionRequestProcessor requestProcessor,
+			@Qualifier("decisionExecutor") ExecutorService executor, ObjectMapper objectMapper,
+			@Value("${decision.stream.window:1024}") int window,
+			@Value("${decision.stream.max-line-length:8192}") int maxLineLength) {
+		this.requestProcessor = requestProcessor;
+		this.executor = executor;
+		this.objectMapper = objectMapper;
+		this.window = window;
+		this.maxLineLength = maxLineLength;
+	}
+
+	/**
+	 * Reads request lines from the input until it is exhausted and writes the
+	 * decisions to the output. Blank lines are skipped. A line that cannot be
+	 * parsed or is longer than the maximum line length produces an error line.
+	 *
+	 * @param input   NDJSON decision requests
+	 * @param output  Destination of the NDJSON decision responses
+	 * @param ordered If true, responses are written in request order, otherwise
+	 *                in completion order
+	 * @throws IOException If reading the input or writing the output fails
+	 */
+	public void run(InputStream input, OutputStream output, boolean ordered) throws IOException {
+		BlockingQueue<CompletableFuture<byte[]>> pending = new ArrayBlockingQueue<>(window + 1);
+		Semaphore permits = new Semaphore(window);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		Thread writer = new Thread(() -> write(output, pending, permits, failure), "ndjson-writer");
+		writer.start();
+		try {
+			LineReader reader = new LineReader(input, maxLineLength);
+			byte[] line;
+			while (failure.get() == null && (line = reader.readLine()) != null) {
+				if (line.length == 0 && line != LineReader.TOO_LONG) {
+					continue;
+				}
+				permits.acquire();
+				byte[] requestLine = line;
+				CompletableFuture<byte[]> result = CompletableFuture.supplyAsync(() -> parse(requestLine), executor)
+						.thenCompose(this::decide);
+				if (ordered) {
+					pending.put(result);
+				} else {
+					result.whenComplete((response, e) -> pending.offer(result));
+				}
+			}
+			// Every permit is back only once the writer has handled all submitted lines.
+			permits.acquire(window);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Decision stream interrupted");
+		} finally {
+			// There is always room for the marker: at most `window` results are queued.
+			pending.offer(END_OF_STREAM);
+			awaitWriter(writer);
+		}
+
+		Throwable writeFailure = failure.get();
+		if (writeFailure instanceof IOException) {
+			throw (IOException) writeFailure;
+		} else if (writeFailure != null) {
+			throw new IOException("Writing decision stream failed", writeFailure);
+		}
+	}
+
+	private static void awaitWriter(Thread writer) {
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			writer.interrupt();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void write(OutputStream output, BlockingQueue<CompletableFuture<byte[]>> pending, Semaphore permits,
+			AtomicReference<Throwable> failure) {
+		try {
+			CompletableFuture<byte[]> next;
+			while ((next = pending.take()) != END_OF_STREAM) {
+				try {
+					if (failure.get() == null) {
+						output.write(next.join());
+						if (pending.isEmpty()) {
+							output.flush();
+						}
+					}
+				} catch (IOException | RuntimeException e) {
+					// Keep draining so that the reader is never left waiting for permits.
+					failure.compareAndSet(null, e);
+				} finally {
+					permits.release();
+				}
+			}
+			if (failure.get() == null) {
+				output.flush();
+			}
+		} catch (IOException e) {
+			failure.compareAndSet(null, e);
+		} catch (InterruptedException e) {
+			failure.compareAndSet(null, e);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Null for lines that are not a decision request.
+	private DecisionRequest parse(byte[] line) {
+		if (line == LineReader.TOO_LONG) {
+			return null;
+		}
+		try {
+			return objectMapper.readValue(line, DecisionRequest.class);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private CompletableFuture<byte[]> decide(DecisionRequest request) {
+		if (request == null) {
+			return CompletableFuture.completedFuture(MALFORMED_REQUEST);
+		}
+		return requestProcessor.processAsync(request).thenApply(this::toLine);
+	}
+
+	private byte[] toLine(DecisionResponse decisionResponse) {
+		try {
+			byte[] json = objectMapper.writeValueAsBytes(decisionResponse);
+			byte[] response = new byte[json.length + 1];
+			System.arraycopy(json, 0, response, 0, json.length);
+			response[json.length] = '\n';
+			return response;
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Splits a byte stream into lines without decoding it. Lines longer than the
+	 * limit are skipped up to the next newline and reported as {@link #TOO_LONG},
+	 * so a missing newline cannot make the buffer grow without bound.
+	 */
+	static class LineReader {
+		static final byte[] TOO_LONG = new byte[0];
+
+		private final InputStream input;
+		private final int maxLineLength;
+		private final byte[] buffer = new byte[64 * 1024];
+		private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+		private int position;
+		private int limit;
+
+		LineReader(InputStream input, int maxLineLength) {
+			this.input = input;
+			this.maxLineLength = maxLineLength;
+		}
+
+		/**
+		 * @return The next line without the line terminator, {@link #TOO_LONG} for
+		 *         an oversized line, or null at the end of the input
+		 */
+		byte[] readLine() throws IOException {
+			line.reset();
+			boolean tooLong = false;
+			while (true) {
+				if (position == limit) {
+					limit = input.read(buffer);
+					position = 0;
+					if (limit <= 0) {
+						limit = 0;
+						return line.size() == 0 && !tooLong ? null : finish(tooLong);
+					}
+				}
+				int start = position;
+				while (position < limit && buffer[position] != '\n') {
+					position++;
+				}
+				if (!tooLong) {
+					line.write(buffer, start, position - start);
+					tooLong = line.size() > maxLineLength;
+				}
+				if (position < limit) {
+					position++;
+					return finish(tooLong);
+				}
+			}
+		}
+
+		private byte[] finish(boolean tooLong) {
+			if (tooLong) {
+				return TOO_LONG;
+			}
+			byte[] bytes = line.toByteArray();
+			int length = bytes.length;
+			while (length > 0 && (bytes[length - 1] == '\r' || bytes[length - 1] == ' ' || bytes[length - 1] == '\t')) {
+				length--;
+			}
+			return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+		}
+	}
+}
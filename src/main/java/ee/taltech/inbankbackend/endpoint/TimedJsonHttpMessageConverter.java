@@ -0,0 +1,41 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ee.taltech.inbankbackend.service.DecisionMetrics;
+import ee.taltech.inbankbackend.service.DecisionMetrics.Stage;
+
+/**
+ * Spring MVC's JSON converter, additionally timing how long writing a
+ * DecisionResponse takes. Replaces the converter Spring Boot would register.
+ */
+@Component
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	private final DecisionMetrics metrics;
+
+	public TimedJsonHttpMessageConverter(ObjectMapper objectMapper, DecisionMetrics metrics) {
+		super(objectMapper);
+		this.metrics = metrics;
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		if (!(object instanceof DecisionResponse)) {
+			super.writeInternal(object, type, outputMessage);
+			return;
+		}
+		long start = System.nanoTime();
+		super.writeInternal(object, type, outputMessage);
+		metrics.recordStage(Stage.SERIALIZATION, System.nanoTime() - start);
+	}
+}
@@ -0,0 +1,16 @@
+package ee.taltech.inbankbackend.exceptions;
+
+/**
+ * Thrown when the credit data of a customer cannot be retrieved. Unchecked, as
+ * it is delivered through the failed future of an asynchronous lookup.
+ */
+public class CreditDataUnavailableException extends RuntimeException {
+
+	public CreditDataUnavailableException(String message) {
+		super(message);
+	}
+
+	public CreditDataUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
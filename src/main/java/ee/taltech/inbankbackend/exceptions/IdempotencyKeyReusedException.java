@@ -0,0 +1,12 @@
+package ee.taltech.inbankbackend.exceptions;
+
+/**
+ * Thrown when an idempotency key is sent again with a different request.
+ * Unchecked, as it is delivered through the failed future of a decision.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+	public IdempotencyKeyReusedException(String message) {
+		super(message);
+	}
+}
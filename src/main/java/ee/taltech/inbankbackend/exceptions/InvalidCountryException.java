@@ -4,25 +4,18 @@ package ee.taltech.inbankbackend.exceptions;
  * Thrown when requested country is invalid.
  */
 public class InvalidCountryException extends Throwable {
-	private final String message;
-	private final Throwable cause;
+
+	/**
+	 * Preallocated instance for {@link RejectionReason#INVALID_COUNTRY}.
+	 */
+	public static final InvalidCountryException REJECTION = new InvalidCountryException(
+			RejectionReason.INVALID_COUNTRY.getMessage());
 
 	public InvalidCountryException(String message) {
 		this(message, null);
 	}
 
 	public InvalidCountryException(String message, Throwable cause) {
-		this.message = message;
-		this.cause = cause;
-	}
-
-	@Override
-	public Throwable getCause() {
-		return cause;
-	}
-
-	@Override
-	public String getMessage() {
-		return message;
+		super(message, cause, false, false);
 	}
 }
@@ -1,25 +1,22 @@
 package ee.taltech.inbankbackend.exceptions;
 
+/**
+ * Thrown when the customer is too young or would be too old by the end of the
+ * requested loan period.
+ */
 public class InvalidCustomerAgeException extends Throwable {
-	private final String message;
-	private final Throwable cause;
+
+	/**
+	 * Preallocated instance for {@link RejectionReason#INVALID_CUSTOMER_AGE}.
+	 */
+	public static final InvalidCustomerAgeException REJECTION = new InvalidCustomerAgeException(
+			RejectionReason.INVALID_CUSTOMER_AGE.getMessage());
 
 	public InvalidCustomerAgeException(String message) {
 		this(message, null);
 	}
 
 	public InvalidCustomerAgeException(String message, Throwable cause) {
-		this.message = message;
-		this.cause = cause;
-	}
-
-	@Override
-	public Throwable getCause() {
-		return cause;
-	}
-
-	@Override
-	public String getMessage() {
-		return message;
+		super(message, cause, false, false);
 	}
 }
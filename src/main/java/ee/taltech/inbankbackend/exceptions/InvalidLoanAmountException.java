@@ -4,25 +4,18 @@ package ee.taltech.inbankbackend.exceptions;
  * Thrown when requested loan amount is invalid.
  */
 public class InvalidLoanAmountException extends Throwable {
-    private final String message;
-    private final Throwable cause;
+
+    /**
+     * Preallocated instance for {@link RejectionReason#INVALID_LOAN_AMOUNT}.
+     */
+    public static final InvalidLoanAmountException REJECTION = new InvalidLoanAmountException(
+            RejectionReason.INVALID_LOAN_AMOUNT.getMessage());
 
     public InvalidLoanAmountException(String message) {
         this(message, null);
     }
 
     public InvalidLoanAmountException(String message, Throwable cause) {
-        this.message = message;
-        this.cause = cause;
-    }
-
-    @Override
-    public Throwable getCause() {
-        return cause;
-    }
-
-    @Override
-    public String getMessage() {
-        return message;
+        super(message, cause, false, false);
     }
 }
@@ -4,25 +4,18 @@ package ee.taltech.inbankbackend.exceptions;
  * Thrown when requested loan period is invalid.
  */
 public class InvalidLoanPeriodException extends Throwable {
-    private final String message;
-    private final Throwable cause;
+
+    /**
+     * Preallocated instance for {@link RejectionReason#INVALID_LOAN_PERIOD}.
+     */
+    public static final InvalidLoanPeriodException REJECTION = new InvalidLoanPeriodException(
+            RejectionReason.INVALID_LOAN_PERIOD.getMessage());
 
     public InvalidLoanPeriodException(String message) {
         this(message, null);
     }
 
     public InvalidLoanPeriodException(String message, Throwable cause) {
-        this.message = message;
-        this.cause = cause;
-    }
-
-    @Override
-    public Throwable getCause() {
-        return cause;
-    }
-
-    @Override
-    public String getMessage() {
-        return message;
+        super(message, cause, false, false);
     }
 }
@@ -4,25 +4,18 @@ package ee.taltech.inbankbackend.exceptions;
  * Thrown when provided personal ID code is invalid.
  */
 public class InvalidPersonalCodeException extends Throwable {
-    private final String message;
-    private final Throwable cause;
+
+    /**
+     * Preallocated instance for {@link RejectionReason#INVALID_PERSONAL_CODE}.
+     */
+    public static final InvalidPersonalCodeException REJECTION = new InvalidPersonalCodeException(
+            RejectionReason.INVALID_PERSONAL_CODE.getMessage());
 
     public InvalidPersonalCodeException(String message) {
         this(message, null);
     }
 
     public InvalidPersonalCodeException(String message, Throwable cause) {
-        this.message = message;
-        this.cause = cause;
-    }
-
-    @Override
-    public Throwable getCause() {
-        return cause;
-    }
-
-    @Override
-    public String getMessage() {
-        return message;
+        super(message, cause, false, false);
     }
 }
@@ -0,0 +1,55 @@
+package ee.taltech.inbankbackend.exceptions;
+
+/**
+ * Reasons for rejecting a loan application, returned by validation instead of
+ * thrown. Rejections are a regular outcome, so they are reported without
+ * building an exception; where the API still has to throw, the shared
+ * stackless instance of the matching exception is used.
+ */
+public enum RejectionReason {
+	INVALID_COUNTRY("Invalid Country!"),
+	INVALID_PERSONAL_CODE("Invalid personal ID code!"),
+	INVALID_CUSTOMER_AGE("Invalid age for loan!"),
+	INVALID_LOAN_AMOUNT("Invalid loan amount!"),
+	INVALID_LOAN_PERIOD("Invalid loan period!"),
+	NO_VALID_LOAN("No valid loan found!");
+
+	private final String message;
+
+	RejectionReason(String message) {
+		this.message = message;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return The preallocated exception that corresponds to this reason
+	 */
+	public Throwable getException() {
+		return switch (this) {
+		case INVALID_COUNTRY -> InvalidCountryException.REJECTION;
+		case INVALID_PERSONAL_CODE -> InvalidPersonalCodeException.REJECTION;
+		case INVALID_CUSTOMER_AGE -> InvalidCustomerAgeException.REJECTION;
+		case INVALID_LOAN_AMOUNT -> InvalidLoanAmountException.REJECTION;
+		case INVALID_LOAN_PERIOD -> InvalidLoanPeriodException.REJECTION;
+		case NO_VALID_LOAN -> NoValidLoanException.REJECTION;
+		};
+	}
+
+	/**
+	 * Throws the preallocated exception that corresponds to this reason.
+	 */
+	public void throwException() throws InvalidCountryException, InvalidPersonalCodeException,
+			InvalidCustomerAgeException, InvalidLoanAmountException, InvalidLoanPeriodException, NoValidLoanException {
+		switch (this) {
+		case INVALID_COUNTRY -> throw InvalidCountryException.REJECTION;
+		case INVALID_PERSONAL_CODE -> throw InvalidPersonalCodeException.REJECTION;
+		case INVALID_CUSTOMER_AGE -> throw InvalidCustomerAgeException.REJECTION;
+		case INVALID_LOAN_AMOUNT -> throw InvalidLoanAmountException.REJECTION;
+		case INVALID_LOAN_PERIOD -> throw InvalidLoanPeriodException.REJECTION;
+		case NO_VALID_LOAN -> throw NoValidLoanException.REJECTION;
+		}
+	}
+}
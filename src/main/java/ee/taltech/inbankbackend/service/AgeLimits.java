@@ -0,0 +1,79 @@
+package ee.taltech.inbankbackend.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Age limits of a policy, turned into birth date limits for one calendar day.
+ * Checking an age is then two integer comparisons. The limits expire at the
+ * following midnight in the zone of the clock they were computed with.
+ */
+final class AgeLimits {
+
+	private final int minimumAgeYear;
+	// Maximum age as a month count, so that subtracting the loan period needs no LocalDate.
+	private final int maximumAgeMonths;
+	private final int todayYear;
+	// Month * 32 + day, ordered like the dates.
+	private final int todayMonthDay;
+	private final long expiresAtMillis;
+
+	private AgeLimits(int minimumAgeYear, int maximumAgeMonths, LocalDate today, long expiresAtMillis) {
+		this.minimumAgeYear = minimumAgeYear;
+		this.maximumAgeMonths = maximumAgeMonths;
+		this.todayYear = today.getYear();
+		this.todayMonthDay = today.getMonthValue() * 32 + today.getDayOfMonth();
+		this.expiresAtMillis = expiresAtMillis;
+	}
+
+	/**
+	 * @param clock      Clock that defines today
+	 * @param minimumAge Minimum age of a customer in years
+	 * @param maximumAge Age in years a customer must not reach during the loan
+	 * @return Limits valid until the end of today
+	 */
+	static AgeLimits forToday(Clock clock, int minimumAge, int maximumAge) {
+		LocalDate today = LocalDate.now(clock);
+		LocalDate maximumAgeDate = today.minusYears(maximumAge);
+		long expiresAtMillis = today.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+		return new AgeLimits(today.minusYears(minimumAge).getYear(),
+				maximumAgeDate.getYear() * 12 + maximumAgeDate.getMonthValue() - 1, today, expiresAtMillis);
+	}
+
+	/**
+	 * @param nowMillis Current time of the clock the limits were computed with
+	 * @return true once the day the limits were computed for is over
+	 */
+	boolean isExpired(long nowMillis) {
+		return nowMillis >= expiresAtMillis;
+	}
+
+	/**
+	 * Checks the age of an already decoded personal code without allocating.
+	 *
+	 * @param decodedPersonalCode Result of {@link Country#decode}
+	 * @param loanPeriod          Requested loan period
+	 * @return true if the customer is old enough and will not exceed the maximum
+	 *         age during the loan period
+	 */
+	boolean isValidAge(long decodedPersonalCode, int loanPeriod) {
+		if (!PersonalCodeDecoder.isValid(decodedPersonalCode)) {
+			return false;
+		}
+		int birthYear = PersonalCodeDecoder.birthYear(decodedPersonalCode);
+		int maxAgeMinusLoanPeriodYear = Math.floorDiv(maximumAgeMonths - loanPeriod, 12);
+
+		return birthYear < minimumAgeYear && birthYear > maxAgeMinusLoanPeriodYear;
+	}
+
+	/**
+	 * @param decodedPersonalCode Valid result of {@link Country#decode}
+	 * @return Age of the customer today in completed years
+	 */
+	int age(long decodedPersonalCode) {
+		int birthMonthDay = PersonalCodeDecoder.birthMonth(decodedPersonalCode) * 32
+				+ PersonalCodeDecoder.birthDay(decodedPersonalCode);
+		int age = todayYear - PersonalCodeDecoder.birthYear(decodedPersonalCode);
+		return birthMonthDay > todayMonthDay ? age - 1 : age;
+	}
+}
@@ -1,33 +1,63 @@
 package ee.taltech.inbankbackend.service;
 
+import java.time.Clock;
 import java.time.LocalDate;
 
-import com.github.vladislavgoltjajev.personalcode.exception.PersonalCodeException;
-import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeParser;
-
 import ee.taltech.inbankbackend.config.DecisionEngineConstants;
 
 public class AgeVerificator {
 
+	private static final Clock CLOCK = Clock.systemDefaultZone();
+	// Default policy limits for today, replaced by the first check after midnight.
+	private static volatile AgeLimits ageLimits = defaultAgeLimits();
+
 	public static LocalDate extractDateOfBirth(String personalCode) {
-		// Assuming that personal code is in the same format in all countries
-
-		EstonianPersonalCodeParser parser = new EstonianPersonalCodeParser();
-		LocalDate dateOfBirth = null;
-		try {
-			dateOfBirth = parser.getDateOfBirth(personalCode);
-		} catch (PersonalCodeException e) {
-			e.printStackTrace();
+		return extractDateOfBirth(personalCode, Country.ESTONIA);
+	}
+
+	/**
+	 * @param personalCode Personal ID code in the format of the given country
+	 * @param country      Country that issued the code
+	 * @return Date of birth, or null if the code is invalid
+	 */
+	public static LocalDate extractDateOfBirth(String personalCode, Country country) {
+		long decoded = country.decode(personalCode);
+		if (!PersonalCodeDecoder.isValid(decoded)) {
+			return null;
 		}
-		return dateOfBirth;
+		return LocalDate.of(PersonalCodeDecoder.birthYear(decoded), PersonalCodeDecoder.birthMonth(decoded),
+				PersonalCodeDecoder.birthDay(decoded));
 	}
 
 	public static boolean isValidAge(String personalCode, int loanPeriod) {
-		LocalDate dateOfBirth = extractDateOfBirth(personalCode);
-		LocalDate maxAgeMinusLoanPeriod = DecisionEngineConstants.MAXIMUM_AGE.minusMonths(loanPeriod);
+		return isValidAge(personalCode, Country.ESTONIA, loanPeriod);
+	}
+
+	public static boolean isValidAge(String personalCode, Country country, int loanPeriod) {
+		return isValidAge(country.decode(personalCode), loanPeriod);
+	}
+
+	/**
+	 * Checks the age of an already decoded personal code against the default
+	 * policy, without allocating.
+	 *
+	 * @param decodedPersonalCode Result of {@link Country#decode}
+	 * @param loanPeriod          Requested loan period
+	 * @return true if the customer is old enough and will not exceed the maximum
+	 *         age during the loan period
+	 */
+	public static boolean isValidAge(long decodedPersonalCode, int loanPeriod) {
+		AgeLimits limits = ageLimits;
+		if (limits.isExpired(CLOCK.millis())) {
+			limits = defaultAgeLimits();
+			ageLimits = limits;
+		}
+		return limits.isValidAge(decodedPersonalCode, loanPeriod);
+	}
 
-		return dateOfBirth.getYear() < DecisionEngineConstants.MINIMUM_AGE.getYear()
-				&& dateOfBirth.getYear() > maxAgeMinusLoanPeriod.getYear();
+	private static AgeLimits defaultAgeLimits() {
+		return AgeLimits.forToday(CLOCK, DecisionEngineConstants.MINIMUM_AGE_YEARS,
+				DecisionEngineConstants.MAXIMUM_AGE_YEARS);
 	}
 
 }
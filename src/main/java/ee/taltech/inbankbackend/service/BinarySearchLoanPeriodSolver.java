@@ -0,0 +1,66 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+/**
+ * Solves the loan period for any scorer that does not decrease with the loan
+ * period, using a binary search between the requested and the maximum loan
+ * period. The requested period is tried first since it usually qualifies, so
+ * the scorer is called once in the common case and at most eight times for the
+ * 12...60 month range.
+ */
+public class BinarySearchLoanPeriodSolver implements LoanPeriodSolver {
+
+	private final CreditScoreCalculator creditScoreCalculator;
+	private final int minimumLoanAmount;
+	private final int maximumLoanPeriod;
+
+	public BinarySearchLoanPeriodSolver(CreditScoreCalculator creditScoreCalculator) {
+		this(creditScoreCalculator, DecisionEngineConstants.MINIMUM_LOAN_AMOUNT,
+				DecisionEngineConstants.MAXIMUM_LOAN_PERIOD);
+	}
+
+	public BinarySearchLoanPeriodSolver(CreditScoreCalculator creditScoreCalculator, int minimumLoanAmount,
+			int maximumLoanPeriod) {
+		this.creditScoreCalculator = creditScoreCalculator;
+		this.minimumLoanAmount = minimumLoanAmount;
+		this.maximumLoanPeriod = maximumLoanPeriod;
+	}
+
+	@Override
+	public LoanPeriodSolver forPolicy(DecisionPolicy policy) {
+		return new BinarySearchLoanPeriodSolver(creditScoreCalculator, policy.getMinimumLoanAmount(),
+				policy.getMaximumLoanPeriod());
+	}
+
+	@Override
+	public LoanPeriodSolver withCalculator(CreditScoreCalculator creditScoreCalculator) {
+		return new BinarySearchLoanPeriodSolver(creditScoreCalculator, minimumLoanAmount, maximumLoanPeriod);
+	}
+
+	@Override
+	public int findLoanPeriod(int creditModifier, int requestedPeriod) {
+		int low = requestedPeriod;
+		int high = maximumLoanPeriod;
+		if (low > high) {
+			return NO_LOAN_PERIOD;
+		}
+		if (creditScoreCalculator.calculateCreditScore(creditModifier, low) >= minimumLoanAmount) {
+			return low;
+		}
+		if (creditScoreCalculator.calculateCreditScore(creditModifier, high) < minimumLoanAmount) {
+			return NO_LOAN_PERIOD;
+		}
+		low++;
+		// Invariant: the answer lies in [low, high] and high reaches the minimum.
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (creditScoreCalculator.calculateCreditScore(creditModifier, middle) < minimumLoanAmount) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
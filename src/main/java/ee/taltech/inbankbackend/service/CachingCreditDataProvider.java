@@ -0,0 +1,56 @@
+package ee.taltech.inbankbackend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import ee.taltech.inbankbackend.service.SecretHasher.SecretHash;
+
+/**
+ * Caches the credit modifiers of another provider. Customers usually retry with
+ * a different amount or period, so the same personal codes recur within
+ * minutes.<br>
+ * <br>
+ * The cache is bounded in size (W-TinyLFU eviction) and entries expire a fixed
+ * time after they were loaded. Concurrent misses for the same customer share a
+ * single lookup, and failed lookups are not cached. Personal codes are not
+ * stored: entries are keyed by an HMAC of the code under a random key that
+ * never leaves the process.
+ */
+public class CachingCreditDataProvider implements CreditDataProvider {
+
+	private final CreditDataProvider delegate;
+	private final AsyncCache<SecretHash, Integer> cache;
+	private final SecretHasher hasher = new SecretHasher();
+
+	public CachingCreditDataProvider(CreditDataProvider delegate, long maximumSize, Duration timeToLive) {
+		this(delegate, maximumSize, timeToLive, Ticker.systemTicker());
+	}
+
+	CachingCreditDataProvider(CreditDataProvider delegate, long maximumSize, Duration timeToLive, Ticker ticker) {
+		this.delegate = delegate;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLive)
+				.ticker(ticker)
+				.recordStats()
+				.buildAsync();
+	}
+
+	@Override
+	public CompletableFuture<Integer> getCreditModifierAsync(String personalCode, long decodedPersonalCode) {
+		return cache.get(hasher.hash(personalCode.getBytes(StandardCharsets.US_ASCII)),
+				(key, executor) -> delegate.getCreditModifierAsync(personalCode, decodedPersonalCode));
+	}
+
+	/**
+	 * @return The underlying cache, for statistics and metrics
+	 */
+	public AsyncCache<SecretHash, Integer> getCache() {
+		return cache;
+	}
+}
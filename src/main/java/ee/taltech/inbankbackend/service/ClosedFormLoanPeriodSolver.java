@@ -0,0 +1,51 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+/**
+ * Solves the loan period directly for linear scorers. If the score is
+ * {@code slope * loanPeriod}, the shortest period reaching the minimum loan
+ * amount is {@code ceil(MINIMUM_LOAN_AMOUNT / slope)}.
+ */
+public class ClosedFormLoanPeriodSolver implements LoanPeriodSolver {
+
+	private final CreditScoreCalculator creditScoreCalculator;
+	private final int minimumLoanAmount;
+	private final int maximumLoanPeriod;
+
+	public ClosedFormLoanPeriodSolver(CreditScoreCalculator creditScoreCalculator) {
+		this(creditScoreCalculator, DecisionEngineConstants.MINIMUM_LOAN_AMOUNT,
+				DecisionEngineConstants.MAXIMUM_LOAN_PERIOD);
+	}
+
+	public ClosedFormLoanPeriodSolver(CreditScoreCalculator creditScoreCalculator, int minimumLoanAmount,
+			int maximumLoanPeriod) {
+		if (!creditScoreCalculator.isLinear()) {
+			throw new IllegalArgumentException("Closed-form solver requires a linear credit score calculator");
+		}
+		this.creditScoreCalculator = creditScoreCalculator;
+		this.minimumLoanAmount = minimumLoanAmount;
+		this.maximumLoanPeriod = maximumLoanPeriod;
+	}
+
+	@Override
+	public LoanPeriodSolver forPolicy(DecisionPolicy policy) {
+		return new ClosedFormLoanPeriodSolver(creditScoreCalculator, policy.getMinimumLoanAmount(),
+				policy.getMaximumLoanPeriod());
+	}
+
+	@Override
+	public LoanPeriodSolver withCalculator(CreditScoreCalculator creditScoreCalculator) {
+		return new ClosedFormLoanPeriodSolver(creditScoreCalculator, minimumLoanAmount, maximumLoanPeriod);
+	}
+
+	@Override
+	public int findLoanPeriod(int creditModifier, int requestedPeriod) {
+		int slope = creditScoreCalculator.calculateCreditScore(creditModifier, 1);
+		if (slope <= 0) {
+			return NO_LOAN_PERIOD;
+		}
+		int loanPeriod = Math.max(requestedPeriod, (minimumLoanAmount + slope - 1) / slope);
+		return loanPeriod <= maximumLoanPeriod ? loanPeriod : NO_LOAN_PERIOD;
+	}
+}
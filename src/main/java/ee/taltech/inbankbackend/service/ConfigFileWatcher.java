@@ -0,0 +1,107 @@
+package ee.taltech.inbankbackend.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads a configuration file, such as a {@link DecisionPolicy} or
+ * {@link DecisionRules}, and reloads it whenever it changes.<br>
+ * <br>
+ * The directory of the file is watched on a daemon thread, so reloads never
+ * run on a request thread. A file that cannot be read or is invalid is logged
+ * and skipped; the last valid version stays in effect. To replace the file
+ * without a window where it is half written, write a new file next to it and
+ * move it over the old one.
+ *
+ * @param <T> Type of the loaded configuration
+ */
+public class ConfigFileWatcher<T> implements Closeable {
+
+	/**
+	 * Reads the configuration from a file.
+	 *
+	 * @param <T> Type of the loaded configuration
+	 */
+	@FunctionalInterface
+	public interface Loader<T> {
+
+		/**
+		 * @param file File to read
+		 * @return The configuration in the file
+		 * @throws IOException              If the file cannot be read
+		 * @throws IllegalArgumentException If the content is invalid
+		 */
+		T load(Path file) throws IOException;
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(ConfigFileWatcher.class);
+
+	private final Path file;
+	private final Loader<T> loader;
+	private final Consumer<T> listener;
+	private final WatchService watchService;
+
+	/**
+	 * Loads the file once and starts watching it.
+	 *
+	 * @param file     Configuration file
+	 * @param loader   Reads the file
+	 * @param listener Receives the initial configuration and every changed one
+	 * @throws IOException              If the file cannot be read or watched
+	 * @throws IllegalArgumentException If the file is invalid
+	 */
+	public ConfigFileWatcher(Path file, Loader<T> loader, Consumer<T> listener) throws IOException {
+		this.file = file.toAbsolutePath();
+		this.loader = loader;
+		this.listener = listener;
+		listener.accept(loader.load(this.file));
+		watchService = this.file.getFileSystem().newWatchService();
+		this.file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+		Thread.ofPlatform().name("config-watcher-" + this.file.getFileName()).daemon().start(this::watch);
+	}
+
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				boolean changed = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					changed |= event.kind() == OVERFLOW || file.getFileName().equals(event.context());
+				}
+				key.reset();
+				if (changed) {
+					reload();
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Closed
+		}
+	}
+
+	private void reload() {
+		try {
+			listener.accept(loader.load(file));
+			log.info("Reloaded {}", file);
+		} catch (IOException | IllegalArgumentException e) {
+			log.warn("Keeping the current configuration, {} could not be loaded: {}", file, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Countries the decision engine lends in, each with the decoder of its personal
+ * ID codes.<br>
+ * <br>
+ * The country of a request is resolved once with {@link #fromName}, a single
+ * hash lookup, and the personal code is then decoded by the resolved country.
+ * Adding a country adds a constant, not work per request.
+ */
+public enum Country {
+	ESTONIA("Estonia", PersonalCodeDecoder::decode),
+	LATVIA("Latvia", LatvianPersonalCodeDecoder::decode),
+	// Lithuanian codes share the Estonian layout (GYYMMDDSSSC) and check digit algorithm.
+	LITHUANIA("Lithuania", PersonalCodeDecoder::decode);
+
+	private static final Map<String, Country> BY_NAME = new HashMap<>();
+
+	static {
+		for (Country country : values()) {
+			BY_NAME.put(country.name, country);
+		}
+	}
+
+	private final String name;
+	private final ToLongFunction<String> decoder;
+
+	Country(String name, ToLongFunction<String> decoder) {
+		this.name = name;
+		this.decoder = decoder;
+	}
+
+	/**
+	 * @param name Country name as sent by the client, e.g. "Estonia", may be null
+	 * @return The country, or null if loans are not issued there
+	 */
+	public static Country fromName(String name) {
+		return BY_NAME.get(name);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Validates and decodes a personal ID code of this country.
+	 *
+	 * @param personalCode Personal ID code, may be null
+	 * @return Packed decoding result as described in {@link PersonalCodeDecoder},
+	 *         or {@link PersonalCodeDecoder#INVALID}
+	 */
+	public long decode(String personalCode) {
+		return decoder.applyAsLong(personalCode);
+	}
+}
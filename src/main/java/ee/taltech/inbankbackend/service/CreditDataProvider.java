@@ -0,0 +1,24 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of customer credit data. Lookups are asynchronous, so that a slow
+ * credit bureau delays only the decisions that wait for it instead of holding
+ * a thread for every request in flight.
+ */
+public interface CreditDataProvider {
+
+	/**
+	 * Looks up the credit modifier of a customer whose personal code has already
+	 * passed validation.
+	 *
+	 * @param personalCode        ID code of the customer
+	 * @param decodedPersonalCode The same code decoded by
+	 *                            {@link PersonalCodeDecoder#decode}, for
+	 *                            providers that derive the data locally
+	 * @return Future of the credit modifier, 0 for customers with debt. Completes
+	 *         exceptionally if the data cannot be retrieved.
+	 */
+	CompletableFuture<Integer> getCreditModifierAsync(String personalCode, long decodedPersonalCode);
+}
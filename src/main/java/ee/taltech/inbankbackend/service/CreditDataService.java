@@ -1,11 +1,26 @@
 package ee.taltech.inbankbackend.service;
 
-import org.springframework.stereotype.Component;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import ee.taltech.inbankbackend.config.DecisionEngineConstants;
 
-@Component
-public class CreditDataService {
+/**
+ * Local credit data provider that derives the credit segment from the personal
+ * code itself.
+ */
+public class CreditDataService implements CreditDataProvider {
+
+	// Stands in for the round trip to a real credit registry, 0 = no delay.
+	private final long latencyMillis;
+
+	public CreditDataService() {
+		this(0);
+	}
+
+	public CreditDataService(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
 
 	/**
 	 * Calculates the credit modifier of the customer to according to the last four
@@ -17,16 +32,73 @@ public class CreditDataService {
 	 */
 
 	public int getCreditModifier(String personalCode) {
-		int segment = Integer.parseInt(personalCode.substring(personalCode.length() - 4));
+		simulateLatency();
+		return getCreditModifierForSegment(Integer.parseInt(personalCode.substring(personalCode.length() - 4)));
+	}
+
+	/**
+	 * Same as {@link #getCreditModifier(String)} for a code that has already been
+	 * decoded, without parsing it again.
+	 *
+	 * @param decodedPersonalCode Valid result of {@link PersonalCodeDecoder#decode}
+	 * @return Segment to which the customer belongs.
+	 */
+	public int getCreditModifier(long decodedPersonalCode) {
+		simulateLatency();
+		return getCreditModifierForSegment(PersonalCodeDecoder.lastFour(decodedPersonalCode));
+	}
 
-		if (segment < 2500) {
+	/**
+	 * Completes immediately, or after the configured latency without blocking a
+	 * thread in the meantime.
+	 */
+	@Override
+	public CompletableFuture<Integer> getCreditModifierAsync(String personalCode, long decodedPersonalCode) {
+		int segment = PersonalCodeDecoder.lastFour(decodedPersonalCode);
+		if (latencyMillis > 0) {
+			return CompletableFuture.supplyAsync(() -> getCreditModifierForSegment(segment),
+					CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS));
+		}
+		return CompletableFuture.completedFuture(getCreditModifierForSegment(segment));
+	}
+
+	/**
+	 * @param decodedPersonalCode Valid result of {@link Country#decode}
+	 * @return 0 for customers with debt, otherwise the credit segment 1...3
+	 */
+	public static int segmentOf(long decodedPersonalCode) {
+		return segmentOfLastFour(PersonalCodeDecoder.lastFour(decodedPersonalCode));
+	}
+
+	private static int segmentOfLastFour(int lastFour) {
+		if (lastFour < 2500) {
 			return 0;
-		} else if (segment < 5000) {
-			return DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER;
-		} else if (segment < 7500) {
-			return DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER;
+		} else if (lastFour < 5000) {
+			return 1;
+		} else if (lastFour < 7500) {
+			return 2;
 		}
 
-		return DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER;
+		return 3;
+	}
+
+	private int getCreditModifierForSegment(int lastFour) {
+		return switch (segmentOfLastFour(lastFour)) {
+		case 0 -> 0;
+		case 1 -> DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER;
+		case 2 -> DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER;
+		default -> DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER;
+		};
+	}
+
+	private void simulateLatency() {
+		if (latencyMillis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(latencyMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
 	}
 }
@@ -1,10 +1,26 @@
 package ee.taltech.inbankbackend.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**
+ * Calculates credit scores with the configured {@link ScoringModel}, by default
+ * the {@link LinearScoringModel}.
+ */
 @Component
 public class CreditScoreCalculator {
 
+	private final ScoringModel scoringModel;
+
+	public CreditScoreCalculator() {
+		this(new LinearScoringModel());
+	}
+
+	@Autowired
+	public CreditScoreCalculator(ScoringModel scoringModel) {
+		this.scoringModel = scoringModel;
+	}
+
 	/**
 	 * Calculates the largest valid loan for the current credit modifier and loan
 	 * period.
@@ -13,8 +29,31 @@ public class CreditScoreCalculator {
 	 */
 
 	public int calculateCreditScore(int creditModifier, int loanPeriod) {
-		// In a real implementation, this would use the retrieved credit data
-		// and potentially a more complex scoring algorithm
-		return creditModifier * loanPeriod;
+		return scoringModel.score(creditModifier, loanPeriod);
+	}
+
+	/**
+	 * Calculates the largest valid loan of every application in a batch, see
+	 * {@link ScoringModel#scoreBatch}. Decisions, batch decisions included,
+	 * use {@link #calculateCreditScore} instead.
+	 */
+	public void calculateCreditScores(int[] creditModifiers, int[] loanPeriods, float[] features, int[] scores,
+			int count) {
+		scoringModel.scoreBatch(creditModifiers, loanPeriods, features, scores, count);
+	}
+
+	/**
+	 * Tells whether the score is proportional to the loan period, i.e.
+	 * {@code calculateCreditScore(m, p) == calculateCreditScore(m, 1) * p}. Linear
+	 * scorers can be solved for the loan period in closed form.
+	 *
+	 * @return true if the score is linear in the loan period
+	 */
+	public boolean isLinear() {
+		return scoringModel.isLinear();
+	}
+
+	public ScoringModel getScoringModel() {
+		return scoringModel;
 	}
 }
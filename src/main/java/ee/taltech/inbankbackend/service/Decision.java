@@ -1,5 +1,6 @@
 package ee.taltech.inbankbackend.service;
 
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -9,15 +10,38 @@ import lombok.Getter;
 @Getter
 @AllArgsConstructor
 public class Decision {
+	// Decisions are immutable, so every rejection can share one instance per reason.
+	private static final Decision[] REJECTIONS = new Decision[RejectionReason.values().length];
+
+	static {
+		for (RejectionReason reason : RejectionReason.values()) {
+			REJECTIONS[reason.ordinal()] = new Decision(null, null, reason.getMessage(), null, reason);
+		}
+	}
+
 	private final Integer loanAmount;
 	private final Integer loanPeriod;
 	private final String errorMessage;
 	private String county;
+	// Null if the loan was approved.
+	private final RejectionReason rejectionReason;
 
 	public Decision(Integer loanAmount, Integer loanPeriod, String errorMessage) {
 		this.loanAmount = loanAmount;
 		this.loanPeriod = loanPeriod;
 		this.errorMessage = errorMessage;
+		this.rejectionReason = null;
 	}
 
+	/**
+	 * @param reason Reason of the rejection
+	 * @return The shared decision for the given rejection reason
+	 */
+	public static Decision rejected(RejectionReason reason) {
+		return REJECTIONS[reason.ordinal()];
+	}
+
+	public boolean isRejected() {
+		return rejectionReason != null;
+	}
 }
@@ -0,0 +1,42 @@
+package ee.taltech.inbankbackend.service;
+
+import java.io.Closeable;
+
+/**
+ * Audit trail of the decisions: every decision with its inputs, its outcome and
+ * the version of the policy it was made with.<br>
+ * <br>
+ * {@link #append} is called on the thread that completes the decision, so it
+ * must neither block nor do I/O.
+ */
+public interface DecisionAuditLog extends Closeable {
+
+	/**
+	 * Audit log that keeps nothing.
+	 */
+	DecisionAuditLog DISABLED = (timestampMillis, policyVersion, personalCode, loanAmount, loanPeriod, country,
+			decision) -> {
+	};
+
+	/**
+	 * Records a decision.
+	 *
+	 * @param timestampMillis Time of the decision
+	 * @param policyVersion   {@link DecisionEngine#getPolicyVersion()} the decision
+	 *                        was made with
+	 * @param personalCode    Requested personal ID code, may be null
+	 * @param loanAmount      Requested loan amount, may be null
+	 * @param loanPeriod      Requested loan period
+	 * @param country         Country of the customer, null if not supported
+	 * @param decision        The decision
+	 */
+	void append(long timestampMillis, int policyVersion, String personalCode, Long loanAmount, int loanPeriod,
+			Country country, Decision decision);
+
+	/**
+	 * Writes out what was appended so far and releases the log.
+	 */
+	@Override
+	default void close() {
+	}
+}
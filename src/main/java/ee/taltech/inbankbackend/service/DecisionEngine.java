@@ -1,12 +1,21 @@
 package ee.taltech.inbankbackend.service;
 
-import java.util.Arrays;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeValidator;
-
 import ee.taltech.inbankbackend.config.DecisionEngineConstants;
 import ee.taltech.inbankbackend.exceptions.InvalidCountryException;
 import ee.taltech.inbankbackend.exceptions.InvalidCustomerAgeException;
@@ -14,6 +23,8 @@ import ee.taltech.inbankbackend.exceptions.InvalidLoanAmountException;
 import ee.taltech.inbankbackend.exceptions.InvalidLoanPeriodException;
 import ee.taltech.inbankbackend.exceptions.InvalidPersonalCodeException;
 import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
+import ee.taltech.inbankbackend.service.DecisionMetrics.Stage;
 
 /**
  * A service class that provides a method for calculating an approved loan
@@ -24,21 +35,128 @@ import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
 @Service
 public class DecisionEngine {
 
-	private final CreditDataService creditDataService;
+	private static final Logger log = LoggerFactory.getLogger(DecisionEngine.class);
+
+	private static final int[] CREDIT_MODIFIERS = { DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER,
+			DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER, DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER };
+
+	private final CreditDataProvider creditDataProvider;
 	private final CreditScoreCalculator creditScoreCalculator;
-	// Used to check for the validity of the presented ID code.
-	private final EstonianPersonalCodeValidator validator = new EstonianPersonalCodeValidator();
+	private final LoanPeriodSolver loanPeriodSolver;
+	private final boolean decisionTableEnabled;
+	private final DecisionMetrics metrics;
+	private final Clock clock;
+	private final DecisionAuditLog auditLog;
+	// Read once per request; replaced as a whole by policy changes and at midnight.
+	private final AtomicReference<PolicySnapshot> policySnapshot = new AtomicReference<>();
+
+	public DecisionEngine(CreditDataProvider creditDataProvider, CreditScoreCalculator creditScoreCalculator) {
+		this(creditDataProvider, creditScoreCalculator, Clock.systemDefaultZone());
+	}
+
+	public DecisionEngine(CreditDataProvider creditDataProvider, CreditScoreCalculator creditScoreCalculator,
+			Clock clock) {
+		this(creditDataProvider, creditScoreCalculator, LoanPeriodSolver.forCalculator(creditScoreCalculator), true,
+				DecisionMetrics.noop(), clock, DecisionAuditLog.DISABLED);
+	}
+
+	public DecisionEngine(CreditDataProvider creditDataProvider, CreditScoreCalculator creditScoreCalculator,
+			LoanPeriodSolver loanPeriodSolver, boolean decisionTableEnabled, DecisionMetrics metrics) {
+		this(creditDataProvider, creditScoreCalculator, loanPeriodSolver, decisionTableEnabled, metrics,
+				Clock.systemDefaultZone(), DecisionAuditLog.DISABLED);
+	}
 
-	public DecisionEngine(CreditDataService creditDataService, CreditScoreCalculator creditScoreCalculator) {
-		this.creditDataService = creditDataService;
+	@Autowired
+	public DecisionEngine(CreditDataProvider creditDataProvider, CreditScoreCalculator creditScoreCalculator,
+			LoanPeriodSolver loanPeriodSolver, @Value("${decision.table.enabled:true}") boolean decisionTableEnabled,
+			DecisionMetrics metrics, Clock clock, DecisionAuditLog auditLog) {
+		this.creditDataProvider = creditDataProvider;
 		this.creditScoreCalculator = creditScoreCalculator;
+		this.loanPeriodSolver = loanPeriodSolver;
+		this.decisionTableEnabled = decisionTableEnabled;
+		this.metrics = metrics;
+		this.clock = clock;
+		this.auditLog = auditLog;
+		policySnapshot.set(snapshot(DecisionPolicy.defaults(), DecisionRules.NONE));
+		logApplied(policySnapshot.get());
+	}
+
+	/**
+	 * Switches to another policy. The solver, the decision table and the age
+	 * limits of the policy are prepared before the switch, which is a single
+	 * reference update: requests never wait for it, and requests in flight finish
+	 * with the policy they started with.
+	 *
+	 * @param policy Policy for all decisions from now on
+	 */
+	public void applyPolicy(DecisionPolicy policy) {
+		PolicySnapshot current = policySnapshot.get();
+		PolicySnapshot next = snapshot(policy, current.rules());
+		// Rules applied meanwhile are kept; the table is rebuilt only in that rare case.
+		while (!policySnapshot.compareAndSet(current, next)) {
+			current = policySnapshot.get();
+			next = snapshot(policy, current.rules());
+		}
+		logApplied(next);
+	}
+
+	/**
+	 * Switches to other decision rules, in the same way as
+	 * {@link #applyPolicy}.
+	 *
+	 * @param rules Rules for all decisions from now on
+	 */
+	public void applyRules(DecisionRules rules) {
+		logApplied(policySnapshot.updateAndGet(
+				current -> current.withRules(rules, creditScoreCalculator.getScoringModel())));
+	}
+
+	/**
+	 * @return The policy new requests are decided with
+	 */
+	public DecisionPolicy getPolicy() {
+		return policySnapshot.get().policy();
+	}
+
+	/**
+	 * @return The rules new requests are decided with
+	 */
+	public DecisionRules getRules() {
+		return policySnapshot.get().rules();
+	}
+
+	/**
+	 * @return Version of the policy, rules and scoring model new requests are
+	 *         decided with, the first 32 bits of {@link #getPolicyDigest()}.
+	 *         Logged with the content it stands for whenever it changes.
+	 */
+	public int getPolicyVersion() {
+		return policySnapshot.get().version();
+	}
+
+	/**
+	 * @return SHA-256 of the policy, rules and scoring model new requests are
+	 *         decided with, in hex. The same content has the same digest in
+	 *         every run.
+	 */
+	public String getPolicyDigest() {
+		return policySnapshot.get().digest();
+	}
+
+	/**
+	 * Precomputes the offers of all credit segments and replaces the current
+	 * decision table in one step. Requests in flight finish with the table they
+	 * started with. Must be called whenever the constants or the scorer change.
+	 */
+	public void rebuildDecisionTable() {
+		applyPolicy(getPolicy());
 	}
 
 	/**
 	 * Calculates the maximum loan amount and period for the customer based on their
-	 * ID code, the requested loan amount and the loan period. The loan period must
-	 * be between 12 and 60 months (inclusive). The loan amount must be between 2000
-	 * and 10000€ months (inclusive).
+	 * ID code, the requested loan amount and the loan period. The loan period and
+	 * the loan amount must lie within the limits of the active
+	 * {@link DecisionPolicy} (inclusive), see {@link #getPolicy()}.
 	 *
 	 * @param personalCode ID code of the customer that made the request.
 	 * @param loanAmount   Requested loan amount
@@ -52,81 +170,369 @@ public class DecisionEngine {
 	 * @throws NoValidLoanException         If there is no valid loan found for the
 	 *                                      given ID code, loan amount and loan
 	 *                                      period
-	 * @throws InvalidCustomerAgeException
-	 * @throws InvalidCountryException
+	 * @throws InvalidCustomerAgeException If the customer's age is outside the
+	 *                                      allowed range for the loan period
+	 * @throws InvalidCountryException      If loans are not issued in the country
 	 */
 	public Decision calculateApprovedLoan(String personalCode, Long loanAmount, int loanPeriod, String country)
 			throws InvalidPersonalCodeException, InvalidLoanAmountException, InvalidLoanPeriodException,
 			NoValidLoanException, InvalidCountryException, InvalidCustomerAgeException {
-		try {
-			verifyInputs(personalCode, loanAmount, loanPeriod, country);
-		} catch (Exception e) {
-			return new Decision(null, null, null, e.getMessage());
+		Decision decision = evaluate(personalCode, loanAmount, loanPeriod, country);
+		if (decision.isRejected()) {
+			decision.getRejectionReason().throwException();
 		}
-		int creditModifier = 0;
-		int outputLoanAmount;
+		return decision;
+	}
 
-		creditModifier = creditDataService.getCreditModifier(personalCode);
+	/**
+	 * Asynchronous variant of {@link #calculateApprovedLoan}. Rejections complete
+	 * the future exceptionally with the exceptions listed there.
+	 *
+	 * @param personalCode ID code of the customer that made the request.
+	 * @param loanAmount   Requested loan amount
+	 * @param loanPeriod   Requested loan period
+	 * @param country      Country of the customer
+	 * @return Future of the approved Decision
+	 */
+	public CompletableFuture<Decision> calculateApprovedLoanAsync(String personalCode, Long loanAmount, int loanPeriod,
+			String country) {
+		return evaluateAsync(personalCode, loanAmount, loanPeriod, country)
+				.thenCompose(decision -> decision.isRejected()
+						? CompletableFuture.failedFuture(decision.getRejectionReason().getException())
+						: CompletableFuture.completedFuture(decision));
+	}
 
+	/**
+	 * Same as {@link #calculateApprovedLoan}, but reports rejections in the
+	 * returned Decision instead of throwing. Rejected decisions are shared
+	 * instances, so a rejection costs no more than an approval. Blocks while the
+	 * credit data is retrieved, see {@link #evaluateAsync}.
+	 *
+	 * @param personalCode ID code of the customer that made the request.
+	 * @param loanAmount   Requested loan amount
+	 * @param loanPeriod   Requested loan period
+	 * @param country      Country of the customer
+	 * @return A Decision with the approved loan amount and period, or with the
+	 *         rejection reason and its error message
+	 */
+	public Decision evaluate(String personalCode, Long loanAmount, int loanPeriod, String country) {
+		return evaluateAsync(personalCode, loanAmount, loanPeriod, country).join();
+	}
+
+	/**
+	 * Same as {@link #evaluate}, without waiting for the credit data. Inputs are
+	 * validated on the calling thread; the decision is completed by whichever
+	 * thread delivers the credit modifier, so no thread is held while the credit
+	 * data provider is busy.
+	 *
+	 * @param personalCode ID code of the customer that made the request.
+	 * @param loanAmount   Requested loan amount
+	 * @param loanPeriod   Requested loan period
+	 * @param country      Country of the customer
+	 * @return Future of the Decision. Completes exceptionally only if the credit
+	 *         data cannot be retrieved.
+	 */
+	public CompletableFuture<Decision> evaluateAsync(String personalCode, Long loanAmount, int loanPeriod,
+			String country) {
+		return evaluateAsync(personalCode, loanAmount, loanPeriod, country, null);
+	}
+
+	/**
+	 * Same as {@link #evaluateAsync}, and records how the decision is reached in
+	 * the given trace. The decision table is skipped, so the trace shows the
+	 * scorer calls it was computed from; the offer is the same.
+	 *
+	 * @param personalCode ID code of the customer that made the request.
+	 * @param loanAmount   Requested loan amount
+	 * @param loanPeriod   Requested loan period
+	 * @param country      Country of the customer
+	 * @param trace        New trace, complete once the returned future is
+	 * @return Future of the Decision. Completes exceptionally only if the credit
+	 *         data cannot be retrieved.
+	 */
+	public CompletableFuture<Decision> explainAsync(String personalCode, Long loanAmount, int loanPeriod,
+			String country, DecisionTrace trace) {
+		return evaluateAsync(personalCode, loanAmount, loanPeriod, country, trace);
+	}
+
+	// The trace is null unless the decision is explained.
+	private CompletableFuture<Decision> evaluateAsync(String personalCode, Long loanAmount, int loanPeriod,
+			String country, DecisionTrace trace) {
+		long start = System.nanoTime();
+		PolicySnapshot snapshot = currentPolicy();
+		// Resolved and decoded once, shared by the code, age and credit segment checks.
+		Country customerCountry = Country.fromName(country);
+		long decodedPersonalCode = customerCountry != null ? customerCountry.decode(personalCode)
+				: PersonalCodeDecoder.INVALID;
+		long decoded = System.nanoTime();
+		metrics.recordStage(Stage.DECODE, decoded - start);
+
+		RejectionReason rejection = verifyInputs(snapshot, decodedPersonalCode, loanAmount, loanPeriod,
+				customerCountry);
+		if (trace != null) {
+			traceChecks(trace, snapshot, customerCountry, country, decodedPersonalCode, loanAmount, loanPeriod,
+					rejection);
+		}
+		int verdict = DecisionRules.NO_CAP;
+		if (rejection == null) {
+			verdict = snapshot.rules().evaluate(customerCountry, loanAmount, loanPeriod,
+					snapshot.ageLimits().age(decodedPersonalCode), personalCode);
+			if (DecisionRules.isRejection(verdict)) {
+				rejection = DecisionRules.rejection(verdict);
+			}
+			if (trace != null) {
+				trace.check("rules", rejection == null, rejection != null ? "Rejected: " + rejection
+						: verdict == DecisionRules.NO_CAP ? "No rule matched" : "Loan amount capped at " + verdict);
+			}
+		}
+		int maximumLoanAmount = verdict;
+		long validated = System.nanoTime();
+		metrics.recordStage(Stage.VALIDATION, validated - decoded);
+		metrics.countCountry(customerCountry);
+		if (rejection != null) {
+			Decision decision = Decision.rejected(rejection);
+			metrics.countOutcome(decision);
+			if (trace == null) {
+				auditLog.append(clock.millis(), snapshot.version(), personalCode, loanAmount, loanPeriod,
+						customerCountry, decision);
+			}
+			return CompletableFuture.completedFuture(decision);
+		}
+
+		return creditDataProvider.getCreditModifierAsync(personalCode, decodedPersonalCode)
+				.handle((creditModifier, failure) -> {
+					long lookedUp = System.nanoTime();
+					metrics.recordStage(Stage.CREDIT_LOOKUP, lookedUp - validated);
+					if (failure != null) {
+						metrics.countError();
+						throw failure instanceof CompletionException ? (CompletionException) failure
+								: new CompletionException(failure);
+					}
+					metrics.countSegment(creditModifier);
+					if (trace != null) {
+						trace.creditModifier(creditModifier);
+					}
+
+					Decision decision = decide(snapshot, creditModifier, loanPeriod, maximumLoanAmount, trace);
+					metrics.recordStage(Stage.SCORING, System.nanoTime() - lookedUp);
+					metrics.countOutcome(decision);
+					// Explanations are not decisions of their own.
+					if (trace == null) {
+						auditLog.append(clock.millis(), snapshot.version(), personalCode, loanAmount, loanPeriod,
+								customerCountry, decision);
+					}
+					return decision;
+				});
+	}
+
+	private Decision decide(PolicySnapshot snapshot, int creditModifier, int loanPeriod, int maximumLoanAmount,
+			DecisionTrace trace) {
 		if (creditModifier == 0) {
-			throw new NoValidLoanException("No valid loan found!");
+			if (trace != null) {
+				trace.periodSearch("No loan for customers with debt");
+			}
+			return Decision.rejected(RejectionReason.NO_VALID_LOAN);
+		}
+
+		DecisionTable table = snapshot.decisionTable();
+		int offer = table != null && trace == null ? table.lookup(creditModifier, loanPeriod)
+				: DecisionTable.NOT_TABULATED;
+		if (offer == DecisionTable.NOT_TABULATED) {
+			// Extend the period until the score reaches the minimum loan amount
+			offer = trace == null
+					? DecisionTable.solve(creditScoreCalculator, snapshot.loanPeriodSolver(),
+							snapshot.policy().getMaximumLoanAmount(), creditModifier, loanPeriod)
+					: solveTraced(snapshot, creditModifier, loanPeriod, trace);
 		}
 
-		while (creditScoreCalculator.calculateCreditScore(creditModifier,
-				loanPeriod) < DecisionEngineConstants.MINIMUM_LOAN_AMOUNT) {
-			loanPeriod++;
+		if (offer == DecisionTable.NO_LOAN) {
+			return Decision.rejected(RejectionReason.NO_VALID_LOAN);
 		}
 
-		if (loanPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD) {
-			outputLoanAmount = Math.min(DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT,
-					creditScoreCalculator.calculateCreditScore(creditModifier, loanPeriod));
+		int loanAmount = DecisionTable.loanAmount(offer);
+		if (loanAmount > maximumLoanAmount) {
+			// Capped by a rule
+			if (maximumLoanAmount < snapshot.policy().getMinimumLoanAmount()) {
+				if (trace != null) {
+					trace.periodSearch("Rule cap " + maximumLoanAmount + " is below the minimum loan amount");
+				}
+				return Decision.rejected(RejectionReason.NO_VALID_LOAN);
+			}
+			loanAmount = maximumLoanAmount;
+			if (trace != null) {
+				trace.periodSearch("Loan amount capped by a rule at " + maximumLoanAmount);
+			}
+		}
+		return new Decision(loanAmount, DecisionTable.loanPeriod(offer), null);
+	}
+
+	private int solveTraced(PolicySnapshot snapshot, int creditModifier, int loanPeriod, DecisionTrace trace) {
+		DecisionPolicy policy = snapshot.policy();
+		CreditScoreCalculator tracingCalculator = trace.tracing(creditScoreCalculator);
+		LoanPeriodSolver solver = snapshot.loanPeriodSolver().withCalculator(tracingCalculator);
+		trace.periodSearch("Searching the shortest period from " + loanPeriod + " to "
+				+ policy.getMaximumLoanPeriod() + " months with a score of at least "
+				+ policy.getMinimumLoanAmount() + " (" + solver.getClass().getSimpleName() + ")");
+		int offer = DecisionTable.solve(tracingCalculator, solver, policy.getMaximumLoanAmount(), creditModifier,
+				loanPeriod);
+		if (offer == DecisionTable.NO_LOAN) {
+			trace.periodSearch("No period reaches the minimum loan amount");
 		} else {
-			throw new NoValidLoanException("No valid loan found!");
+			int approvedPeriod = DecisionTable.loanPeriod(offer);
+			trace.periodSearch(approvedPeriod == loanPeriod ? "Requested period qualifies"
+					: "Period extended to " + approvedPeriod + " months");
+			trace.periodSearch("Offer " + DecisionTable.loanAmount(offer) + " for " + approvedPeriod
+					+ " months, at most the maximum loan amount " + policy.getMaximumLoanAmount());
 		}
+		return offer;
+	}
 
-		return new Decision(outputLoanAmount, loanPeriod, null);
+	/**
+	 * Records the checks of {@link #verifyInputs} in the same order, up to the
+	 * first failed one.
+	 */
+	private static void traceChecks(DecisionTrace trace, PolicySnapshot snapshot, Country country,
+			String countryName, long decodedPersonalCode, Long loanAmount, int loanPeriod,
+			RejectionReason rejection) {
+		DecisionPolicy policy = snapshot.policy();
+		if (!trace.check("country", rejection != RejectionReason.INVALID_COUNTRY,
+				country == null ? countryName + " is not supported"
+						: country.getName() + (policy.isAllowed(country) ? " is" : " is not") + " allowed")) {
+			return;
+		}
+		boolean validCode = PersonalCodeDecoder.isValid(decodedPersonalCode);
+		String birthDate = validCode ? LocalDate.of(PersonalCodeDecoder.birthYear(decodedPersonalCode),
+				PersonalCodeDecoder.birthMonth(decodedPersonalCode), PersonalCodeDecoder.birthDay(decodedPersonalCode))
+				.toString() : null;
+		if (!trace.check("personalCode", validCode,
+				validCode ? "Born " + birthDate : "Not a valid personal code for " + country.getName())) {
+			return;
+		}
+		if (!trace.check("age", rejection != RejectionReason.INVALID_CUSTOMER_AGE,
+				snapshot.ageLimits().age(decodedPersonalCode) + " years, at least " + policy.getMinimumAge()
+						+ " and below " + policy.getMaximumAge() + " at the end of the loan")) {
+			return;
+		}
+		if (!trace.check("loanAmount", rejection != RejectionReason.INVALID_LOAN_AMOUNT, loanAmount + ", allowed "
+				+ policy.getMinimumLoanAmount() + "..." + policy.getMaximumLoanAmount())) {
+			return;
+		}
+		trace.check("loanPeriod", rejection != RejectionReason.INVALID_LOAN_PERIOD,
+				loanPeriod + ", allowed " + policy.getMinimumLoanPeriod() + "..." + policy.getMaximumLoanPeriod());
 	}
 
 	/**
-	 * Verify that all inputs are valid according to business rules. If inputs are
-	 * invalid, then throws corresponding exceptions.
+	 * Verify that all inputs are valid according to the current policy.
 	 *
-	 * @param personalCode Provided personal ID code
-	 * @param loanAmount   Requested loan amount
-	 * @param loanPeriod   Requested loan period
-	 * @throws InvalidPersonalCodeException If the provided personal ID code is
-	 *                                      invalid
-	 * @throws InvalidLoanAmountException   If the requested loan amount is invalid
-	 * @throws InvalidLoanPeriodException   If the requested loan period is invalid
+	 * @param decodedPersonalCode Provided personal ID code, decoded
+	 * @param loanAmount          Requested loan amount
+	 * @param loanPeriod          Requested loan period
+	 * @param country             Country of the customer, null if not supported
+	 * @return The first rule the inputs break, or null if they are valid
 	 */
-	private void verifyInputs(String personalCode, Long loanAmount, int loanPeriod, String country)
-			throws InvalidCountryException, InvalidPersonalCodeException, InvalidCustomerAgeException,
-			InvalidLoanAmountException, InvalidLoanPeriodException {
+	RejectionReason verifyInputs(long decodedPersonalCode, Long loanAmount, int loanPeriod, Country country) {
+		return verifyInputs(currentPolicy(), decodedPersonalCode, loanAmount, loanPeriod, country);
+	}
 
-		// Validate that country is Baltic region country
-		if (!isBalticCounty(country)) {
-			throw new InvalidCountryException("Invalid Country!");
+	private RejectionReason verifyInputs(PolicySnapshot snapshot, long decodedPersonalCode, Long loanAmount,
+			int loanPeriod, Country country) {
+		DecisionPolicy policy = snapshot.policy();
+
+		// Validate that loans are issued in the country
+		if (country == null || !policy.isAllowed(country)) {
+			return RejectionReason.INVALID_COUNTRY;
 		}
-		if (!validator.isValid(personalCode)) {
-			throw new InvalidPersonalCodeException("Invalid personal ID code!");
+		if (!PersonalCodeDecoder.isValid(decodedPersonalCode)) {
+			return RejectionReason.INVALID_PERSONAL_CODE;
 		}
 		// Validation of right customer age
-		if (!AgeVerificator.isValidAge(personalCode, loanPeriod)) {
-			throw new InvalidCustomerAgeException("Invalid age for loan!");
+		if (!snapshot.ageLimits().isValidAge(decodedPersonalCode, loanPeriod)) {
+			return RejectionReason.INVALID_CUSTOMER_AGE;
 		}
-		if (!(DecisionEngineConstants.MINIMUM_LOAN_AMOUNT <= loanAmount)
-				|| !(loanAmount <= DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT)) {
-			throw new InvalidLoanAmountException("Invalid loan amount!");
+		if (!(policy.getMinimumLoanAmount() <= loanAmount) || !(loanAmount <= policy.getMaximumLoanAmount())) {
+			return RejectionReason.INVALID_LOAN_AMOUNT;
 		}
-		if (!(DecisionEngineConstants.MINIMUM_LOAN_PERIOD <= loanPeriod)
-				|| !(loanPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD)) {
-			throw new InvalidLoanPeriodException("Invalid loan period!");
+		if (!(policy.getMinimumLoanPeriod() <= loanPeriod) || !(loanPeriod <= policy.getMaximumLoanPeriod())) {
+			return RejectionReason.INVALID_LOAN_PERIOD;
 		}
+		return null;
+	}
+
+	/**
+	 * @return The current policy snapshot, with age limits for today
+	 */
+	private PolicySnapshot currentPolicy() {
+		PolicySnapshot snapshot = policySnapshot.get();
+		if (snapshot.ageLimits().isExpired(clock.millis())) {
+			PolicySnapshot rolledOver = snapshot.withAgeLimits(ageLimits(snapshot.policy()));
+			// Never overwrite a snapshot replaced meanwhile; it is rolled over by a later request if needed.
+			snapshot = policySnapshot.compareAndSet(snapshot, rolledOver) ? rolledOver : policySnapshot.get();
+		}
+		return snapshot;
+	}
+
+	private PolicySnapshot snapshot(DecisionPolicy policy, DecisionRules rules) {
+		LoanPeriodSolver policySolver = loanPeriodSolver.forPolicy(policy);
+		DecisionTable decisionTable = decisionTableEnabled
+				? DecisionTable.build(policy, CREDIT_MODIFIERS, creditScoreCalculator, policySolver)
+				: null;
+		return new PolicySnapshot(policy, policySolver, decisionTable, ageLimits(policy), rules,
+				PolicySnapshot.digest(policy, rules, creditScoreCalculator.getScoringModel()));
+	}
 
+	/**
+	 * Logs a version with its content, so audit records can be traced back to
+	 * what decided them.
+	 */
+	private void logApplied(PolicySnapshot snapshot) {
+		log.info("Deciding with policy version {} (SHA-256 {}): policy {}, rules {}, scoring model {}",
+				snapshot.version(), snapshot.digest(), snapshot.policy(), snapshot.rules(),
+				creditScoreCalculator.getScoringModel());
+	}
+
+	private AgeLimits ageLimits(DecisionPolicy policy) {
+		return AgeLimits.forToday(clock, policy.getMinimumAge(), policy.getMaximumAge());
 	}
 
-	private boolean isBalticCounty(String country) {
-		List<String> balticCounties = Arrays.asList(DecisionEngineConstants.BALTIC_COUNTRIES);
-		return balticCounties.contains(country);
+	/**
+	 * Everything a decision needs from the policy and the rules, replaced as a
+	 * unit.
+	 *
+	 * @param decisionTable Null when decisions are solved per request instead of
+	 *                      looked up
+	 * @param digest        SHA-256 of the policy, the rules and the scoring model,
+	 *                      in hex
+	 * @param version       First 32 bits of the digest, recorded in the audit log
+	 */
+	private record PolicySnapshot(DecisionPolicy policy, LoanPeriodSolver loanPeriodSolver,
+			DecisionTable decisionTable, AgeLimits ageLimits, DecisionRules rules, String digest, int version) {
+
+		PolicySnapshot(DecisionPolicy policy, LoanPeriodSolver loanPeriodSolver, DecisionTable decisionTable,
+				AgeLimits ageLimits, DecisionRules rules, String digest) {
+			this(policy, loanPeriodSolver, decisionTable, ageLimits, rules, digest,
+					HexFormat.fromHexDigits(digest, 0, 8));
+		}
+
+		PolicySnapshot withAgeLimits(AgeLimits ageLimits) {
+			return new PolicySnapshot(policy, loanPeriodSolver, decisionTable, ageLimits, rules, digest, version);
+		}
+
+		PolicySnapshot withRules(DecisionRules rules, ScoringModel scoringModel) {
+			return new PolicySnapshot(policy, loanPeriodSolver, decisionTable, ageLimits, rules,
+					digest(policy, rules, scoringModel));
+		}
+
+		/**
+		 * Digests the same text that is logged, one line per part.
+		 */
+		static String digest(DecisionPolicy policy, DecisionRules rules, ScoringModel scoringModel) {
+			String content = policy + "\n" + rules + "\n" + scoringModel;
+			try {
+				return HexFormat.of().formatHex(
+						MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is not available", e);
+			}
+		}
 	}
 }
@@ -0,0 +1,139 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Timers of the decision stages and counters of the decision outcomes.<br>
+ * <br>
+ * Every meter is registered up front and kept in an array indexed by stage,
+ * outcome, segment or country, so recording is an array access plus the meter
+ * update. No tags, strings or meter lookups are created per decision.
+ * <ul>
+ * <li>{@code decision.stage} timer, tag {@code stage}: decode, validation,
+ * credit-lookup, scoring, serialization. Published as percentile
+ * histograms.</li>
+ * <li>{@code decision.outcome} counter, tag {@code outcome}: approved, the
+ * name of the rejection exception, or error.</li>
+ * <li>{@code decision.segment} counter, tag {@code segment}: debt, 1, 2, 3 or
+ * other.</li>
+ * <li>{@code decision.country} counter, tag {@code country}: each
+ * {@link Country} or other.</li>
+ * </ul>
+ */
+@Component
+public class DecisionMetrics {
+
+	public enum Stage {
+		DECODE("decode"),
+		VALIDATION("validation"),
+		CREDIT_LOOKUP("credit-lookup"),
+		SCORING("scoring"),
+		SERIALIZATION("serialization");
+
+		private final String tag;
+
+		Stage(String tag) {
+			this.tag = tag;
+		}
+	}
+
+	private static final int[] SEGMENT_CREDIT_MODIFIERS = { 0, DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER,
+			DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER, DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER };
+	private static final String[] SEGMENT_TAGS = { "debt", "1", "2", "3" };
+
+	private final Timer[] stageTimers = new Timer[Stage.values().length];
+	private final Counter[] rejections = new Counter[RejectionReason.values().length];
+	private final Counter approvals;
+	private final Counter errors;
+	// One slot per known value plus a last slot for anything else.
+	private final Counter[] segments = new Counter[SEGMENT_TAGS.length + 1];
+	private final Counter[] countries = new Counter[Country.values().length + 1];
+
+	public DecisionMetrics(MeterRegistry meterRegistry) {
+		for (Stage stage : Stage.values()) {
+			stageTimers[stage.ordinal()] = Timer.builder("decision.stage")
+					.tag("stage", stage.tag)
+					.description("Time spent in one stage of a loan decision")
+					.publishPercentileHistogram()
+					.register(meterRegistry);
+		}
+		for (RejectionReason reason : RejectionReason.values()) {
+			rejections[reason.ordinal()] = outcomeCounter(meterRegistry,
+					reason.getException().getClass().getSimpleName());
+		}
+		approvals = outcomeCounter(meterRegistry, "approved");
+		errors = outcomeCounter(meterRegistry, "error");
+		for (int i = 0; i < SEGMENT_TAGS.length; i++) {
+			segments[i] = counter(meterRegistry, "decision.segment", "segment", SEGMENT_TAGS[i]);
+		}
+		segments[SEGMENT_TAGS.length] = counter(meterRegistry, "decision.segment", "segment", "other");
+		for (Country country : Country.values()) {
+			countries[country.ordinal()] = counter(meterRegistry, "decision.country", "country", country.getName());
+		}
+		countries[Country.values().length] = counter(meterRegistry, "decision.country", "country", "other");
+	}
+
+	/**
+	 * @return Metrics that are recorded nowhere, for engines created outside of
+	 *         Spring
+	 */
+	public static DecisionMetrics noop() {
+		return new DecisionMetrics(new CompositeMeterRegistry());
+	}
+
+	public void recordStage(Stage stage, long nanos) {
+		stageTimers[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Counts the outcome of a finished decision.
+	 *
+	 * @param decision Approved or rejected decision
+	 */
+	public void countOutcome(Decision decision) {
+		if (decision.isRejected()) {
+			rejections[decision.getRejectionReason().ordinal()].increment();
+		} else {
+			approvals.increment();
+		}
+	}
+
+	/**
+	 * Counts a decision that failed with an unexpected error.
+	 */
+	public void countError() {
+		errors.increment();
+	}
+
+	public void countSegment(int creditModifier) {
+		int index = 0;
+		while (index < SEGMENT_CREDIT_MODIFIERS.length && SEGMENT_CREDIT_MODIFIERS[index] != creditModifier) {
+			index++;
+		}
+		segments[index].increment();
+	}
+
+	/**
+	 * @param country Resolved country of the request, null if not supported
+	 */
+	public void countCountry(Country country) {
+		countries[country != null ? country.ordinal() : countries.length - 1].increment();
+	}
+
+	private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+		return counter(meterRegistry, "decision.outcome", "outcome", outcome);
+	}
+
+	private static Counter counter(MeterRegistry meterRegistry, String name, String tag, String value) {
+		return Counter.builder(name).tag(tag, value).register(meterRegistry);
+	}
+}
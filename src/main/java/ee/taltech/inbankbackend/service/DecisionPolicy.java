@@ -0,0 +1,223 @@
+package ee.taltech.inbankbackend.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+/**
+ * Business rules of a loan decision: the allowed loan amounts and periods, the
+ * age limits of the customer and the countries loans are issued in.<br>
+ * <br>
+ * A policy is immutable. A changed policy is a new instance, which the
+ * {@link DecisionEngine} switches to in one step. Policies are read from
+ * properties files; keys that are left out keep their default from
+ * {@link DecisionEngineConstants}:
+ *
+ * <pre>
+ * loan-amount.min=2000
+ * loan-amount.max=10000
+ * loan-period.min=12
+ * loan-period.max=60
+ * age.min=18
+ * age.max=75
+ * countries=Estonia,Latvia,Lithuania
+ * </pre>
+ */
+public final class DecisionPolicy {
+
+	private static final Set<String> KEYS = Set.of("loan-amount.min", "loan-amount.max", "loan-period.min",
+			"loan-period.max", "age.min", "age.max", "countries");
+	// Decision tables store the loan period in eight bits.
+	private static final int PERIOD_LIMIT = 255;
+
+	private static final DecisionPolicy DEFAULTS = new DecisionPolicy(DecisionEngineConstants.MINIMUM_LOAN_AMOUNT,
+			DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT, DecisionEngineConstants.MINIMUM_LOAN_PERIOD,
+			DecisionEngineConstants.MAXIMUM_LOAN_PERIOD, DecisionEngineConstants.MINIMUM_AGE_YEARS,
+			DecisionEngineConstants.MAXIMUM_AGE_YEARS, EnumSet.allOf(Country.class));
+
+	private final int minimumLoanAmount;
+	private final int maximumLoanAmount;
+	private final int minimumLoanPeriod;
+	private final int maximumLoanPeriod;
+	private final int minimumAge;
+	private final int maximumAge;
+	// Indexed by Country ordinal.
+	private final boolean[] countries = new boolean[Country.values().length];
+
+	public DecisionPolicy(int minimumLoanAmount, int maximumLoanAmount, int minimumLoanPeriod, int maximumLoanPeriod,
+			int minimumAge, int maximumAge, Set<Country> countries) {
+		if (minimumLoanAmount <= 0 || minimumLoanAmount > maximumLoanAmount) {
+			throw new IllegalArgumentException(
+					"Invalid loan amount range: " + minimumLoanAmount + "..." + maximumLoanAmount);
+		}
+		if (minimumLoanPeriod <= 0 || minimumLoanPeriod > maximumLoanPeriod || maximumLoanPeriod > PERIOD_LIMIT) {
+			throw new IllegalArgumentException(
+					"Invalid loan period range: " + minimumLoanPeriod + "..." + maximumLoanPeriod);
+		}
+		if (minimumAge < 0 || minimumAge >= maximumAge) {
+			throw new IllegalArgumentException("Invalid age range: " + minimumAge + "..." + maximumAge);
+		}
+		this.minimumLoanAmount = minimumLoanAmount;
+		this.maximumLoanAmount = maximumLoanAmount;
+		this.minimumLoanPeriod = minimumLoanPeriod;
+		this.maximumLoanPeriod = maximumLoanPeriod;
+		this.minimumAge = minimumAge;
+		this.maximumAge = maximumAge;
+		for (Country country : countries) {
+			this.countries[country.ordinal()] = true;
+		}
+	}
+
+	/**
+	 * @return The policy defined by {@link DecisionEngineConstants}
+	 */
+	public static DecisionPolicy defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * Reads a policy file. An empty file is rejected rather than read as the
+	 * default policy, since it is usually one that is being rewritten.
+	 *
+	 * @param file Properties file in UTF-8
+	 * @return The policy in the file
+	 * @throws IOException              If the file cannot be read
+	 * @throws IllegalArgumentException If the file is empty, contains an unknown
+	 *                                  key or an invalid value
+	 */
+	public static DecisionPolicy load(Path file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		if (properties.isEmpty()) {
+			throw new IllegalArgumentException("Empty policy file: " + file);
+		}
+		return fromProperties(properties);
+	}
+
+	/**
+	 * @param properties Policy keys and values, see the class description
+	 * @return The policy, with defaults for the missing keys
+	 * @throws IllegalArgumentException If a key is unknown or a value invalid
+	 */
+	public static DecisionPolicy fromProperties(Properties properties) {
+		for (String key : properties.stringPropertyNames()) {
+			if (!KEYS.contains(key)) {
+				throw new IllegalArgumentException("Unknown policy key: " + key);
+			}
+		}
+		return new DecisionPolicy(intValue(properties, "loan-amount.min", DEFAULTS.minimumLoanAmount),
+				intValue(properties, "loan-amount.max", DEFAULTS.maximumLoanAmount),
+				intValue(properties, "loan-period.min", DEFAULTS.minimumLoanPeriod),
+				intValue(properties, "loan-period.max", DEFAULTS.maximumLoanPeriod),
+				intValue(properties, "age.min", DEFAULTS.minimumAge),
+				intValue(properties, "age.max", DEFAULTS.maximumAge), countries(properties));
+	}
+
+	public int getMinimumLoanAmount() {
+		return minimumLoanAmount;
+	}
+
+	public int getMaximumLoanAmount() {
+		return maximumLoanAmount;
+	}
+
+	public int getMinimumLoanPeriod() {
+		return minimumLoanPeriod;
+	}
+
+	public int getMaximumLoanPeriod() {
+		return maximumLoanPeriod;
+	}
+
+	public int getMinimumAge() {
+		return minimumAge;
+	}
+
+	public int getMaximumAge() {
+		return maximumAge;
+	}
+
+	/**
+	 * @param country Resolved country, not null
+	 * @return true if loans are issued in the country
+	 */
+	public boolean isAllowed(Country country) {
+		return countries[country.ordinal()];
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof DecisionPolicy other && minimumLoanAmount == other.minimumLoanAmount
+				&& maximumLoanAmount == other.maximumLoanAmount && minimumLoanPeriod == other.minimumLoanPeriod
+				&& maximumLoanPeriod == other.maximumLoanPeriod && minimumAge == other.minimumAge
+				&& maximumAge == other.maximumAge && Arrays.equals(countries, other.countries);
+	}
+
+	/**
+	 * Depends only on the limits and countries, so the same policy has the same
+	 * hash code in every run.
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(minimumLoanAmount, maximumLoanAmount, minimumLoanPeriod, maximumLoanPeriod, minimumAge,
+				maximumAge, Arrays.hashCode(countries));
+	}
+
+	/**
+	 * @return The policy in the properties format, with every key
+	 */
+	@Override
+	public String toString() {
+		StringBuilder countryNames = new StringBuilder();
+		for (Country country : Country.values()) {
+			if (isAllowed(country)) {
+				countryNames.append(countryNames.isEmpty() ? "" : ",").append(country.getName());
+			}
+		}
+		return "loan-amount.min=" + minimumLoanAmount + ", loan-amount.max=" + maximumLoanAmount
+				+ ", loan-period.min=" + minimumLoanPeriod + ", loan-period.max=" + maximumLoanPeriod + ", age.min="
+				+ minimumAge + ", age.max=" + maximumAge + ", countries=" + countryNames;
+	}
+
+	private static int intValue(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + key + ": " + value, e);
+		}
+	}
+
+	private static Set<Country> countries(Properties properties) {
+		String value = properties.getProperty("countries");
+		if (value == null) {
+			return EnumSet.allOf(Country.class);
+		}
+		Set<Country> countries = EnumSet.noneOf(Country.class);
+		for (String name : value.split(",")) {
+			if (name.isBlank()) {
+				continue;
+			}
+			Country country = Country.fromName(name.trim());
+			if (country == null) {
+				throw new IllegalArgumentException("Unknown country: " + name.trim());
+			}
+			countries.add(country);
+		}
+		return countries;
+	}
+}
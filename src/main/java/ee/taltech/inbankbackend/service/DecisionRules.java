@@ -0,0 +1,339 @@
+package ee.taltech.inbankbackend.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
+
+/**
+ * Additional decision rules, declared in JSON and compiled into a flat plan of
+ * {@code int} instructions when they are loaded.<br>
+ * <br>
+ * Rules are checked in order once the inputs passed the policy checks. The
+ * first matching {@code reject} rule rejects the application; every matching
+ * {@code maxLoanAmount} rule caps the approved amount. Conditions of a rule are
+ * combined with AND:
+ *
+ * <pre>
+ * [
+ *   { "name": "latvia-cap", "if": { "country": "Latvia" }, "then": { "maxLoanAmount": 8000 } },
+ *   { "name": "young-long-loans", "if": { "age": { "lt": 25 }, "loanPeriod": { "gt": 36 } },
+ *     "then": { "reject": "INVALID_LOAN_PERIOD" } },
+ *   { "name": "blocked", "if": { "personalCode": { "in": [ "38411266610" ] } },
+ *     "then": { "reject": "NO_VALID_LOAN" } }
+ * ]
+ * </pre>
+ *
+ * Fields are {@code country}, {@code loanAmount}, {@code loanPeriod},
+ * {@code age} (in completed years) and {@code personalCode}. A plain value
+ * means {@code eq}; the operators are {@code eq}, {@code ne}, {@code lt},
+ * {@code le}, {@code gt} and {@code ge} for numbers, and {@code eq}, {@code ne},
+ * {@code in} and {@code notIn} for countries and personal codes.<br>
+ * <br>
+ * Every condition is one instruction of four {@code int}s: operation, field,
+ * operand and the index of the next rule, which is where a failing condition
+ * jumps to. Evaluation is a single loop over the array without allocation; sets
+ * of countries are bit masks and sets of personal codes are hash sets.
+ */
+public final class DecisionRules {
+
+	/**
+	 * Result of {@link #evaluate} when no rule caps the loan amount.
+	 */
+	public static final int NO_CAP = Integer.MAX_VALUE;
+
+	/**
+	 * Rules that never match.
+	 */
+	public static final DecisionRules NONE = new DecisionRules(new int[0], List.of(), 0, "[]");
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final RejectionReason[] REJECTION_REASONS = RejectionReason.values();
+
+	private static final int WIDTH = 4;
+
+	private static final int EQ = 0;
+	private static final int NE = 1;
+	private static final int LT = 2;
+	private static final int LE = 3;
+	private static final int GT = 4;
+	private static final int GE = 5;
+	private static final int IN_MASK = 6;
+	private static final int NOT_IN_MASK = 7;
+	private static final int IN_SET = 8;
+	private static final int NOT_IN_SET = 9;
+	private static final int REJECT = 10;
+	private static final int CAP = 11;
+
+	private static final int COUNTRY = 0;
+	private static final int LOAN_AMOUNT = 1;
+	private static final int LOAN_PERIOD = 2;
+	private static final int AGE = 3;
+	private static final int PERSONAL_CODE = 4;
+
+	private static final Map<String, Integer> FIELDS = Map.of("country", COUNTRY, "loanAmount", LOAN_AMOUNT,
+			"loanPeriod", LOAN_PERIOD, "age", AGE, "personalCode", PERSONAL_CODE);
+	private static final Map<String, Integer> NUMBER_OPERATORS = Map.of("eq", EQ, "ne", NE, "lt", LT, "le", LE,
+			"gt", GT, "ge", GE);
+
+	private final int[] plan;
+	private final List<Set<String>> personalCodeSets;
+	private final int ruleCount;
+	// The rules as compact JSON
+	private final String source;
+
+	private DecisionRules(int[] plan, List<Set<String>> personalCodeSets, int ruleCount, String source) {
+		this.plan = plan;
+		this.personalCodeSets = personalCodeSets;
+		this.ruleCount = ruleCount;
+		this.source = source;
+	}
+
+	/**
+	 * @param file JSON rule file
+	 * @return The compiled rules
+	 * @throws IOException              If the file cannot be read
+	 * @throws IllegalArgumentException If a rule is invalid
+	 */
+	public static DecisionRules load(Path file) throws IOException {
+		return compile(OBJECT_MAPPER.readTree(Files.readAllBytes(file)));
+	}
+
+	/**
+	 * @param json JSON array of rules
+	 * @return The compiled rules
+	 * @throws IllegalArgumentException If the JSON or a rule is invalid
+	 */
+	public static DecisionRules parse(String json) {
+		try {
+			return compile(OBJECT_MAPPER.readTree(json));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid rule JSON: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @param rules JSON array of rules
+	 * @return The compiled rules
+	 * @throws IllegalArgumentException If a rule is invalid
+	 */
+	public static DecisionRules compile(JsonNode rules) {
+		if (rules == null || !rules.isArray()) {
+			throw new IllegalArgumentException("Rules must be a JSON array");
+		}
+		List<Integer> plan = new ArrayList<>();
+		List<Set<String>> personalCodeSets = new ArrayList<>();
+		for (int i = 0; i < rules.size(); i++) {
+			JsonNode rule = rules.get(i);
+			String name = rule.path("name").asText("#" + i);
+			try {
+				compileRule(rule, plan, personalCodeSets);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Rule " + name + ": " + e.getMessage(), e);
+			}
+		}
+		return new DecisionRules(plan.stream().mapToInt(Integer::intValue).toArray(),
+				List.copyOf(personalCodeSets), rules.size(), rules.toString());
+	}
+
+	/**
+	 * Checks an application against the rules.
+	 *
+	 * @param country      Resolved country of the customer
+	 * @param loanAmount   Requested loan amount
+	 * @param loanPeriod   Requested loan period
+	 * @param age          Age of the customer in completed years
+	 * @param personalCode Personal ID code of the customer
+	 * @return The rejection as a negative value, see {@link #isRejection}, or the
+	 *         maximum loan amount, {@link #NO_CAP} if no rule limits it
+	 */
+	public int evaluate(Country country, long loanAmount, int loanPeriod, int age, String personalCode) {
+		int[] plan = this.plan;
+		int cap = NO_CAP;
+		int pc = 0;
+		while (pc < plan.length) {
+			int operation = plan[pc];
+			int operand = plan[pc + 2];
+			boolean matches;
+			if (operation == REJECT) {
+				return -operand - 1;
+			} else if (operation == CAP) {
+				cap = Math.min(cap, operand);
+				matches = true;
+			} else if (operation == IN_SET) {
+				matches = personalCodeSets.get(operand).contains(personalCode);
+			} else if (operation == NOT_IN_SET) {
+				matches = !personalCodeSets.get(operand).contains(personalCode);
+			} else {
+				long value = switch (plan[pc + 1]) {
+				case COUNTRY -> country.ordinal();
+				case LOAN_AMOUNT -> loanAmount;
+				case LOAN_PERIOD -> loanPeriod;
+				default -> age;
+				};
+				matches = switch (operation) {
+				case EQ -> value == operand;
+				case NE -> value != operand;
+				case LT -> value < operand;
+				case LE -> value <= operand;
+				case GT -> value > operand;
+				case GE -> value >= operand;
+				case IN_MASK -> (operand & 1 << value) != 0;
+				default -> (operand & 1 << value) == 0;
+				};
+			}
+			pc = matches ? pc + WIDTH : plan[pc + 3];
+		}
+		return cap;
+	}
+
+	public static boolean isRejection(int result) {
+		return result < 0;
+	}
+
+	/**
+	 * @param result Result of {@link #evaluate} that is a rejection
+	 * @return Reason of the rejection
+	 */
+	public static RejectionReason rejection(int result) {
+		return REJECTION_REASONS[-result - 1];
+	}
+
+	public int getRuleCount() {
+		return ruleCount;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof DecisionRules other && Arrays.equals(plan, other.plan)
+				&& personalCodeSets.equals(other.personalCodeSets);
+	}
+
+	/**
+	 * Depends only on the compiled rules, so the same rules have the same hash code
+	 * in every run.
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(plan) + personalCodeSets.hashCode();
+	}
+
+	/**
+	 * @return The rules as compact JSON
+	 */
+	@Override
+	public String toString() {
+		return source;
+	}
+
+	private static void compileRule(JsonNode rule, List<Integer> plan, List<Set<String>> personalCodeSets) {
+		int start = plan.size();
+		JsonNode conditions = rule.path("if");
+		Iterator<Map.Entry<String, JsonNode>> fields = conditions.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> condition = fields.next();
+			Integer field = FIELDS.get(condition.getKey());
+			if (field == null) {
+				throw new IllegalArgumentException("Unknown field: " + condition.getKey());
+			}
+			if (condition.getValue().isObject()) {
+				Iterator<Map.Entry<String, JsonNode>> operators = condition.getValue().fields();
+				while (operators.hasNext()) {
+					Map.Entry<String, JsonNode> operator = operators.next();
+					compileCondition(field, operator.getKey(), operator.getValue(), plan, personalCodeSets);
+				}
+			} else {
+				compileCondition(field, "eq", condition.getValue(), plan, personalCodeSets);
+			}
+		}
+
+		JsonNode action = rule.path("then");
+		if (action.has("reject") == action.has("maxLoanAmount")) {
+			throw new IllegalArgumentException("then needs either reject or maxLoanAmount");
+		}
+		if (action.has("reject")) {
+			String reason = action.get("reject").asText();
+			try {
+				addInstruction(plan, REJECT, 0, RejectionReason.valueOf(reason).ordinal());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown rejection reason: " + reason);
+			}
+		} else {
+			int maxLoanAmount = intValue(action.get("maxLoanAmount"));
+			// Negative results of the plan are rejections.
+			if (maxLoanAmount < 0) {
+				throw new IllegalArgumentException("maxLoanAmount must not be negative: " + maxLoanAmount);
+			}
+			addInstruction(plan, CAP, 0, maxLoanAmount);
+		}
+
+		// Failing conditions skip to the next rule.
+		for (int pc = start; pc < plan.size(); pc += WIDTH) {
+			plan.set(pc + 3, plan.size());
+		}
+	}
+
+	private static void compileCondition(int field, String operator, JsonNode value, List<Integer> plan,
+			List<Set<String>> personalCodeSets) {
+		if (field == PERSONAL_CODE) {
+			int operation = switch (operator) {
+			case "eq", "in" -> IN_SET;
+			case "ne", "notIn" -> NOT_IN_SET;
+			default -> throw new IllegalArgumentException("Unknown personalCode operator: " + operator);
+			};
+			Set<String> personalCodes = new HashSet<>();
+			for (JsonNode element : value.isArray() ? value : List.of(value)) {
+				personalCodes.add(element.asText());
+			}
+			personalCodeSets.add(personalCodes);
+			addInstruction(plan, operation, field, personalCodeSets.size() - 1);
+		} else if (field == COUNTRY) {
+			int operation = switch (operator) {
+			case "eq", "in" -> IN_MASK;
+			case "ne", "notIn" -> NOT_IN_MASK;
+			default -> throw new IllegalArgumentException("Unknown country operator: " + operator);
+			};
+			int mask = 0;
+			for (JsonNode element : value.isArray() ? value : List.of(value)) {
+				Country country = Country.fromName(element.asText());
+				if (country == null) {
+					throw new IllegalArgumentException("Unknown country: " + element.asText());
+				}
+				mask |= 1 << country.ordinal();
+			}
+			addInstruction(plan, operation, field, mask);
+		} else {
+			Integer operation = NUMBER_OPERATORS.get(operator);
+			if (operation == null) {
+				throw new IllegalArgumentException("Unknown number operator: " + operator);
+			}
+			addInstruction(plan, operation, field, intValue(value));
+		}
+	}
+
+	private static int intValue(JsonNode value) {
+		if (value == null || !value.canConvertToInt()) {
+			throw new IllegalArgumentException("Not an integer: " + value);
+		}
+		return value.intValue();
+	}
+
+	private static void addInstruction(List<Integer> plan, int operation, int field, int operand) {
+		plan.add(operation);
+		plan.add(field);
+		plan.add(operand);
+		// Jump target, filled in when the rule is complete.
+		plan.add(-1);
+	}
+}
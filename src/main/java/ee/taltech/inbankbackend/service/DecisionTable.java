@@ -0,0 +1,146 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+/**
+ * Precomputed loan offers for every known credit modifier and every valid loan
+ * period. Once the inputs are validated, the offer only depends on these two
+ * values, so a decision becomes a single array lookup.<br>
+ * <br>
+ * Offers are packed into an {@code int}: the approved loan amount in the upper
+ * bits and the approved loan period in the lowest eight bits. Tables are
+ * immutable; a policy or scorer change builds a new one.
+ */
+public final class DecisionTable {
+
+	/**
+	 * Offer for combinations that have no valid loan.
+	 */
+	public static final int NO_LOAN = 0;
+
+	/**
+	 * Returned by {@link #lookup(int, int)} for combinations outside the table.
+	 */
+	public static final int NOT_TABULATED = -1;
+
+	private static final int PERIOD_BITS = 8;
+	private static final int PERIOD_MASK = (1 << PERIOD_BITS) - 1;
+
+	private final int[] creditModifiers;
+	private final int[] offers;
+	private final int minimumLoanPeriod;
+	private final int periodCount;
+
+	private DecisionTable(int[] creditModifiers, int[] offers, int minimumLoanPeriod, int periodCount) {
+		this.creditModifiers = creditModifiers;
+		this.offers = offers;
+		this.minimumLoanPeriod = minimumLoanPeriod;
+		this.periodCount = periodCount;
+	}
+
+	/**
+	 * Computes the offer of every (credit modifier, loan period) combination of
+	 * the default policy.
+	 *
+	 * @param creditModifiers       Credit modifiers of the segments that can get a
+	 *                              loan
+	 * @param creditScoreCalculator Scorer the offers are based on
+	 * @param loanPeriodSolver      Solver consistent with the scorer
+	 * @return A new decision table
+	 */
+	public static DecisionTable build(int[] creditModifiers, CreditScoreCalculator creditScoreCalculator,
+			LoanPeriodSolver loanPeriodSolver) {
+		return build(DecisionPolicy.defaults(), creditModifiers, creditScoreCalculator, loanPeriodSolver);
+	}
+
+	/**
+	 * Computes the offer of every (credit modifier, loan period) combination
+	 * allowed by a policy.
+	 *
+	 * @param policy                Policy with the loan period range and the
+	 *                              maximum loan amount
+	 * @param creditModifiers       Credit modifiers of the segments that can get a
+	 *                              loan
+	 * @param creditScoreCalculator Scorer the offers are based on
+	 * @param loanPeriodSolver      Solver consistent with the scorer and the
+	 *                              policy
+	 * @return A new decision table
+	 */
+	public static DecisionTable build(DecisionPolicy policy, int[] creditModifiers,
+			CreditScoreCalculator creditScoreCalculator, LoanPeriodSolver loanPeriodSolver) {
+		int minimumLoanPeriod = policy.getMinimumLoanPeriod();
+		int periodCount = policy.getMaximumLoanPeriod() - minimumLoanPeriod + 1;
+		int[] offers = new int[creditModifiers.length * periodCount];
+
+		for (int segment = 0; segment < creditModifiers.length; segment++) {
+			for (int period = 0; period < periodCount; period++) {
+				offers[segment * periodCount + period] = solve(creditScoreCalculator, loanPeriodSolver,
+						policy.getMaximumLoanAmount(), creditModifiers[segment], minimumLoanPeriod + period);
+			}
+		}
+		return new DecisionTable(creditModifiers.clone(), offers, minimumLoanPeriod, periodCount);
+	}
+
+	/**
+	 * Computes a single offer of the default policy without a table.
+	 *
+	 * @param creditScoreCalculator Scorer the offer is based on
+	 * @param loanPeriodSolver      Solver consistent with the scorer
+	 * @param creditModifier        Credit modifier of the customer
+	 * @param loanPeriod            Requested loan period
+	 * @return Packed offer, or {@link #NO_LOAN}
+	 */
+	public static int solve(CreditScoreCalculator creditScoreCalculator, LoanPeriodSolver loanPeriodSolver,
+			int creditModifier, int loanPeriod) {
+		return solve(creditScoreCalculator, loanPeriodSolver, DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT,
+				creditModifier, loanPeriod);
+	}
+
+	/**
+	 * Computes a single offer without a table.
+	 *
+	 * @param creditScoreCalculator Scorer the offer is based on
+	 * @param loanPeriodSolver      Solver consistent with the scorer
+	 * @param maximumLoanAmount     Upper limit of the approved amount
+	 * @param creditModifier        Credit modifier of the customer
+	 * @param loanPeriod            Requested loan period
+	 * @return Packed offer, or {@link #NO_LOAN}
+	 */
+	public static int solve(CreditScoreCalculator creditScoreCalculator, LoanPeriodSolver loanPeriodSolver,
+			int maximumLoanAmount, int creditModifier, int loanPeriod) {
+		int approvedPeriod = loanPeriodSolver.findLoanPeriod(creditModifier, loanPeriod);
+		if (approvedPeriod == LoanPeriodSolver.NO_LOAN_PERIOD) {
+			return NO_LOAN;
+		}
+		int approvedAmount = Math.min(maximumLoanAmount,
+				creditScoreCalculator.calculateCreditScore(creditModifier, approvedPeriod));
+		return approvedAmount << PERIOD_BITS | approvedPeriod;
+	}
+
+	/**
+	 * @param creditModifier Credit modifier of the customer
+	 * @param loanPeriod     Requested loan period
+	 * @return Packed offer, {@link #NO_LOAN}, or {@link #NOT_TABULATED} if the
+	 *         modifier or period is not in the table
+	 */
+	public int lookup(int creditModifier, int loanPeriod) {
+		int period = loanPeriod - minimumLoanPeriod;
+		if (period < 0 || period >= periodCount) {
+			return NOT_TABULATED;
+		}
+		for (int segment = 0; segment < creditModifiers.length; segment++) {
+			if (creditModifiers[segment] == creditModifier) {
+				return offers[segment * periodCount + period];
+			}
+		}
+		return NOT_TABULATED;
+	}
+
+	public static int loanAmount(int offer) {
+		return offer >>> PERIOD_BITS;
+	}
+
+	public static int loanPeriod(int offer) {
+		return offer & PERIOD_MASK;
+	}
+}
@@ -0,0 +1,116 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+/**
+ * How a decision was reached, for {@link DecisionEngine#explainAsync}: the
+ * checks in the order they ran, the credit segment of the customer, every call
+ * of the scorer and the steps of the loan period search.<br>
+ * <br>
+ * A trace only exists for explained requests. Normal decisions pass no trace,
+ * so they neither collect nor allocate anything for it.
+ */
+public final class DecisionTrace {
+
+	/**
+	 * An input check and its outcome. Checks after a failed one are not run.
+	 *
+	 * @param name   Name of the checked input
+	 * @param passed Whether the input passed the check
+	 * @param detail The checked value and the limits it was checked against
+	 */
+	public record Check(String name, boolean passed, String detail) {
+	}
+
+	/**
+	 * A single call of the scorer.
+	 *
+	 * @param creditModifier Credit modifier of the customer
+	 * @param loanPeriod     Loan period that was scored
+	 * @param score          Resulting credit score
+	 */
+	public record ScoreEvaluation(int creditModifier, int loanPeriod, int score) {
+	}
+
+	private final List<Check> checks = new ArrayList<>();
+	private final List<ScoreEvaluation> scoreEvaluations = new ArrayList<>();
+	private final List<String> periodSearch = new ArrayList<>();
+	private Integer creditModifier;
+
+	public List<Check> getChecks() {
+		return Collections.unmodifiableList(checks);
+	}
+
+	/**
+	 * @return Credit modifier of the customer, null if the checks failed before
+	 *         the credit data was looked up
+	 */
+	public Integer getCreditModifier() {
+		return creditModifier;
+	}
+
+	/**
+	 * @return Name of the credit segment, "debt", or null if the credit modifier
+	 *         is unknown or matches no segment
+	 */
+	public String getCreditSegment() {
+		if (creditModifier == null) {
+			return null;
+		}
+		return switch (creditModifier) {
+		case 0 -> "debt";
+		case DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER -> "segment 1";
+		case DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER -> "segment 2";
+		case DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER -> "segment 3";
+		default -> null;
+		};
+	}
+
+	public List<ScoreEvaluation> getScoreEvaluations() {
+		return Collections.unmodifiableList(scoreEvaluations);
+	}
+
+	public List<String> getPeriodSearch() {
+		return Collections.unmodifiableList(periodSearch);
+	}
+
+	/**
+	 * @return The outcome of the check, so a failed check can end the trace
+	 */
+	boolean check(String name, boolean passed, String detail) {
+		checks.add(new Check(name, passed, detail));
+		return passed;
+	}
+
+	void creditModifier(int creditModifier) {
+		this.creditModifier = creditModifier;
+	}
+
+	void periodSearch(String step) {
+		periodSearch.add(step);
+	}
+
+	/**
+	 * @param creditScoreCalculator Scorer of the decision
+	 * @return The same scorer, recording every call in this trace
+	 */
+	CreditScoreCalculator tracing(CreditScoreCalculator creditScoreCalculator) {
+		return new CreditScoreCalculator(creditScoreCalculator.getScoringModel()) {
+			@Override
+			public int calculateCreditScore(int creditModifier, int loanPeriod) {
+				int score = creditScoreCalculator.calculateCreditScore(creditModifier, loanPeriod);
+				scoreEvaluations.add(new ScoreEvaluation(creditModifier, loanPeriod, score));
+				return score;
+			}
+
+			@Override
+			public boolean isLinear() {
+				return creditScoreCalculator.isLinear();
+			}
+		};
+	}
+}
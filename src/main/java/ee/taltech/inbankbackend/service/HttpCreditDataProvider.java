@@ -0,0 +1,76 @@
+package ee.taltech.inbankbackend.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ee.taltech.inbankbackend.exceptions.CreditDataUnavailableException;
+
+/**
+ * Reference provider that asks a credit bureau over HTTP. The request
+ * {@code {"personalCode": "..."}} is posted to the configured URL and the
+ * bureau answers with {@code {"creditModifier": 100}}.<br>
+ * <br>
+ * Lookups use the non-blocking JDK HTTP client, so waiting for the bureau does
+ * not occupy a thread. Every lookup is bounded by the configured timeout; a
+ * timeout, a connection failure or a non-200 status completes the future
+ * exceptionally.
+ */
+public class HttpCreditDataProvider implements CreditDataProvider {
+
+	private final HttpClient httpClient;
+	private final URI uri;
+	private final Duration timeout;
+	private final ObjectMapper objectMapper;
+
+	public HttpCreditDataProvider(URI uri, Duration timeout, ObjectMapper objectMapper) {
+		this(HttpClient.newBuilder().connectTimeout(timeout).build(), uri, timeout, objectMapper);
+	}
+
+	public HttpCreditDataProvider(HttpClient httpClient, URI uri, Duration timeout, ObjectMapper objectMapper) {
+		this.httpClient = httpClient;
+		this.uri = uri;
+		this.timeout = timeout;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public CompletableFuture<Integer> getCreditModifierAsync(String personalCode, long decodedPersonalCode) {
+		byte[] body;
+		try {
+			body = objectMapper.writeValueAsBytes(objectMapper.createObjectNode().put("personalCode", personalCode));
+		} catch (JsonProcessingException e) {
+			return CompletableFuture.failedFuture(new CreditDataUnavailableException("Cannot build credit data request", e));
+		}
+		HttpRequest request = HttpRequest.newBuilder(uri)
+				.timeout(timeout)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+				.build();
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(this::parse);
+	}
+
+	private Integer parse(HttpResponse<byte[]> response) {
+		if (response.statusCode() != 200) {
+			throw new CreditDataUnavailableException("Credit bureau responded with status " + response.statusCode());
+		}
+		JsonNode creditModifier;
+		try {
+			creditModifier = objectMapper.readTree(response.body()).get("creditModifier");
+		} catch (IOException e) {
+			throw new CreditDataUnavailableException("Unreadable credit bureau response", e);
+		}
+		if (creditModifier == null || !creditModifier.canConvertToInt()) {
+			throw new CreditDataUnavailableException("Credit bureau response has no credit modifier");
+		}
+		return creditModifier.intValue();
+	}
+}
@@ -0,0 +1,78 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Decodes a Latvian personal ID code (DDMMYY-CNNNNX) in a single pass, without
+ * allocating, into the same packed {@code long} as
+ * {@link PersonalCodeDecoder}.<br>
+ * <br>
+ * A code is valid if it has 11 digits with a hyphen after the sixth, the
+ * century digit C is 0 (1800s), 1 (1900s) or 2 (2000s), the date of birth
+ * exists in the calendar and the check digit matches. These are the rules the
+ * LatvianPersonalCodeValidator applies to codes with a date of birth. Codes
+ * issued since 2017 (32NNNN-NNNNN) carry no date of birth, so the age of the
+ * customer cannot be verified, and they are decoded as invalid.
+ */
+public final class LatvianPersonalCodeDecoder {
+
+	private static final int DIGITS = 11;
+	private static final int HYPHEN_INDEX = 6;
+	private static final int[] WEIGHTS = { 1, 6, 3, 7, 9, 10, 5, 8, 4, 2 };
+
+	private LatvianPersonalCodeDecoder() {
+	}
+
+	/**
+	 * @param personalCode Personal ID code, may be null
+	 * @return Packed decoding result, or {@link PersonalCodeDecoder#INVALID}
+	 */
+	public static long decode(String personalCode) {
+		if (personalCode == null || personalCode.length() != DIGITS + 1
+				|| personalCode.charAt(HYPHEN_INDEX) != '-') {
+			return PersonalCodeDecoder.INVALID;
+		}
+
+		int sum = 0;
+		int day = 0;
+		int month = 0;
+		int yearOfCentury = 0;
+		int centuryDigit = 0;
+		int lastFour = 0;
+		int checkDigit = 0;
+		for (int i = 0; i < DIGITS; i++) {
+			int digit = personalCode.charAt(i < HYPHEN_INDEX ? i : i + 1) - '0';
+			if (digit < 0 || digit > 9) {
+				return PersonalCodeDecoder.INVALID;
+			}
+			if (i < DIGITS - 1) {
+				sum += digit * WEIGHTS[i];
+			} else {
+				checkDigit = digit;
+			}
+			if (i < 2) {
+				day = day * 10 + digit;
+			} else if (i < 4) {
+				month = month * 10 + digit;
+			} else if (i < 6) {
+				yearOfCentury = yearOfCentury * 10 + digit;
+			} else if (i == 6) {
+				centuryDigit = digit;
+			}
+			if (i >= DIGITS - 4) {
+				lastFour = lastFour * 10 + digit;
+			}
+		}
+
+		if (centuryDigit > 2) {
+			return PersonalCodeDecoder.INVALID;
+		}
+		int year = 1800 + centuryDigit * 100 + yearOfCentury;
+		if (month < 1 || month > 12 || day < 1 || day > PersonalCodeDecoder.daysInMonth(year, month)) {
+			return PersonalCodeDecoder.INVALID;
+		}
+		if ((1101 - sum) % 11 % 10 != checkDigit) {
+			return PersonalCodeDecoder.INVALID;
+		}
+
+		return PersonalCodeDecoder.pack(year, month, day, lastFour);
+	}
+}
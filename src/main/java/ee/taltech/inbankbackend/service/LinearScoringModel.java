@@ -0,0 +1,31 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * The original scorer: the score is the credit modifier times the loan period.
+ */
+public final class LinearScoringModel implements ScoringModel {
+
+	@Override
+	public int score(int creditModifier, int loanPeriod) {
+		return creditModifier * loanPeriod;
+	}
+
+	@Override
+	public void scoreBatch(int[] creditModifiers, int[] loanPeriods, float[] features, int[] scores, int count) {
+		ScoringModel.checkBatch(creditModifiers, loanPeriods, features, 0, scores, count);
+		// A plain loop over arrays, which C2 vectorizes on its own.
+		for (int i = 0; i < count; i++) {
+			scores[i] = creditModifiers[i] * loanPeriods[i];
+		}
+	}
+
+	@Override
+	public boolean isLinear() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "linear";
+	}
+}
@@ -0,0 +1,49 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Finds the loan period for a customer: the shortest period, not shorter than
+ * the requested one, for which the credit score reaches the minimum loan amount.
+ */
+public interface LoanPeriodSolver {
+
+	/**
+	 * Returned when no period up to the maximum loan period reaches the minimum
+	 * loan amount.
+	 */
+	int NO_LOAN_PERIOD = -1;
+
+	/**
+	 * @param creditModifier  Credit modifier of the customer, must be positive
+	 * @param requestedPeriod Requested loan period, already validated
+	 * @return Loan period to offer, or {@link #NO_LOAN_PERIOD}
+	 */
+	int findLoanPeriod(int creditModifier, int requestedPeriod);
+
+	/**
+	 * @param policy Policy with the minimum loan amount and maximum loan period to
+	 *               solve for
+	 * @return A solver of the same kind and scorer for the given policy
+	 */
+	LoanPeriodSolver forPolicy(DecisionPolicy policy);
+
+	/**
+	 * @param creditScoreCalculator Scorer to solve for instead, consistent with
+	 *                              the current one
+	 * @return A solver of the same kind and policy for the given scorer
+	 */
+	LoanPeriodSolver withCalculator(CreditScoreCalculator creditScoreCalculator);
+
+	/**
+	 * Picks the fastest solver that is exact for the given calculator: the closed
+	 * form for linear scorers and a binary search for any other monotone scorer.
+	 *
+	 * @param creditScoreCalculator Calculator the solver has to agree with
+	 * @return Solver for the calculator
+	 */
+	static LoanPeriodSolver forCalculator(CreditScoreCalculator creditScoreCalculator) {
+		if (creditScoreCalculator.isLinear()) {
+			return new ClosedFormLoanPeriodSolver(creditScoreCalculator);
+		}
+		return new BinarySearchLoanPeriodSolver(creditScoreCalculator);
+	}
+}
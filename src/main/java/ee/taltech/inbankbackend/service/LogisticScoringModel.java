@@ -0,0 +1,106 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.Arrays;
+
+/**
+ * Logistic regression scorer. The score is the largest loan amount scaled by
+ * the estimated probability of repayment:
+ *
+ * <pre>
+ * z     = intercept + modifierWeight * creditModifier + periodWeight * loanPeriod + sum(featureWeights[f] * feature[f])
+ * score = (int) (scale / (1 + exp(-z)))
+ * </pre>
+ *
+ * Batches are scored with the incubating Vector API when the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}, several applications per
+ * instruction, and with a scalar loop otherwise. Both compute in {@code float}
+ * and differ only in the rounding of {@code exp}, so a vectorized score can be
+ * one lower or higher than the scalar one.
+ */
+public final class LogisticScoringModel implements ScoringModel {
+
+	/**
+	 * Whether the Vector API module is part of this JVM.
+	 */
+	public static final boolean VECTOR_API_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector")
+			.isPresent();
+
+	private final float scale;
+	private final float intercept;
+	private final float modifierWeight;
+	private final float periodWeight;
+	private final float[] featureWeights;
+	private final boolean vectorized;
+
+	/**
+	 * @param scale          Score of a certain repayment, the upper bound of the
+	 *                       scores
+	 * @param intercept      Bias of the linear predictor
+	 * @param modifierWeight Weight of the credit modifier
+	 * @param periodWeight   Weight of the loan period, not negative
+	 * @param featureWeights Weights of the additional batch features
+	 * @param vectorized     Whether to use the Vector API if it is available
+	 * @throws IllegalArgumentException If the scale is not positive or the period
+	 *                                  weight is negative
+	 */
+	public LogisticScoringModel(float scale, float intercept, float modifierWeight, float periodWeight,
+			float[] featureWeights, boolean vectorized) {
+		if (!(scale > 0)) {
+			throw new IllegalArgumentException("Invalid scale: " + scale);
+		}
+		if (!(periodWeight >= 0)) {
+			// The loan period solvers need scores that grow with the period.
+			throw new IllegalArgumentException("Invalid period weight: " + periodWeight);
+		}
+		this.scale = scale;
+		this.intercept = intercept;
+		this.modifierWeight = modifierWeight;
+		this.periodWeight = periodWeight;
+		this.featureWeights = featureWeights.clone();
+		this.vectorized = vectorized && VECTOR_API_AVAILABLE;
+	}
+
+	@Override
+	public int score(int creditModifier, int loanPeriod) {
+		return score(intercept + modifierWeight * creditModifier + periodWeight * loanPeriod);
+	}
+
+	@Override
+	public void scoreBatch(int[] creditModifiers, int[] loanPeriods, float[] features, int[] scores, int count) {
+		ScoringModel.checkBatch(creditModifiers, loanPeriods, features, featureWeights.length, scores, count);
+		int scored = vectorized
+				? LogisticVectorKernel.score(scale, intercept, modifierWeight, periodWeight, featureWeights,
+						creditModifiers, loanPeriods, features, scores, count)
+				: 0;
+		for (int i = scored; i < count; i++) {
+			float z = intercept + modifierWeight * creditModifiers[i] + periodWeight * loanPeriods[i];
+			for (int f = 0; f < featureWeights.length; f++) {
+				z += featureWeights[f] * features[f * count + i];
+			}
+			scores[i] = score(z);
+		}
+	}
+
+	@Override
+	public int getFeatureCount() {
+		return featureWeights.length;
+	}
+
+	/**
+	 * @return true if batches are scored with the Vector API
+	 */
+	public boolean isVectorized() {
+		return vectorized;
+	}
+
+	private int score(float z) {
+		return (int) (scale / (1f + (float) Math.exp(-z)));
+	}
+
+	@Override
+	public String toString() {
+		return "logistic(scale=" + scale + ", intercept=" + intercept + ", modifier-weight=" + modifierWeight
+				+ ", period-weight=" + periodWeight + ", feature-weights=" + Arrays.toString(featureWeights)
+				+ ", vectorized=" + vectorized + ")";
+	}
+}
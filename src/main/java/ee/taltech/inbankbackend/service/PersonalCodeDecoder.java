@@ -0,0 +1,138 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Decodes an Estonian personal ID code (GYYMMDDSSSC) in a single pass over its
+ * 11 digits, without allocating. The result is packed into a {@code long} so
+ * that the validity check, the age check and the credit segment lookup of a
+ * request can share one decoding.<br>
+ * <br>
+ * A code is valid if it has 11 digits, the first digit is 1...6, the date of
+ * birth exists in the calendar and the check digit matches. These are the same
+ * rules the EstonianPersonalCodeValidator applies. Codes of other countries
+ * are decoded through {@link Country#decode}.
+ */
+public final class PersonalCodeDecoder {
+
+	/**
+	 * Decoding result of an invalid personal code.
+	 */
+	public static final long INVALID = -1L;
+
+	private static final int LENGTH = 11;
+	private static final int[] FIRST_WEIGHTS = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 1 };
+	private static final int[] SECOND_WEIGHTS = { 3, 4, 5, 6, 7, 8, 9, 1, 2, 3 };
+
+	private static final int LAST_FOUR_BITS = 14;
+	private static final int DAY_BITS = 5;
+	private static final int MONTH_BITS = 4;
+	private static final int DAY_SHIFT = LAST_FOUR_BITS;
+	private static final int MONTH_SHIFT = DAY_SHIFT + DAY_BITS;
+	private static final int YEAR_SHIFT = MONTH_SHIFT + MONTH_BITS;
+
+	private PersonalCodeDecoder() {
+	}
+
+	/**
+	 * @param personalCode Personal ID code, may be null
+	 * @return Packed decoding result, or {@link #INVALID}
+	 */
+	public static long decode(String personalCode) {
+		if (personalCode == null || personalCode.length() != LENGTH) {
+			return INVALID;
+		}
+
+		int firstSum = 0;
+		int secondSum = 0;
+		int centuryDigit = 0;
+		int yearOfCentury = 0;
+		int month = 0;
+		int day = 0;
+		int lastFour = 0;
+		int checkDigit = 0;
+		for (int i = 0; i < LENGTH; i++) {
+			int digit = personalCode.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return INVALID;
+			}
+			if (i < LENGTH - 1) {
+				firstSum += digit * FIRST_WEIGHTS[i];
+				secondSum += digit * SECOND_WEIGHTS[i];
+			} else {
+				checkDigit = digit;
+			}
+			if (i == 0) {
+				centuryDigit = digit;
+			} else if (i < 3) {
+				yearOfCentury = yearOfCentury * 10 + digit;
+			} else if (i < 5) {
+				month = month * 10 + digit;
+			} else if (i < 7) {
+				day = day * 10 + digit;
+			}
+			if (i >= LENGTH - 4) {
+				lastFour = lastFour * 10 + digit;
+			}
+		}
+
+		if (centuryDigit < 1 || centuryDigit > 6) {
+			return INVALID;
+		}
+		int year = 1800 + (centuryDigit - 1) / 2 * 100 + yearOfCentury;
+		if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+			return INVALID;
+		}
+		if (checksum(firstSum, secondSum) != checkDigit) {
+			return INVALID;
+		}
+
+		return pack(year, month, day, lastFour);
+	}
+
+	public static boolean isValid(long decoded) {
+		return decoded != INVALID;
+	}
+
+	public static int birthYear(long decoded) {
+		return (int) (decoded >>> YEAR_SHIFT);
+	}
+
+	public static int birthMonth(long decoded) {
+		return (int) (decoded >>> MONTH_SHIFT) & ((1 << MONTH_BITS) - 1);
+	}
+
+	public static int birthDay(long decoded) {
+		return (int) (decoded >>> DAY_SHIFT) & ((1 << DAY_BITS) - 1);
+	}
+
+	/**
+	 * @param decoded Valid decoding result
+	 * @return The last four digits of the code (birth order number and check
+	 *         digit) as a number between 0 and 9999
+	 */
+	public static int lastFour(long decoded) {
+		return (int) decoded & ((1 << LAST_FOUR_BITS) - 1);
+	}
+
+	static long pack(int year, int month, int day, int lastFour) {
+		return (long) year << YEAR_SHIFT | (long) month << MONTH_SHIFT | (long) day << DAY_SHIFT | lastFour;
+	}
+
+	private static int checksum(int firstSum, int secondSum) {
+		int checksum = firstSum % 11;
+		if (checksum == 10) {
+			checksum = secondSum % 11;
+			if (checksum == 10) {
+				checksum = 0;
+			}
+		}
+		return checksum;
+	}
+
+	static int daysInMonth(int year, int month) {
+		if (month == 2) {
+			boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+			return leapYear ? 29 : 28;
+		}
+		return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+	}
+}
@@ -0,0 +1,78 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Scoring model behind the {@link CreditScoreCalculator}: turns a credit
+ * modifier and a loan period into a score, the largest loan amount the
+ * customer qualifies for.<br>
+ * <br>
+ * Models score one application at a time for decisions and whole batches for
+ * offline scoring. Batches are passed as primitive arrays, one element per
+ * application, so implementations can process them in SIMD-sized chunks. For a
+ * fixed credit modifier the score must not decrease with the loan period, which
+ * the loan period solvers rely on.<br>
+ * <br>
+ * Batch decisions, {@code /loan/decisions/batch} and the policy simulator, do
+ * not use {@link #scoreBatch}. A loan period solver chooses each period to score
+ * from the previous score, so there is no fixed batch of inputs to score up
+ * front. A vectorized score can also be one off from {@link #score}, so the same
+ * application could get a different offer in a batch than on its own. Batch
+ * scoring is for fixed inputs, e.g. evaluating a model on historical
+ * applications.<br>
+ * <br>
+ * {@link Object#toString()} should name the model and its parameters: it is
+ * part of the policy version the decisions are audited with.
+ */
+public interface ScoringModel {
+
+	/**
+	 * Scores a single application without additional features.
+	 *
+	 * @param creditModifier Credit modifier of the customer
+	 * @param loanPeriod     Loan period in months
+	 * @return Largest loan amount for the application
+	 */
+	int score(int creditModifier, int loanPeriod);
+
+	/**
+	 * Scores a batch of applications.
+	 *
+	 * @param creditModifiers Credit modifier of every application
+	 * @param loanPeriods     Loan period of every application
+	 * @param features        Additional features by column: feature {@code f} of
+	 *                        application {@code i} is at {@code f * count + i}.
+	 *                        Holds {@link #getFeatureCount()} columns.
+	 * @param scores          Receives the score of every application
+	 * @param count           Number of applications
+	 * @throws IllegalArgumentException If an array is shorter than the batch
+	 */
+	void scoreBatch(int[] creditModifiers, int[] loanPeriods, float[] features, int[] scores, int count);
+
+	/**
+	 * @return Number of additional features per application
+	 */
+	default int getFeatureCount() {
+		return 0;
+	}
+
+	/**
+	 * Tells whether the score is proportional to the loan period, i.e.
+	 * {@code score(m, p) == score(m, 1) * p}. Linear models can be solved for the
+	 * loan period in closed form.
+	 *
+	 * @return true if the score is linear in the loan period
+	 */
+	default boolean isLinear() {
+		return false;
+	}
+
+	/**
+	 * @throws IllegalArgumentException If an array is shorter than the batch
+	 */
+	static void checkBatch(int[] creditModifiers, int[] loanPeriods, float[] features, int featureCount,
+			int[] scores, int count) {
+		if (count < 0 || creditModifiers.length < count || loanPeriods.length < count || scores.length < count
+				|| features.length < (long) featureCount * count) {
+			throw new IllegalArgumentException("Batch arrays are shorter than " + count + " applications");
+		}
+	}
+}
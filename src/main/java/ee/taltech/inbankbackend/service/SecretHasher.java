@@ -0,0 +1,71 @@
+package ee.taltech.inbankbackend.service;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HMAC-SHA256 under a random key that is created per instance and never leaves
+ * the process, cut to 128 bits. Caches keyed by such hashes do not store the
+ * personal codes they are keyed by. Safe to use from any thread.
+ */
+public final class SecretHasher {
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private final Mac hmac;
+
+	public SecretHasher() {
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		try {
+			hmac = Mac.getInstance(HMAC_ALGORITHM);
+			hmac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+		}
+	}
+
+	/**
+	 * @param input Bytes to hash
+	 * @return First 128 bits of the HMAC of the bytes
+	 */
+	public SecretHash hash(byte[] input) {
+		Mac mac = newMac();
+		mac.update(input);
+		return finish(mac);
+	}
+
+	/**
+	 * Starts a hash of several parts, to be passed to {@link #finish} once they
+	 * are added.
+	 *
+	 * @return A Mac under the key, for the calling thread only
+	 */
+	public Mac newMac() {
+		try {
+			// A Mac is not thread-safe; a clone of the initialized one is cheaper than a new instance.
+			return (Mac) hmac.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param mac Mac from {@link #newMac()} with every part added
+	 * @return First 128 bits of the HMAC
+	 */
+	public static SecretHash finish(Mac mac) {
+		ByteBuffer digest = ByteBuffer.wrap(mac.doFinal());
+		return new SecretHash(digest.getLong(), digest.getLong());
+	}
+
+	/**
+	 * First 128 bits of an HMAC of a {@link SecretHasher}.
+	 */
+	public record SecretHash(long high, long low) {
+	}
+}
@@ -0,0 +1,398 @@
+package ee.taltech.inbankbackend.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import ee.taltech.inbankbackend.service.Country;
+import ee.taltech.inbankbackend.service.CreditDataProvider;
+import ee.taltech.inbankbackend.service.CreditDataService;
+import ee.taltech.inbankbackend.service.CreditScoreCalculator;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionAuditLog;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionMetrics;
+import ee.taltech.inbankbackend.service.LoanPeriodSolver;
+import ee.taltech.inbankbackend.service.PersonalCodeDecoder;
+
+/**
+ * Replays historical applications through the decision engine under a
+ * baseline and a candidate {@link SimulationScenario}, to see how a policy
+ * change would move approvals before it is made.<br>
+ * <br>
+ * Usage:
+ * {@code PolicySimulator --input=<csv> --candidate=<file> [--baseline=<file>] [--date=<yyyy-mm-dd>] [--output=<csv>]}
+ * The input is CSV with a header line naming the columns {@code personalCode},
+ * {@code loanAmount}, {@code loanPeriod} and {@code country}, in any order and
+ * among others, so an export of the audit log can be replayed as it is.
+ * Values are not quoted. Without {@code --baseline} the baseline is the
+ * default policy; ages are taken on {@code --date}, today by default. The
+ * report goes to standard output unless a file is given.<br>
+ * <br>
+ * The input is memory-mapped and cut into slices at line boundaries. Slices
+ * are simulated in parallel on the common fork/join pool, each into a report
+ * of its own, and the reports are merged at the end. Credit data comes from
+ * the personal codes as in {@link CreditDataService}, without latency.
+ */
+public final class PolicySimulator {
+
+	static final int DEFAULT_SLICE_BYTES = 32 * 1024 * 1024;
+
+	private static final int MAX_LINE_LENGTH = 1024;
+	private static final String[] COLUMNS = { "personalCode", "loanAmount", "loanPeriod", "country" };
+	private static final int PERSONAL_CODE = 0;
+	private static final int LOAN_AMOUNT = 1;
+	private static final int LOAN_PERIOD = 2;
+	private static final int COUNTRY = 3;
+	private static final Country[] COUNTRIES = Country.values();
+	private static final byte[][] COUNTRY_NAMES = Arrays.stream(COUNTRIES)
+			.map(country -> country.getName().getBytes(StandardCharsets.US_ASCII))
+			.toArray(byte[][]::new);
+	// Lower bounds of the age bands of SimulationReport.AGE_BANDS after the first one.
+	private static final int[] AGE_BAND_LIMITS = { 18, 25, 35, 45, 55, 65, 75 };
+
+	private final DecisionEngine baseline;
+	private final DecisionEngine candidate;
+	private final LocalDate date;
+	private final int sliceBytes;
+
+	public PolicySimulator(SimulationScenario baseline, SimulationScenario candidate, LocalDate date) {
+		this(baseline, candidate, date, DEFAULT_SLICE_BYTES);
+	}
+
+	PolicySimulator(SimulationScenario baseline, SimulationScenario candidate, LocalDate date, int sliceBytes) {
+		if (sliceBytes <= 0) {
+			throw new IllegalArgumentException("Invalid slice size: " + sliceBytes);
+		}
+		Clock clock = Clock.fixed(date.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+		this.baseline = engine(baseline, clock);
+		this.candidate = engine(candidate, clock);
+		this.date = date;
+		this.sliceBytes = sliceBytes;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path input = null;
+		Path output = null;
+		SimulationScenario baseline = SimulationScenario.defaults();
+		SimulationScenario candidate = null;
+		LocalDate date = LocalDate.now();
+		for (String arg : args) {
+			if (arg.startsWith("--input=")) {
+				input = Path.of(arg.substring("--input=".length()));
+			} else if (arg.startsWith("--output=")) {
+				output = Path.of(arg.substring("--output=".length()));
+			} else if (arg.startsWith("--baseline=")) {
+				baseline = SimulationScenario.load(Path.of(arg.substring("--baseline=".length())));
+			} else if (arg.startsWith("--candidate=")) {
+				candidate = SimulationScenario.load(Path.of(arg.substring("--candidate=".length())));
+			} else if (arg.startsWith("--date=")) {
+				date = LocalDate.parse(arg.substring("--date=".length()));
+			}
+		}
+		if (input == null || candidate == null) {
+			System.err.println("Usage: PolicySimulator --input=<csv> --candidate=<file> [--baseline=<file>]"
+					+ " [--date=<yyyy-mm-dd>] [--output=<csv>]");
+			System.exit(2);
+		}
+
+		long started = System.nanoTime();
+		SimulationReport report = new PolicySimulator(baseline, candidate, date).simulate(input);
+		double seconds = (System.nanoTime() - started) / 1e9;
+		try (Writer out = new BufferedWriter(output == null
+				? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+				: Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+			report.writeCsv(out);
+		}
+		long applications = report.getRows().get(0).applications();
+		System.err.printf("%d applications in %.1f s (%.0f per second), %d malformed lines%n", applications,
+				seconds, applications / seconds, report.getMalformedLines());
+	}
+
+	/**
+	 * @param input CSV file of applications, see the class description
+	 * @return Outcomes of both scenarios
+	 * @throws IOException              If the input cannot be read
+	 * @throws IllegalArgumentException If a column is missing or a line is
+	 *                                  longer than 1 KB
+	 */
+	public SimulationReport simulate(Path input) throws IOException {
+		try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int[] columns = new int[COLUMNS.length];
+			long dataStart = readHeader(channel, size, columns);
+			int slices = (int) ((size - dataStart + sliceBytes - 1) / sliceBytes);
+			return IntStream.range(0, slices).parallel().mapToObj(slice -> {
+				long start = dataStart + (long) slice * sliceBytes;
+				try {
+					return simulateSlice(channel, size, start, Math.min(size, start + sliceBytes), slice == 0,
+							columns);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).reduce(SimulationReport::merge).orElseGet(SimulationReport::new);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Finds the columns in the header line.
+	 *
+	 * @param columns Receives the position of each of {@link #COLUMNS}
+	 * @return Offset of the first application
+	 */
+	private static long readHeader(FileChannel channel, long size, int[] columns) throws IOException {
+		ByteBuffer start = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_LINE_LENGTH));
+		int headerEnd = indexOfNewline(start, 0, start.limit());
+		if (headerEnd < 0 && size > MAX_LINE_LENGTH) {
+			throw new IllegalArgumentException("Header line longer than " + MAX_LINE_LENGTH + " bytes");
+		}
+		byte[] header = new byte[headerEnd < 0 ? start.limit() : headerEnd];
+		start.get(0, header);
+		List<String> names = Arrays.stream(new String(header, StandardCharsets.UTF_8).strip().split(","))
+				.map(String::strip)
+				.toList();
+		for (int i = 0; i < COLUMNS.length; i++) {
+			columns[i] = names.indexOf(COLUMNS[i]);
+			if (columns[i] < 0) {
+				throw new IllegalArgumentException("Missing column: " + COLUMNS[i]);
+			}
+		}
+		return headerEnd < 0 ? size : headerEnd + 1;
+	}
+
+	/**
+	 * Simulates the lines that start in {@code [start, end)}. The line that runs
+	 * over the end of the slice is read to its end; the line that runs into its
+	 * start belongs to the slice before.
+	 */
+	private SimulationReport simulateSlice(FileChannel channel, long size, long start, long end, boolean first,
+			int[] columns) throws IOException {
+		SimulationReport report = new SimulationReport();
+		// One byte before the slice shows whether a line starts right at its start.
+		long mapStart = first ? start : start - 1;
+		long mapEnd = Math.min(size, end + MAX_LINE_LENGTH);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+		int limit = buffer.limit();
+		int sliceEnd = (int) (end - mapStart);
+		int position = first ? 0 : indexOfNewline(buffer, 0, limit) + 1;
+		if (position == 0 && !first) {
+			return report;
+		}
+		LineReader line = new LineReader(columns);
+		while (position < sliceEnd) {
+			int lineEnd = indexOfNewline(buffer, position, limit);
+			if (lineEnd < 0) {
+				if (mapEnd < size) {
+					throw new IllegalArgumentException(
+							"Line longer than " + MAX_LINE_LENGTH + " bytes at offset " + (mapStart + position));
+				}
+				lineEnd = limit;
+			}
+			if (line.read(buffer, position, lineEnd)) {
+				simulate(line, report);
+			} else if (!line.isBlank()) {
+				report.addMalformedLine();
+			}
+			position = lineEnd + 1;
+		}
+		return report;
+	}
+
+	private void simulate(LineReader line, SimulationReport report) {
+		Decision baselineDecision = baseline.evaluate(line.personalCode, line.loanAmount, line.loanPeriod,
+				line.countryName);
+		Decision candidateDecision = candidate.evaluate(line.personalCode, line.loanAmount, line.loanPeriod,
+				line.countryName);
+		long decoded = line.country == null || line.personalCode == null ? PersonalCodeDecoder.INVALID
+				: line.country.decode(line.personalCode);
+		if (!PersonalCodeDecoder.isValid(decoded)) {
+			report.add(SimulationReport.UNKNOWN_SEGMENT, line.country, SimulationReport.UNKNOWN_AGE_BAND,
+					baselineDecision, candidateDecision);
+			return;
+		}
+		report.add(CreditDataService.segmentOf(decoded), line.country, ageBand(decoded), baselineDecision,
+				candidateDecision);
+	}
+
+	private int ageBand(long decoded) {
+		int age = date.getYear() - PersonalCodeDecoder.birthYear(decoded);
+		int month = PersonalCodeDecoder.birthMonth(decoded);
+		if (date.getMonthValue() < month
+				|| date.getMonthValue() == month && date.getDayOfMonth() < PersonalCodeDecoder.birthDay(decoded)) {
+			age--;
+		}
+		int band = 0;
+		while (band < AGE_BAND_LIMITS.length && age >= AGE_BAND_LIMITS[band]) {
+			band++;
+		}
+		return band;
+	}
+
+	private static DecisionEngine engine(SimulationScenario scenario, Clock clock) {
+		// Completed futures can be shared, so a lookup allocates nothing.
+		List<CompletableFuture<Integer>> creditModifiers = IntStream.rangeClosed(0, 3)
+				.mapToObj(segment -> CompletableFuture.completedFuture(scenario.creditModifier(segment)))
+				.toList();
+		CreditDataProvider creditDataProvider = (personalCode, decodedPersonalCode) -> creditModifiers
+				.get(CreditDataService.segmentOf(decodedPersonalCode));
+		CreditScoreCalculator creditScoreCalculator = new CreditScoreCalculator();
+		DecisionEngine engine = new DecisionEngine(creditDataProvider, creditScoreCalculator,
+				LoanPeriodSolver.forCalculator(creditScoreCalculator), true, DecisionMetrics.noop(), clock,
+				DecisionAuditLog.DISABLED);
+		engine.applyPolicy(scenario.policy());
+		return engine;
+	}
+
+	private static int indexOfNewline(ByteBuffer buffer, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buffer.get(i) == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Splits a line into the fields of an application, reusing its buffers from
+	 * line to line. Only used by the thread of one slice.
+	 */
+	private static final class LineReader {
+
+		private final int[] columns;
+		private final int[] fieldStarts = new int[COLUMNS.length];
+		private final int[] fieldEnds = new int[COLUMNS.length];
+		private final byte[] text = new byte[MAX_LINE_LENGTH];
+		private boolean blank;
+
+		String personalCode;
+		Long loanAmount;
+		int loanPeriod;
+		Country country;
+		String countryName;
+
+		LineReader(int[] columns) {
+			this.columns = columns;
+		}
+
+		/**
+		 * @return false if the line is blank or malformed
+		 */
+		boolean read(ByteBuffer buffer, int start, int end) {
+			if (end > start && buffer.get(end - 1) == '\r') {
+				end--;
+			}
+			blank = start == end;
+			if (blank || end - start > MAX_LINE_LENGTH) {
+				return false;
+			}
+			Arrays.fill(fieldStarts, -1);
+			int column = 0;
+			int fieldStart = start;
+			for (int i = start; i <= end; i++) {
+				if (i == end || buffer.get(i) == ',') {
+					for (int field = 0; field < COLUMNS.length; field++) {
+						if (columns[field] == column) {
+							fieldStarts[field] = fieldStart;
+							fieldEnds[field] = i;
+						}
+					}
+					column++;
+					fieldStart = i + 1;
+				}
+			}
+			for (int field = 0; field < COLUMNS.length; field++) {
+				if (fieldStarts[field] < 0) {
+					return false;
+				}
+			}
+
+			long period = parseNumber(buffer, fieldStarts[LOAN_PERIOD], fieldEnds[LOAN_PERIOD]);
+			if (period == Long.MIN_VALUE || period != (int) period) {
+				return false;
+			}
+			loanPeriod = (int) period;
+			// Requests without an amount failed before they were decided.
+			long amount = parseNumber(buffer, fieldStarts[LOAN_AMOUNT], fieldEnds[LOAN_AMOUNT]);
+			if (amount == Long.MIN_VALUE) {
+				return false;
+			}
+			loanAmount = amount;
+			personalCode = text(buffer, fieldStarts[PERSONAL_CODE], fieldEnds[PERSONAL_CODE]);
+			country = country(buffer, fieldStarts[COUNTRY], fieldEnds[COUNTRY]);
+			countryName = country != null ? country.getName()
+					: text(buffer, fieldStarts[COUNTRY], fieldEnds[COUNTRY]);
+			return true;
+		}
+
+		boolean isBlank() {
+			return blank;
+		}
+
+		// Empty fields are missing values, as in the audit log export.
+		private String text(ByteBuffer buffer, int start, int end) {
+			if (start == end) {
+				return null;
+			}
+			buffer.get(start, text, 0, end - start);
+			return new String(text, 0, end - start, StandardCharsets.UTF_8);
+		}
+
+		// The names of the supported countries, without allocating a string.
+		private static Country country(ByteBuffer buffer, int start, int end) {
+			for (int i = 0; i < COUNTRIES.length; i++) {
+				byte[] name = COUNTRY_NAMES[i];
+				if (name.length == end - start && matches(buffer, start, name)) {
+					return COUNTRIES[i];
+				}
+			}
+			return null;
+		}
+
+		private static boolean matches(ByteBuffer buffer, int start, byte[] bytes) {
+			for (int i = 0; i < bytes.length; i++) {
+				if (buffer.get(start + i) != bytes[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @return The number, or Long.MIN_VALUE if the field is not a number
+		 */
+		private static long parseNumber(ByteBuffer buffer, int start, int end) {
+			boolean negative = start < end && buffer.get(start) == '-';
+			int i = negative ? start + 1 : start;
+			if (i == end || end - i > 18) {
+				return Long.MIN_VALUE;
+			}
+			long value = 0;
+			for (; i < end; i++) {
+				int digit = buffer.get(i) - '0';
+				if (digit < 0 || digit > 9) {
+					return Long.MIN_VALUE;
+				}
+				value = value * 10 + digit;
+			}
+			return negative ? -value : value;
+		}
+	}
+}
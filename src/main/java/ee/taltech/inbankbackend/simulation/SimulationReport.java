@@ -0,0 +1,204 @@
+package ee.taltech.inbankbackend.simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+import ee.taltech.inbankbackend.service.Country;
+import ee.taltech.inbankbackend.service.Decision;
+
+/**
+ * Outcomes of the baseline and the candidate policy over the same
+ * applications, broken down by credit segment, country and age band.<br>
+ * <br>
+ * Every worker of a simulation fills a report of its own and the reports are
+ * merged at the end, so adding an application takes no lock. Counts are kept
+ * per combination of segment, country and age band, and summed per dimension
+ * by {@link #getRows()}.
+ */
+public final class SimulationReport {
+
+	/**
+	 * Totals of one value of a dimension.
+	 *
+	 * @param dimension         {@code total}, {@code segment}, {@code country} or
+	 *                          {@code age}
+	 * @param value             Value of the dimension, e.g. {@code Latvia}
+	 * @param applications      Number of applications
+	 * @param baselineApproved  Applications approved by the baseline
+	 * @param candidateApproved Applications approved by the candidate
+	 * @param baselineAmount    Sum of the loan amounts approved by the baseline
+	 * @param candidateAmount   Sum of the loan amounts approved by the candidate
+	 * @param newlyApproved     Rejected by the baseline, approved by the candidate
+	 * @param newlyRejected     Approved by the baseline, rejected by the candidate
+	 */
+	public record Row(String dimension, String value, long applications, long baselineApproved,
+			long candidateApproved, long baselineAmount, long candidateAmount, long newlyApproved,
+			long newlyRejected) {
+	}
+
+	static final String[] SEGMENTS = { "debt", "1", "2", "3", "unknown" };
+	static final String[] AGE_BANDS = { "<18", "18-24", "25-34", "35-44", "45-54", "55-64", "65-74", "75+",
+			"unknown" };
+	static final int UNKNOWN_SEGMENT = SEGMENTS.length - 1;
+	static final int UNKNOWN_AGE_BAND = AGE_BANDS.length - 1;
+
+	private static final Country[] COUNTRIES = Country.values();
+	// Countries by ordinal, then one for unsupported countries.
+	private static final int COUNTRY_COUNT = COUNTRIES.length + 1;
+	private static final int CELLS = SEGMENTS.length * COUNTRY_COUNT * AGE_BANDS.length;
+
+	private static final int APPLICATIONS = 0;
+	private static final int BASELINE_APPROVED = 1;
+	private static final int CANDIDATE_APPROVED = 2;
+	private static final int BASELINE_AMOUNT = 3;
+	private static final int CANDIDATE_AMOUNT = 4;
+	private static final int NEWLY_APPROVED = 5;
+	private static final int NEWLY_REJECTED = 6;
+	private static final int METRICS = 7;
+
+	private static final String CSV_HEADER = "dimension,value,applications,baselineApproved,candidateApproved,"
+			+ "baselineApprovalRate,candidateApprovalRate,approvalRateChange,baselineAmount,candidateAmount,"
+			+ "amountChange,newlyApproved,newlyRejected";
+
+	private final long[] counts = new long[CELLS * METRICS];
+	private long malformedLines;
+
+	/**
+	 * @param segment  0 for debt, 1...3, or {@link #UNKNOWN_SEGMENT}
+	 * @param country  Country of the application, null if not supported
+	 * @param ageBand  Index into {@link #AGE_BANDS}
+	 */
+	void add(int segment, Country country, int ageBand, Decision baseline, Decision candidate) {
+		int cell = ((segment * COUNTRY_COUNT) + (country == null ? COUNTRIES.length : country.ordinal()))
+				* AGE_BANDS.length + ageBand;
+		int offset = cell * METRICS;
+		counts[offset + APPLICATIONS]++;
+		boolean baselineApproved = !baseline.isRejected();
+		boolean candidateApproved = !candidate.isRejected();
+		if (baselineApproved) {
+			counts[offset + BASELINE_APPROVED]++;
+			counts[offset + BASELINE_AMOUNT] += baseline.getLoanAmount();
+		}
+		if (candidateApproved) {
+			counts[offset + CANDIDATE_APPROVED]++;
+			counts[offset + CANDIDATE_AMOUNT] += candidate.getLoanAmount();
+		}
+		if (baselineApproved != candidateApproved) {
+			counts[offset + (candidateApproved ? NEWLY_APPROVED : NEWLY_REJECTED)]++;
+		}
+	}
+
+	void addMalformedLine() {
+		malformedLines++;
+	}
+
+	/**
+	 * Adds the counts of another report to this one.
+	 *
+	 * @return This report
+	 */
+	SimulationReport merge(SimulationReport other) {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		malformedLines += other.malformedLines;
+		return this;
+	}
+
+	/**
+	 * @return Lines of the input that could not be read as an application
+	 */
+	public long getMalformedLines() {
+		return malformedLines;
+	}
+
+	/**
+	 * @return The total, then one row per segment, country and age band that
+	 *         had applications
+	 */
+	public List<Row> getRows() {
+		List<Row> rows = new ArrayList<>();
+		rows.add(sum("total", "all", cell -> true));
+		for (int segment = 0; segment < SEGMENTS.length; segment++) {
+			int s = segment;
+			addIfPresent(rows, sum("segment", SEGMENTS[segment], cell -> segmentOf(cell) == s));
+		}
+		for (int country = 0; country < COUNTRY_COUNT; country++) {
+			int c = country;
+			String name = country < COUNTRIES.length ? COUNTRIES[country].getName() : "unsupported";
+			addIfPresent(rows, sum("country", name, cell -> countryOf(cell) == c));
+		}
+		for (int ageBand = 0; ageBand < AGE_BANDS.length; ageBand++) {
+			int a = ageBand;
+			addIfPresent(rows, sum("age", AGE_BANDS[ageBand], cell -> ageBandOf(cell) == a));
+		}
+		return rows;
+	}
+
+	/**
+	 * @return The row of a value, null if it had no applications
+	 */
+	public Row getRow(String dimension, String value) {
+		return getRows().stream()
+				.filter(row -> row.dimension().equals(dimension) && row.value().equals(value))
+				.findFirst()
+				.orElse(null);
+	}
+
+	/**
+	 * Writes {@link #getRows()} as CSV with a header line. Rates are fractions of
+	 * the applications of the row, changes are candidate minus baseline.
+	 */
+	public void writeCsv(Writer out) throws IOException {
+		out.write(CSV_HEADER);
+		out.write('\n');
+		for (Row row : getRows()) {
+			double baselineRate = rate(row.baselineApproved(), row.applications());
+			double candidateRate = rate(row.candidateApproved(), row.applications());
+			out.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.4f,%.4f,%+.4f,%d,%d,%+d,%d,%d\n",
+					row.dimension(), row.value(), row.applications(), row.baselineApproved(),
+					row.candidateApproved(), baselineRate, candidateRate, candidateRate - baselineRate,
+					row.baselineAmount(), row.candidateAmount(), row.candidateAmount() - row.baselineAmount(),
+					row.newlyApproved(), row.newlyRejected()));
+		}
+	}
+
+	private Row sum(String dimension, String value, IntPredicate cells) {
+		long[] total = new long[METRICS];
+		for (int cell = 0; cell < CELLS; cell++) {
+			if (cells.test(cell)) {
+				for (int metric = 0; metric < METRICS; metric++) {
+					total[metric] += counts[cell * METRICS + metric];
+				}
+			}
+		}
+		return new Row(dimension, value, total[APPLICATIONS], total[BASELINE_APPROVED], total[CANDIDATE_APPROVED],
+				total[BASELINE_AMOUNT], total[CANDIDATE_AMOUNT], total[NEWLY_APPROVED], total[NEWLY_REJECTED]);
+	}
+
+	private static void addIfPresent(List<Row> rows, Row row) {
+		if (row.applications() > 0) {
+			rows.add(row);
+		}
+	}
+
+	private static int segmentOf(int cell) {
+		return cell / AGE_BANDS.length / COUNTRY_COUNT;
+	}
+
+	private static int countryOf(int cell) {
+		return cell / AGE_BANDS.length % COUNTRY_COUNT;
+	}
+
+	private static int ageBandOf(int cell) {
+		return cell % AGE_BANDS.length;
+	}
+
+	private static double rate(long count, long total) {
+		return total == 0 ? 0 : (double) count / total;
+	}
+}
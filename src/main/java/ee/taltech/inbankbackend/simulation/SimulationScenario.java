@@ -0,0 +1,102 @@
+package ee.taltech.inbankbackend.simulation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+import ee.taltech.inbankbackend.service.DecisionPolicy;
+
+/**
+ * A policy to simulate: a {@link DecisionPolicy} and the credit modifiers of the
+ * segments. Scenario files use the keys of a policy file, plus
+ * {@code credit-modifier.segment-1}...{@code credit-modifier.segment-3};
+ * missing keys keep their defaults.
+ *
+ * @param policy                  Loan, age and country limits
+ * @param segment1CreditModifier  Credit modifier of segment 1
+ * @param segment2CreditModifier  Credit modifier of segment 2
+ * @param segment3CreditModifier  Credit modifier of segment 3
+ */
+public record SimulationScenario(DecisionPolicy policy, int segment1CreditModifier, int segment2CreditModifier,
+		int segment3CreditModifier) {
+
+	private static final String SEGMENT_1_KEY = "credit-modifier.segment-1";
+	private static final String SEGMENT_2_KEY = "credit-modifier.segment-2";
+	private static final String SEGMENT_3_KEY = "credit-modifier.segment-3";
+
+	public SimulationScenario {
+		if (segment1CreditModifier <= 0 || segment2CreditModifier <= 0 || segment3CreditModifier <= 0) {
+			throw new IllegalArgumentException("Credit modifiers must be positive: " + segment1CreditModifier + ", "
+					+ segment2CreditModifier + ", " + segment3CreditModifier);
+		}
+	}
+
+	/**
+	 * @return The scenario of the running service: the default policy and the
+	 *         modifiers of {@link DecisionEngineConstants}
+	 */
+	public static SimulationScenario defaults() {
+		return new SimulationScenario(DecisionPolicy.defaults(), DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER,
+				DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER, DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER);
+	}
+
+	/**
+	 * @param file Properties file in UTF-8
+	 * @return The scenario in the file
+	 * @throws IOException              If the file cannot be read
+	 * @throws IllegalArgumentException If a key is unknown or a value invalid
+	 */
+	public static SimulationScenario load(Path file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		return fromProperties(properties);
+	}
+
+	/**
+	 * @param properties Policy and credit modifier keys and values
+	 * @return The scenario, with defaults for the missing keys
+	 * @throws IllegalArgumentException If a key is unknown or a value invalid
+	 */
+	public static SimulationScenario fromProperties(Properties properties) {
+		Properties policy = new Properties();
+		policy.putAll(properties);
+		int segment1 = creditModifier(policy, SEGMENT_1_KEY, DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER);
+		int segment2 = creditModifier(policy, SEGMENT_2_KEY, DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER);
+		int segment3 = creditModifier(policy, SEGMENT_3_KEY, DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER);
+		return new SimulationScenario(DecisionPolicy.fromProperties(policy), segment1, segment2, segment3);
+	}
+
+	/**
+	 * @param segment 0 for customers with debt, otherwise the credit segment
+	 *                1...3
+	 * @return Credit modifier of the segment
+	 */
+	public int creditModifier(int segment) {
+		return switch (segment) {
+		case 0 -> 0;
+		case 1 -> segment1CreditModifier;
+		case 2 -> segment2CreditModifier;
+		case 3 -> segment3CreditModifier;
+		default -> throw new IllegalArgumentException("Unknown segment: " + segment);
+		};
+	}
+
+	// Removes the key, so the rest can be read as a policy.
+	private static int creditModifier(Properties properties, String key, int defaultValue) {
+		Object value = properties.remove(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.toString().trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + key + ": " + value);
+		}
+	}
+}
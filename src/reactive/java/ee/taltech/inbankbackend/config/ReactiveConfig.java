@@ -0,0 +1,45 @@
+package ee.taltech.inbankbackend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs the application as a reactive web application on Netty, selected by the
+ * {@code reactive} profile. Only {@code POST /loan/decision} is served, see
+ * {@link ee.taltech.inbankbackend.endpoint.ReactiveDecisionController}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+	/**
+	 * Spring Boot would prefer Tomcat, which is on the classpath for the servlet
+	 * variant.
+	 *
+	 * @return Factory of the Netty web server
+	 */
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+
+	/**
+	 * Scheduler for the CPU work of decisions, so the Netty event loops only move
+	 * bytes. A thread count of 0 or less means one thread per available
+	 * processor, like the decision executor.
+	 *
+	 * @param threads Configured number of worker threads
+	 * @return Bounded scheduler of the reactive decision adapter
+	 */
+	@Bean(destroyMethod = "dispose")
+	public Scheduler decisionScheduler(@Value("${decision.executor.threads:0}") int threads) {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		return Schedulers.newParallel("decision-reactive", poolSize, true);
+	}
+}
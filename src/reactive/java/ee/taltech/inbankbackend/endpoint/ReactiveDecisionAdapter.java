@@ -0,0 +1,41 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Exposes the {@link DecisionEngine} to the reactive endpoint. The engine
+ * validates, decodes and scores on the calling thread, so every decision is
+ * started on a bounded scheduler instead of a Netty event loop; the credit
+ * lookup completes the decision wherever it finishes. Decisions go through the
+ * {@link DecisionReplayCache}, like those of the servlet endpoint.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDecisionAdapter {
+
+	private final DecisionReplayCache replayCache;
+	private final Scheduler scheduler;
+
+	public ReactiveDecisionAdapter(DecisionReplayCache replayCache, Scheduler decisionScheduler) {
+		this.replayCache = replayCache;
+		this.scheduler = decisionScheduler;
+	}
+
+	/**
+	 * @param request        Decision request
+	 * @param idempotencyKey Value of the Idempotency-Key header, may be null
+	 * @return Decision, or an error with the rejection exception if the loan is
+	 *         rejected
+	 */
+	public Mono<Decision> calculateApprovedLoan(DecisionRequest request, String idempotencyKey) {
+		// Replays are shared between requests, so a cancelled request must not cancel the decision.
+		return Mono.fromFuture(() -> replayCache.calculateApprovedLoanAsync(request, idempotencyKey), true)
+				.subscribeOn(scheduler);
+	}
+}
@@ -0,0 +1,48 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking variant of {@code POST /loan/decision}, served on Netty when
+ * the application runs with the {@code reactive} profile. Requests and
+ * responses are the same as those of {@link DecisionEngineController}.
+ */
+@RestController
+@RequestMapping("/loan")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDecisionController {
+
+	private final ReactiveDecisionAdapter decisionAdapter;
+
+	ReactiveDecisionController(ReactiveDecisionAdapter decisionAdapter) {
+		this.decisionAdapter = decisionAdapter;
+	}
+
+	/**
+	 * See {@link DecisionEngineController#requestDecision}.
+	 *
+	 * @param request        The request body containing the customer's personal
+	 *                       ID code, requested loan amount, and loan period
+	 * @param idempotencyKey Optional key identifying retries of the same request
+	 * @return A ResponseEntity with a DecisionResponse body containing the
+	 *         approved loan amount and period, and an error message (if any)
+	 */
+	@PostMapping("/decision")
+	public Mono<ResponseEntity<DecisionResponse>> requestDecision(@RequestBody DecisionRequest request,
+			@RequestHeader(value = DecisionReplayCache.IDEMPOTENCY_KEY_HEADER, required = false)
+			String idempotencyKey) {
+		return decisionAdapter.calculateApprovedLoan(request, idempotencyKey)
+				.map(decision -> DecisionEngineController.toResponseEntity(decision, null))
+				.onErrorResume(e -> Mono.just(DecisionEngineController.toResponseEntity(null, e)));
+	}
+}
@@ -0,0 +1,192 @@
+package ee.taltech.inbankbackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the servlet endpoint on Tomcat with the reactive endpoint on Netty
+ * (the {@code reactive} profile) at {@value #CONNECTIONS} concurrent
+ * connections: throughput, 99th percentile latency, and the heap, resident
+ * memory and threads the server needs per open connection.<br>
+ * <br>
+ * Each server runs in a process of its own, so its memory can be told apart
+ * from the client's. Every connection first sends one request that is not
+ * measured, so connection setup does not count towards the latency; the memory
+ * is measured after a GC while all connections are open and idle. Excluded
+ * from {@code gradle test}, run it with {@code gradle loadTest}.
+ */
+@Tag("load")
+class ReactiveDecisionLoadTest {
+
+	private static final int CONNECTIONS = 10_000;
+	private static final int REQUESTS_PER_CONNECTION = 5;
+	private static final int WARMUP_REQUESTS = 2000;
+	private static final int LATENCY_MS = 20;
+	private static final String REQUEST_BODY =
+			"{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":24,\"country\":\"Estonia\"}";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void givenManyConnections_whenRequestDecision_thenCompareServletAndReactive() throws Exception {
+		// Without an async timeout like the reactive endpoint, a queue of slow requests is not answered with 503.
+		Result servlet = measure("servlet", "--server.tomcat.max-connections=" + 2 * CONNECTIONS,
+				"--server.tomcat.accept-count=" + CONNECTIONS, "--spring.mvc.async.request-timeout=-1");
+		Result reactive = measure("reactive", "--spring.profiles.active=reactive");
+
+		System.out.printf("%d connections, %d ms credit data latency%n", CONNECTIONS, LATENCY_MS);
+		System.out.printf("%-9s %12s %9s %14s %13s %8s%n", "", "requests/s", "p99 ms", "heap KB/conn",
+				"RSS KB/conn", "threads");
+		for (Result result : List.of(servlet, reactive)) {
+			System.out.printf("%-9s %12.0f %9.1f %14.2f %13.2f %8d%n", result.name(), result.throughput(),
+					result.p99Millis(), result.heapBytesPerConnection() / 1024, result.rssBytesPerConnection() / 1024,
+					result.threads());
+		}
+	}
+
+	private Result measure(String name, String... arguments) throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		Path log = Files.createTempFile("decision-server-" + name, ".log");
+		List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java")
+				.toString(), "-Xmx1g", "-cp", System.getProperty("java.class.path"),
+				InbankBackendApplication.class.getName(), "--server.port=" + port,
+				"--decision.credit-data.latency-ms=" + LATENCY_MS));
+		command.addAll(Arrays.asList(arguments));
+		Process server = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			URI base = URI.create("http://localhost:" + port);
+			HttpClient monitor = HttpClient.newHttpClient();
+			awaitStartup(monitor, base, server, log);
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build();
+			HttpRequest request = HttpRequest.newBuilder(base.resolve("/loan/decision"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+					.build();
+
+			for (int i = 0; i < WARMUP_REQUESTS; i++) {
+				assertEquals(200, client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+			}
+			Memory idle = memory(monitor, base, server);
+			send(client, request, clients, 1, new long[CONNECTIONS]);
+			Memory connected = memory(monitor, base, server);
+
+			long[] latencies = new long[CONNECTIONS * REQUESTS_PER_CONNECTION];
+			long start = System.nanoTime();
+			send(client, request, clients, REQUESTS_PER_CONNECTION, latencies);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			Arrays.sort(latencies);
+			return new Result(name, latencies.length / seconds, latencies[latencies.length * 99 / 100] / 1e6,
+					(connected.heapBytes() - idle.heapBytes()) / (double) CONNECTIONS,
+					(connected.rssBytes() - idle.rssBytes()) / (double) CONNECTIONS, connected.threads());
+		} finally {
+			server.destroy();
+			server.waitFor(30, TimeUnit.SECONDS);
+			Files.deleteIfExists(log);
+		}
+	}
+
+	/**
+	 * Sends requests from {@value #CONNECTIONS} clients at once, each sending its
+	 * requests one after another.
+	 */
+	private static void send(HttpClient client, HttpRequest request, ExecutorService clients, int requestsPerClient,
+			long[] latencies) throws Exception {
+		List<Future<?>> done = new ArrayList<>(CONNECTIONS);
+		for (int c = 0; c < CONNECTIONS; c++) {
+			int offset = c * requestsPerClient;
+			done.add(clients.submit(() -> {
+				for (int i = 0; i < requestsPerClient; i++) {
+					long sent = System.nanoTime();
+					HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+					latencies[offset + i] = System.nanoTime() - sent;
+					assertEquals(200, response.statusCode());
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : done) {
+			future.get();
+		}
+	}
+
+	private static void awaitStartup(HttpClient monitor, URI base, Process server, Path log) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+		while (System.nanoTime() < deadline) {
+			assertTrue(server.isAlive(), () -> "Server exited: " + readLog(log));
+			try {
+				HttpRequest health = HttpRequest.newBuilder(base.resolve("/actuator/health")).build();
+				if (monitor.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+					return;
+				}
+			} catch (IOException e) {
+				// Not listening yet
+			}
+			Thread.sleep(200);
+		}
+		throw new AssertionError("Server did not start: " + readLog(log));
+	}
+
+	private Memory memory(HttpClient monitor, URI base, Process server) throws Exception {
+		Process gc = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "jcmd").toString(),
+				Long.toString(server.pid()), "GC.run").redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+		assertEquals(0, gc.waitFor());
+		long heap = (long) metric(monitor, base, "jvm.memory.used?tag=area:heap");
+		int threads = (int) metric(monitor, base, "jvm.threads.live");
+		long rss = 0;
+		for (String line : Files.readAllLines(Path.of("/proc", Long.toString(server.pid()), "status"))) {
+			if (line.startsWith("VmRSS:")) {
+				rss = Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+			}
+		}
+		return new Memory(heap, rss, threads);
+	}
+
+	private double metric(HttpClient monitor, URI base, String name) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(base.resolve("/actuator/metrics/" + name))
+				.timeout(Duration.ofSeconds(30))
+				.build();
+		JsonNode body = objectMapper.readTree(monitor.send(request, HttpResponse.BodyHandlers.ofString()).body());
+		return body.path("measurements").path(0).path("value").asDouble();
+	}
+
+	private static String readLog(Path log) {
+		try {
+			return Files.readString(log);
+		} catch (IOException e) {
+			return e.toString();
+		}
+	}
+
+	private record Memory(long heapBytes, long rssBytes, int threads) {
+	}
+
+	private record Result(String name, double throughput, double p99Millis, double heapBytesPerConnection,
+			double rssBytesPerConnection, int threads) {
+	}
+}
@@ -0,0 +1,68 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * The decision endpoint of the {@code reactive} profile, over HTTP on Netty.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveDecisionControllerTest {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private ReactiveWebServerApplicationContext context;
+
+	@Test
+	void testDecisionsAreServedOnNetty() {
+		assertInstanceOf(NettyWebServer.class, context.getWebServer());
+
+		post("{\"personalCode\":\"38411266610\",\"loanAmount\":4000,\"loanPeriod\":12,\"country\":\"Estonia\"}")
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.loanAmount").isEqualTo(3600)
+				.jsonPath("$.loanPeriod").isEqualTo(12)
+				.jsonPath("$.errorMessage").isEmpty();
+	}
+
+	@Test
+	void testRejectionsKeepTheStatusOfTheServletEndpoint() {
+		post("{\"personalCode\":\"12345678901\",\"loanAmount\":4000,\"loanPeriod\":12,\"country\":\"Estonia\"}")
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("$.errorMessage").isEqualTo("Invalid personal ID code!");
+		post("{\"personalCode\":\"37605030299\",\"loanAmount\":4000,\"loanPeriod\":12,\"country\":\"Estonia\"}")
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.errorMessage").isEqualTo("No valid loan found!");
+	}
+
+	@Test
+	void testOnlyTheDecisionEndpointIsServed() {
+		webTestClient.post()
+				.uri("/loan/decisions/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("[]")
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	private WebTestClient.ResponseSpec post(String body) {
+		return webTestClient.post()
+				.uri("/loan/decision")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(body)
+				.exchange();
+	}
+}
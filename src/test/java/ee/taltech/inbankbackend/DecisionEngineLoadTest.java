@@ -0,0 +1,85 @@
+package ee.taltech.inbankbackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the throughput of the decision endpoint in platform and virtual
+ * thread execution mode while every credit data lookup takes a while. As the
+ * endpoint does not hold a request thread during the lookup, neither mode may
+ * be limited by the size of the request thread pool. Excluded from
+ * {@code gradle test}, run it with {@code gradle loadTest}.
+ */
+@Tag("load")
+class DecisionEngineLoadTest {
+
+	private static final int LATENCY_MS = 200;
+	private static final int TOMCAT_THREADS = 10;
+	private static final int CONCURRENT_REQUESTS = 500;
+	private static final int WARMUP_REQUESTS = 100;
+	private static final String REQUEST_BODY =
+			"{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":24,\"country\":\"Estonia\"}";
+
+	@Test
+	void givenSlowCreditData_whenRequestDecision_thenThroughputIsNotLimitedByRequestThreads() throws Exception {
+		double platform = measureThroughput("platform");
+		double virtual = measureThroughput("virtual");
+
+		System.out.printf("Decisions per second with %d ms credit data latency: platform %.0f, virtual %.0f%n",
+				LATENCY_MS, platform, virtual);
+		// A thread blocked for every lookup would cap both at TOMCAT_THREADS requests per latency period.
+		double blockingLimit = TOMCAT_THREADS * 1000.0 / LATENCY_MS;
+		assertTrue(platform > 2 * blockingLimit, "platform mode should not be limited by the request thread pool");
+		assertTrue(virtual > 2 * blockingLimit, "virtual mode should not be limited by the request thread pool");
+	}
+
+	private static double measureThroughput(String mode) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(InbankBackendApplication.class)
+				.web(WebApplicationType.SERVLET)
+				.properties("server.port=0", "server.tomcat.threads.max=" + TOMCAT_THREADS,
+						"server.tomcat.accept-count=" + CONCURRENT_REQUESTS,
+						"decision.execution.mode=" + mode, "decision.credit-data.latency-ms=" + LATENCY_MS)
+				.run();
+				ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build();
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/loan/decision"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+					.build();
+
+			sendConcurrently(client, request, clients, WARMUP_REQUESTS);
+			long start = System.nanoTime();
+			sendConcurrently(client, request, clients, CONCURRENT_REQUESTS);
+			return CONCURRENT_REQUESTS / ((System.nanoTime() - start) / 1e9);
+		}
+	}
+
+	private static void sendConcurrently(HttpClient client, HttpRequest request, ExecutorService clients, int count)
+			throws Exception {
+		List<Future<HttpResponse<String>>> responses = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			responses.add(clients.submit(() -> client.send(request, HttpResponse.BodyHandlers.ofString())));
+		}
+		for (Future<HttpResponse<String>> response : responses) {
+			assertEquals(200, response.get().statusCode());
+		}
+	}
+}
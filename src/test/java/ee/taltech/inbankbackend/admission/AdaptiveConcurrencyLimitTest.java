@@ -0,0 +1,73 @@
+package ee.taltech.inbankbackend.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+	private static final long TARGET = 100;
+
+	private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 2, 6, TARGET, 0.5, 0);
+
+	@Test
+	void testRequestsBeyondTheLimitAreRefused() {
+		for (int i = 0; i < 4; i++) {
+			assertTrue(limit.tryAcquire());
+		}
+		assertFalse(limit.tryAcquire());
+		assertEquals(4, limit.getInFlight());
+
+		limit.release(0, 50, false);
+		assertTrue(limit.tryAcquire());
+	}
+
+	@Test
+	void testFastRequestsRaiseAUsedLimit() {
+		acquire(2);
+		limit.release(0, 50, false);
+		assertEquals(5, limit.getLimit());
+		// One request in flight of five is not enough use to grow.
+		limit.release(0, 50, false);
+		assertEquals(5, limit.getLimit());
+
+		acquire(5);
+		for (int i = 0; i < 5; i++) {
+			limit.release(0, 50, false);
+		}
+		assertEquals(6, limit.getLimit());
+	}
+
+	@Test
+	void testSlowPeriodDecreasesTheLimitOnce() {
+		acquire(4);
+		limit.release(10, 150, false);
+		assertEquals(2, limit.getLimit());
+		// Started before the decrease, so caught in the same slow period.
+		limit.release(20, 300, true);
+		assertEquals(2, limit.getLimit());
+		limit.release(20, 300, false);
+
+		// Never below the minimum
+		acquire(1);
+		limit.release(200, 400, true);
+		assertEquals(2, limit.getLimit());
+		assertEquals(1, limit.getInFlight());
+	}
+
+	@Test
+	void testInvalidLimitsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(1, 2, 6, TARGET, 0.5, 0));
+		assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(4, 0, 6, TARGET, 0.5, 0));
+		assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(4, 2, 6, TARGET, 1, 0));
+	}
+
+	private void acquire(int requests) {
+		for (int i = 0; i < requests; i++) {
+			assertTrue(limit.tryAcquire());
+		}
+	}
+}
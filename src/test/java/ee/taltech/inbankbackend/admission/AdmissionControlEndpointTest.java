@@ -0,0 +1,61 @@
+package ee.taltech.inbankbackend.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Admission control wired in front of the decision endpoint.
+ */
+@SpringBootTest(properties = { "decision.admission.enabled=true", "decision.admission.api-keys=partner",
+		"decision.admission.rate-per-second=0.001", "decision.admission.burst=1" })
+@AutoConfigureMockMvc
+class AdmissionControlEndpointTest {
+
+	private static final String REQUEST = """
+			{"personalCode":"38411266610","loanAmount":4000,"loanPeriod":12,"country":"Estonia"}""";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void testClientOverItsRateIsShedBeforeTheEndpoint() throws Exception {
+		mockMvc.perform(post("/loan/decision").header("X-API-Key", "partner")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(REQUEST)).andExpect(request().asyncStarted());
+		// Not even valid JSON, the request is shed before its body is read.
+		mockMvc.perform(post("/loan/decision").header("X-API-Key", "partner")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().exists("Retry-After"))
+				.andExpect(jsonPath("$.errorMessage").value("Too many requests"));
+		// Other endpoints are not limited.
+		mockMvc.perform(post("/loan/decisions/batch").header("X-API-Key", "partner")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[]")).andExpect(request().asyncStarted());
+
+		assertCount("admitted", 1);
+		assertCount("rate-limited", 1);
+	}
+
+	private void assertCount(String outcome, double count) {
+		assertEquals(count,
+				meterRegistry.get("decision.admission").tag("outcome", outcome).functionCounter().count());
+	}
+}
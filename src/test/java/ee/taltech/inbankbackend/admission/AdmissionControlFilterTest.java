@@ -0,0 +1,146 @@
+package ee.taltech.inbankbackend.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class AdmissionControlFilterTest {
+
+	private static final long LATENCY_TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final AtomicLong nanoTime = new AtomicLong();
+	private AdaptiveConcurrencyLimit concurrencyLimit;
+	private AdmissionControlFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		concurrencyLimit = new AdaptiveConcurrencyLimit(2, 1, 10, LATENCY_TARGET, 0.5, nanoTime.get());
+		// One request per second, two at once
+		filter = new AdmissionControlFilter("X-API-Key", Set.of("partner", "other", "a", "b", "c"),
+				new ClientRateLimiter(1, 2, 100), concurrencyLimit, nanoTime::get, bytes("{\"errorMessage\":\"Too many requests\"}"),
+				bytes("{\"errorMessage\":\"Service overloaded\"}"));
+	}
+
+	@Test
+	void testClientsOverTheirRateGetTooManyRequests() throws Exception {
+		assertEquals(200, perform("partner", false).getStatus());
+		assertEquals(200, perform("partner", false).getStatus());
+
+		MockHttpServletResponse shed = perform("partner", false);
+		assertEquals(429, shed.getStatus());
+		assertEquals("1", shed.getHeader("Retry-After"));
+		assertEquals("{\"errorMessage\":\"Too many requests\"}", shed.getContentAsString());
+
+		// Other clients and clients without a key are not affected.
+		assertEquals(200, perform("other", false).getStatus());
+		assertEquals(200, perform((String) null, false).getStatus());
+		assertEquals(4, filter.getAdmittedCount());
+		assertEquals(1, filter.getRateLimitedCount());
+	}
+
+	@Test
+	void testUnknownKeysAreLimitedByAddress() throws Exception {
+		assertEquals(200, perform("random-1", false).getStatus());
+		assertEquals(200, perform("random-2", false).getStatus());
+		// A new key does not refill the bucket of the address.
+		assertEquals(429, perform("random-3", false).getStatus());
+		assertEquals(429, perform((String) null, false).getStatus());
+
+		assertEquals(200, perform("partner", false).getStatus());
+		assertEquals(3, filter.getAdmittedCount());
+		assertEquals(2, filter.getRateLimitedCount());
+	}
+
+	@Test
+	void testAsynchronousRequestsHoldTheirPlaceUntilComplete() throws Exception {
+		MockHttpServletRequest first = request("a");
+		perform(first, true);
+		perform(request("b"), true);
+
+		MockHttpServletResponse shed = perform("c", false);
+		assertEquals(503, shed.getStatus());
+		assertEquals("{\"errorMessage\":\"Service overloaded\"}", shed.getContentAsString());
+		assertEquals(1, filter.getOverloadedCount());
+
+		nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+		first.getAsyncContext().complete();
+		assertEquals(1, concurrencyLimit.getInFlight());
+		// Fast and at full use, so the limit grows
+		assertEquals(3, concurrencyLimit.getLimit());
+		assertEquals(200, perform("c", false).getStatus());
+	}
+
+	@Test
+	void testFailedAndSlowRequestsLowerTheLimit() throws Exception {
+		MockFilterChain failing = new MockFilterChain(new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest request, HttpServletResponse response)
+					throws ServletException {
+				throw new ServletException("Failed");
+			}
+		});
+		assertThrows(ServletException.class,
+				() -> filter.doFilter(request("a"), new MockHttpServletResponse(), failing));
+		assertEquals(0, concurrencyLimit.getInFlight());
+		assertEquals(1, concurrencyLimit.getLimit());
+
+		nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+		MockHttpServletRequest slow = request("b");
+		perform(slow, true);
+		assertEquals(503, perform("c", false).getStatus());
+		nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+		slow.getAsyncContext().complete();
+		// Already at the minimum
+		assertEquals(1, concurrencyLimit.getLimit());
+		assertEquals(0, concurrencyLimit.getInFlight());
+	}
+
+	private MockHttpServletResponse perform(String client, boolean async) throws Exception {
+		return perform(request(client), async);
+	}
+
+	private MockHttpServletResponse perform(MockHttpServletRequest request, boolean async) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+				if (async) {
+					req.startAsync();
+				} else {
+					resp.getWriter().write("{}");
+				}
+			}
+		}));
+		assertEquals(async, request.isAsyncStarted());
+		return response;
+	}
+
+	private static MockHttpServletRequest request(String client) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/loan/decision");
+		request.setAsyncSupported(true);
+		if (client != null) {
+			request.addHeader("X-API-Key", client);
+		}
+		return request;
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,93 @@
+package ee.taltech.inbankbackend.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ClientRateLimiterTest {
+
+	private static final long NOW = TimeUnit.SECONDS.toNanos(1);
+
+	// 10 requests per second, 5 at once
+	private final ClientRateLimiter rateLimiter = new ClientRateLimiter(10, 5, 1000);
+
+	@Test
+	void testBurstIsAdmittedThenTheRate() {
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, rateLimiter.tryAcquire("partner", NOW));
+		}
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.tryAcquire("partner", NOW));
+
+		long later = NOW + TimeUnit.MILLISECONDS.toNanos(100);
+		assertEquals(0, rateLimiter.tryAcquire("partner", later));
+		assertTrue(rateLimiter.tryAcquire("partner", later) > 0);
+
+		// An idle bucket fills up to the burst, never beyond.
+		long idle = later + TimeUnit.SECONDS.toNanos(10);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, rateLimiter.tryAcquire("partner", idle));
+		}
+		assertTrue(rateLimiter.tryAcquire("partner", idle) > 0);
+	}
+
+	@Test
+	void testClientsHaveTheirOwnBuckets() {
+		for (int i = 0; i < 5; i++) {
+			rateLimiter.tryAcquire("partner", NOW);
+		}
+		assertTrue(rateLimiter.tryAcquire("partner", NOW) > 0);
+		assertEquals(0, rateLimiter.tryAcquire("other", NOW));
+		assertEquals(2, rateLimiter.getClientCount());
+	}
+
+	@Test
+	void testFullBucketsAreDroppedFirst() {
+		ClientRateLimiter limiter = new ClientRateLimiter(10, 5, 10);
+		for (int i = 0; i < 5; i++) {
+			limiter.tryAcquire("partner", NOW);
+		}
+		for (int i = 0; i < 9; i++) {
+			limiter.tryAcquire("client-" + i, NOW);
+		}
+		assertEquals(10, limiter.getClientCount());
+
+		// The single tokens of the other clients are back by then, the partner got one of five back.
+		long later = NOW + TimeUnit.MILLISECONDS.toNanos(100);
+		limiter.tryAcquire("new", later);
+		assertEquals(2, limiter.getClientCount());
+		assertEquals(0, limiter.tryAcquire("partner", later));
+		assertTrue(limiter.tryAcquire("partner", later) > 0);
+	}
+
+	@Test
+	void testConcurrentClientsTakeEveryTokenOnce() throws InterruptedException {
+		ClientRateLimiter limiter = new ClientRateLimiter(1, 1000, 10);
+		AtomicLong admitted = new AtomicLong();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 500; i++) {
+					if (limiter.tryAcquire("partner", NOW) == 0) {
+						admitted.incrementAndGet();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1000, admitted.get());
+	}
+
+	@Test
+	void testInvalidRatesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new ClientRateLimiter(0, 5, 1000));
+		assertThrows(IllegalArgumentException.class, () -> new ClientRateLimiter(10, 0, 1000));
+	}
+}
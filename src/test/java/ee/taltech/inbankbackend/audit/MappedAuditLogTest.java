@@ -0,0 +1,277 @@
+package ee.taltech.inbankbackend.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
+import ee.taltech.inbankbackend.service.Country;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionAuditLog;
+
+class MappedAuditLogTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testAppendedDecisionsAreReadBack() throws IOException {
+		try (MappedAuditLog auditLog = new MappedAuditLog(directory, 1024 * 1024, 16, 1, 0)) {
+			auditLog.append(1000, 42, "38411266610", 4000L, 12, Country.ESTONIA, new Decision(3600, 12, null));
+			auditLog.append(2000, 42, "261184-16665", 2000L, 24, Country.LATVIA,
+					Decision.rejected(RejectionReason.NO_VALID_LOAN));
+			auditLog.append(3000, 43, null, null, 0, null, Decision.rejected(RejectionReason.INVALID_COUNTRY));
+		}
+
+		assertEquals(List.of(
+				new AuditRecord(1000, 42, "38411266610", Country.ESTONIA, 4000L, 12, 3600, 12, null),
+				new AuditRecord(2000, 42, "261184-16665", Country.LATVIA, 2000L, 24, null, null,
+						RejectionReason.NO_VALID_LOAN),
+				new AuditRecord(3000, 43, null, null, null, 0, null, null, RejectionReason.INVALID_COUNTRY)),
+				readAll());
+	}
+
+	@Test
+	void testFullSegmentsRollOver() throws IOException {
+		// Room for three records per segment
+		long segmentBytes = MappedAuditLog.HEADER_SIZE + 3 * AuditRecord.SIZE;
+		try (MappedAuditLog auditLog = new MappedAuditLog(directory, segmentBytes, 16, 0, 0)) {
+			for (int i = 1; i <= 7; i++) {
+				appendAndWait(auditLog, i);
+			}
+			assertEquals(7, auditLog.getWrittenCount());
+		}
+
+		List<Path> segments = AuditLogReader.segments(directory);
+		assertEquals(3, segments.size());
+		assertEquals(List.of(0L, 1L, 2L), segments.stream().map(MappedAuditLog::segmentIndex).toList());
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L),
+				readAll().stream().map(AuditRecord::timestampMillis).toList());
+
+		// A restart continues in a new segment
+		try (MappedAuditLog auditLog = new MappedAuditLog(directory, segmentBytes, 16, 0, 0)) {
+			appendAndWait(auditLog, 8);
+		}
+		assertEquals(4, AuditLogReader.segments(directory).size());
+		assertEquals(8, readAll().size());
+	}
+
+	@Test
+	void testFailedRolloverIsRetriedAndReported() throws IOException {
+		long segmentBytes = MappedAuditLog.HEADER_SIZE + 2 * AuditRecord.SIZE;
+		try (MappedAuditLog auditLog = new MappedAuditLog(directory, segmentBytes, 16, 0, 0)) {
+			// Takes the name of the second segment, so it cannot be created.
+			Path blocker = Files.createDirectory(directory.resolve("decisions-000000000001.audit"));
+			HealthIndicator health = new AuditLogHealthIndicator(auditLog);
+			appendAndWait(auditLog, 1);
+			appendAndWait(auditLog, 2);
+			append(auditLog, 3);
+			await(() -> auditLog.getFailure() != null);
+			assertEquals(Status.DOWN, health.health().getStatus());
+			assertEquals(2, auditLog.getWrittenCount());
+
+			Files.delete(blocker);
+			await(() -> auditLog.getWrittenCount() == 3 && auditLog.getFailure() == null);
+			assertEquals(Status.UP, health.health().getStatus());
+			assertEquals(0, auditLog.getDroppedCount());
+		}
+		assertEquals(List.of(1L, 2L, 3L), readAll().stream().map(AuditRecord::timestampMillis).toList());
+	}
+
+	@Test
+	void testRecordsLeftByAFailedWriterAreCountedAsDropped() throws IOException {
+		long segmentBytes = MappedAuditLog.HEADER_SIZE + AuditRecord.SIZE;
+		MappedAuditLog auditLog = new MappedAuditLog(directory, segmentBytes, 16, 0, 0);
+		Files.createDirectory(directory.resolve("decisions-000000000001.audit"));
+		appendAndWait(auditLog, 1);
+		append(auditLog, 2);
+		append(auditLog, 3);
+		await(() -> auditLog.getFailure() != null);
+		auditLog.close();
+
+		assertEquals(1, auditLog.getWrittenCount());
+		assertEquals(2, auditLog.getDroppedCount());
+	}
+
+	@Test
+	void testFaultingSegmentStoreIsRetriedAndReported() throws IOException {
+		FaultingRingBuffer ringBuffer = new FaultingRingBuffer();
+		try (MappedAuditLog auditLog = new MappedAuditLog(directory, 1024 * 1024, ringBuffer, 0, 0)) {
+			HealthIndicator health = new AuditLogHealthIndicator(auditLog);
+			appendAndWait(auditLog, 1);
+			ringBuffer.fault = new InternalError("a fault occurred in an unsafe memory access operation");
+			append(auditLog, 2);
+			await(() -> auditLog.getFailure() instanceof InternalError);
+			assertEquals(Status.DOWN, health.health().getStatus());
+			assertEquals(1, auditLog.getWrittenCount());
+
+			ringBuffer.fault = null;
+			await(() -> auditLog.getWrittenCount() == 2 && auditLog.getFailure() == null);
+			assertEquals(Status.UP, health.health().getStatus());
+			assertEquals(0, auditLog.getDroppedCount());
+		}
+		assertEquals(List.of(1L, 2L), readAll().stream().map(AuditRecord::timestampMillis).toList());
+	}
+
+	@Test
+	void testWriterStoppedByAnErrorReportsAndDrops() throws IOException {
+		FaultingRingBuffer ringBuffer = new FaultingRingBuffer();
+		MappedAuditLog auditLog = new MappedAuditLog(directory, 1024 * 1024, ringBuffer, 0, 0);
+		HealthIndicator health = new AuditLogHealthIndicator(auditLog);
+		appendAndWait(auditLog, 1);
+		ringBuffer.fault = new StackOverflowError();
+		append(auditLog, 2);
+		await(() -> auditLog.getDroppedCount() == 1);
+		assertTrue(auditLog.getFailure() instanceof StackOverflowError);
+		assertEquals(Status.DOWN, health.health().getStatus());
+
+		// Nothing writes the buffer any more.
+		append(auditLog, 3);
+		assertEquals(2, auditLog.getDroppedCount());
+		auditLog.close();
+		assertEquals(1, auditLog.getWrittenCount());
+	}
+
+	@Test
+	void testDisabledAuditLogIsHealthy() {
+		assertEquals(Status.UP, new AuditLogHealthIndicator(DecisionAuditLog.DISABLED).health().getStatus());
+	}
+
+	@Test
+	void testFullBufferDropsInsteadOfBlocking() {
+		AuditRingBuffer ringBuffer = new AuditRingBuffer(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(ringBuffer.offer(i + 1, 4000, 1, 12, -1, -1, 0, 0, "38411266610"));
+		}
+		assertFalse(ringBuffer.offer(5, 4000, 1, 12, -1, -1, 0, 0, "38411266610"));
+
+		ByteBuffer buffer = ByteBuffer.allocate(AuditRecord.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		CRC32C checksum = new CRC32C();
+		assertTrue(ringBuffer.poll(buffer, 0, checksum));
+		assertEquals(1, AuditRecord.read(buffer, 0).timestampMillis());
+		assertTrue(ringBuffer.offer(5, 4000, 1, 12, -1, -1, 0, 0, "38411266610"));
+		for (int i = 2; i <= 5; i++) {
+			assertTrue(ringBuffer.poll(buffer, 0, checksum));
+			assertEquals(i, AuditRecord.read(buffer, 0).timestampMillis());
+		}
+		assertFalse(ringBuffer.poll(buffer, 0, checksum));
+		assertTrue(ringBuffer.isEmpty());
+	}
+
+	@Test
+	void testTornRecordsAreSkipped() throws IOException {
+		try (MappedAuditLog auditLog = new MappedAuditLog(directory, 1024 * 1024, 16, 0, 0)) {
+			appendAndWait(auditLog, 1);
+			appendAndWait(auditLog, 2);
+		}
+		try (FileChannel channel = FileChannel.open(AuditLogReader.segments(directory).get(0),
+				StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 99 }), MappedAuditLog.HEADER_SIZE + 20);
+		}
+
+		List<AuditRecord> records = new ArrayList<>();
+		assertEquals(1, AuditLogReader.read(directory, records::add));
+		assertEquals(List.of(2L), records.stream().map(AuditRecord::timestampMillis).toList());
+	}
+
+	@Test
+	void testRecordsAreExportedAsCsvAndJson() throws IOException {
+		try (MappedAuditLog auditLog = new MappedAuditLog(directory, 1024 * 1024, 16, 0, 0)) {
+			auditLog.append(1000, 42, "38411266610", 4000L, 12, Country.ESTONIA, new Decision(3600, 12, null));
+			auditLog.append(2000, 42, "a,\"b", null, 12, null, Decision.rejected(RejectionReason.INVALID_COUNTRY));
+		}
+
+		StringWriter csv = new StringWriter();
+		assertEquals(0, AuditLogReader.export(directory, "csv", csv));
+		assertEquals("""
+				timestamp,policyVersion,personalCode,country,loanAmount,loanPeriod,approvedLoanAmount,\
+				approvedLoanPeriod,rejectionReason
+				1000,42,38411266610,Estonia,4000,12,3600,12,
+				2000,42,"a,""b",,,12,,,INVALID_COUNTRY
+				""", csv.toString());
+
+		StringWriter json = new StringWriter();
+		AuditLogReader.export(directory, "json", json);
+		assertEquals("""
+				{"timestamp":1000,"policyVersion":42,"personalCode":"38411266610","country":"Estonia",\
+				"loanAmount":4000,"loanPeriod":12,"approvedLoanAmount":3600,"approvedLoanPeriod":12,\
+				"rejectionReason":null}
+				{"timestamp":2000,"policyVersion":42,"personalCode":"a,\\"b","country":null,"loanAmount":null,\
+				"loanPeriod":12,"approvedLoanAmount":null,"approvedLoanPeriod":null,\
+				"rejectionReason":"INVALID_COUNTRY"}
+				""", json.toString());
+
+		assertThrows(IllegalArgumentException.class, () -> AuditLogReader.export(directory, "xml", json));
+	}
+
+	private static void appendAndWait(MappedAuditLog auditLog, long timestampMillis) {
+		long written = auditLog.getWrittenCount();
+		append(auditLog, timestampMillis);
+		await(() -> auditLog.getWrittenCount() > written);
+	}
+
+	private static void append(MappedAuditLog auditLog, long timestampMillis) {
+		auditLog.append(timestampMillis, 1, "38411266610", 4000L, 12, Country.ESTONIA,
+				Decision.rejected(RejectionReason.NO_VALID_LOAN));
+	}
+
+	/**
+	 * Waits for the writer thread, failing the test rather than hanging it.
+	 */
+	private static void await(BooleanSupplier condition) {
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			while (!condition.getAsBoolean()) {
+				Thread.sleep(1);
+			}
+		});
+	}
+
+	private List<AuditRecord> readAll() throws IOException {
+		List<AuditRecord> records = new ArrayList<>();
+		assertEquals(0, AuditLogReader.read(directory, records::add));
+		return records;
+	}
+
+	/**
+	 * Throws {@link #fault} from every poll while it is set, like a store into a
+	 * mapped segment that the file system cannot back.
+	 */
+	private static class FaultingRingBuffer extends AuditRingBuffer {
+
+		volatile Error fault;
+
+		FaultingRingBuffer() {
+			super(16);
+		}
+
+		@Override
+		boolean poll(ByteBuffer buffer, int offset, CRC32C checksum) {
+			Error error = fault;
+			if (error != null) {
+				throw error;
+			}
+			return super.poll(buffer, offset, checksum);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package ee.taltech.inbankbackend.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.ReflectionHintsPredicates;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import ee.taltech.inbankbackend.endpoint.DecisionRequest;
+import ee.taltech.inbankbackend.endpoint.DecisionResponse;
+import ee.taltech.inbankbackend.service.DecisionTrace;
+
+class DecisionRuntimeHintsTest {
+
+	private final ReflectionHintsPredicates reflection = RuntimeHintsPredicates.reflection();
+	private final RuntimeHints hints = new RuntimeHints();
+
+	@BeforeEach
+	void setUp() {
+		new DecisionRuntimeHints().registerHints(hints, getClass().getClassLoader());
+	}
+
+	@Test
+	void testRequestCanBeRead() throws NoSuchMethodException {
+		assertTrue(reflection.onConstructor(DecisionRequest.class.getConstructor()).test(hints));
+		assertTrue(reflection.onMethod(DecisionRequest.class, "getPersonalCode").test(hints));
+		assertTrue(reflection.onField(DecisionRequest.class, "loanAmount").test(hints));
+	}
+
+	@Test
+	void testResponsesCanBeWritten() {
+		assertTrue(reflection.onMethod(DecisionResponse.class, "getLoanAmount").test(hints));
+		assertTrue(reflection.onMethod(DecisionResponse.class, "getErrorMessage").test(hints));
+		assertTrue(reflection.onMethod(DecisionTrace.class, "getChecks").test(hints));
+		assertTrue(reflection.onMethod(DecisionTrace.Check.class, "passed").test(hints));
+	}
+
+	@Test
+	void testRegisteredWithTheDecisionEngine() {
+		ImportRuntimeHints imported = DecisionEngineConfig.class.getAnnotation(ImportRuntimeHints.class);
+		assertTrue(imported != null && imported.value()[0] == DecisionRuntimeHints.class);
+	}
+}
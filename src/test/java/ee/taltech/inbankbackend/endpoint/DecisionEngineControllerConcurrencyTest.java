@@ -0,0 +1,96 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+
+/**
+ * Fires thousands of concurrent decisions at a running server and checks that
+ * every response belongs to its own request.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class DecisionEngineControllerConcurrencyTest {
+
+	private static final int THREADS = 64;
+	private static final int REQUESTS = 4000;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@MockBean
+	private DecisionEngine decisionEngine;
+
+	@Test
+	void givenConcurrentRequests_whenRequestDecision_thenEveryResponseMatchesItsRequest() throws Throwable {
+		// Echo the request into the decision, rejecting every fifth one, so any mix-up shows.
+		when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), anyString()))
+				.thenAnswer(invocation -> {
+					long loanAmount = invocation.getArgument(1);
+					if (loanAmount % 5 == 0) {
+						return CompletableFuture.failedFuture(new NoValidLoanException("No valid loan found!"));
+					}
+					return CompletableFuture.completedFuture(
+							new Decision((int) loanAmount, invocation.getArgument(2), null));
+				});
+
+		ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> results = new ArrayList<>();
+		for (int i = 0; i < REQUESTS; i++) {
+			long loanAmount = 2000 + i;
+			int loanPeriod = 12 + i % 49;
+			results.add(clients.submit((Callable<Void>) () -> {
+				start.await();
+				DecisionRequest request = new DecisionRequest("code" + loanAmount, loanAmount, loanPeriod, "Estonia");
+				ResponseEntity<DecisionResponse> response = restTemplate.postForEntity("/loan/decision", request,
+						DecisionResponse.class);
+
+				if (loanAmount % 5 == 0) {
+					assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+					assertNull(response.getBody().getLoanAmount());
+					assertEquals("No valid loan found!", response.getBody().getErrorMessage());
+				} else {
+					assertEquals(HttpStatus.OK, response.getStatusCode());
+					assertEquals((int) loanAmount, response.getBody().getLoanAmount());
+					assertEquals(loanPeriod, response.getBody().getLoanPeriod());
+					assertNull(response.getBody().getErrorMessage());
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		try {
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+}
@@ -1,15 +1,22 @@
 package ee.taltech.inbankbackend.endpoint;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,7 +29,10 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import ee.taltech.inbankbackend.exceptions.InvalidCountryException;
@@ -31,8 +41,10 @@ import ee.taltech.inbankbackend.exceptions.InvalidLoanAmountException;
 import ee.taltech.inbankbackend.exceptions.InvalidLoanPeriodException;
 import ee.taltech.inbankbackend.exceptions.InvalidPersonalCodeException;
 import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
 import ee.taltech.inbankbackend.service.Decision;
 import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionTrace;
 
 /**
  * This class holds integration tests for the DecisionEngineController endpoint.
@@ -56,6 +68,15 @@ public class DecisionEngineControllerTest {
 		objectMapper = new ObjectMapper();
 	}
 
+	/**
+	 * Performs a request to an endpoint that completes asynchronously and
+	 * dispatches its result.
+	 */
+	private ResultActions performAsync(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+		MvcResult started = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+		return mockMvc.perform(asyncDispatch(started));
+	}
+
 	/**
 	 * This method tests the /loan/decision endpoint with valid inputs.
 	 */
@@ -64,12 +85,12 @@ public class DecisionEngineControllerTest {
 			throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
 			InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
 		Decision decision = new Decision(1000, 12, null);
-		when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), anyString())).thenReturn(decision);
+		when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(decision));
 
 		DecisionRequest request = new DecisionRequest("1234", 10L, 10, "Estonia");
 
-		MvcResult result = mockMvc
-				.perform(post("/loan/decision").content(objectMapper.writeValueAsString(request))
+		MvcResult result = performAsync(post("/loan/decision").content(objectMapper.writeValueAsString(request))
 						.contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
 				.andExpect(jsonPath("$.loanAmount").value(1000)).andExpect(jsonPath("$.loanPeriod").value(12))
@@ -82,6 +103,27 @@ public class DecisionEngineControllerTest {
 		assert response.getErrorMessage() == null;
 	}
 
+	/**
+	 * This method tests the /loan/decision/explain endpoint, which answers with
+	 * the decision and its trace.
+	 */
+	@Test
+	public void givenValidRequest_whenExplainDecision_thenReturnsDecisionAndTrace() throws Exception {
+		when(decisionEngine.explainAsync(anyString(), anyLong(), anyInt(), anyString(), any(DecisionTrace.class)))
+				.thenReturn(CompletableFuture.completedFuture(Decision.rejected(RejectionReason.NO_VALID_LOAN)));
+
+		DecisionRequest request = new DecisionRequest("1234", 10L, 10, "Estonia");
+
+		performAsync(post("/loan/decision/explain").content(objectMapper.writeValueAsString(request))
+						.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.decision.loanAmount").isEmpty())
+				.andExpect(jsonPath("$.decision.errorMessage").value(RejectionReason.NO_VALID_LOAN.getMessage()))
+				.andExpect(jsonPath("$.trace.checks").isArray())
+				.andExpect(jsonPath("$.trace.scoreEvaluations").isArray())
+				.andExpect(jsonPath("$.trace.periodSearch").isArray());
+	}
+
 	/**
      * This test ensures that if an invalid personal code is provided, the controller returns
      * an HTTP Bad Request (400) response with the appropriate error message in the response body.
@@ -90,12 +132,12 @@ public class DecisionEngineControllerTest {
     public void givenInvalidPersonalCode_whenRequestDecision_thenReturnsBadRequest()
             throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
             InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), anyString()))
-                .thenThrow(new InvalidPersonalCodeException("Invalid personal code"));
+        when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new InvalidPersonalCodeException("Invalid personal code")));
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, "Estonia");
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = performAsync(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
@@ -119,12 +161,12 @@ public class DecisionEngineControllerTest {
     public void givenInvalidLoanAmount_whenRequestDecision_thenReturnsBadRequest()
             throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
             InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), anyString()))
-                .thenThrow(new InvalidLoanAmountException("Invalid loan amount"));
+        when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new InvalidLoanAmountException("Invalid loan amount")));
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, "Estonia");
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = performAsync(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
@@ -148,12 +190,12 @@ public class DecisionEngineControllerTest {
     public void givenInvalidLoanPeriod_whenRequestDecision_thenReturnsBadRequest()
             throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
             InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), anyString()))
-                .thenThrow(new InvalidLoanPeriodException("Invalid loan period"));
+        when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new InvalidLoanPeriodException("Invalid loan period")));
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, "Estonia");
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = performAsync(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
@@ -177,12 +219,12 @@ public class DecisionEngineControllerTest {
     public void givenNoValidLoan_whenRequestDecision_thenReturnsBadRequest()
             throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
             InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), anyString()))
-                .thenThrow(new NoValidLoanException("No valid loan available"));
+        when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new NoValidLoanException("No valid loan available")));
 
         DecisionRequest request = new DecisionRequest("1234", 1000L, 12, "Estonia");
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = performAsync(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
@@ -206,11 +248,11 @@ public class DecisionEngineControllerTest {
     public void givenUnexpectedError_whenRequestDecision_thenReturnsInternalServerError()
             throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
             InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), anyString())).thenThrow(new RuntimeException());
+        when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), anyString())).thenThrow(new RuntimeException());
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, "Estonia");
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = performAsync(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError())
@@ -234,12 +276,12 @@ public class DecisionEngineControllerTest {
 	public void givenInvalidCountry_whenRequestDecision_thenReturnsBadRequest()
             throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
             InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), eq("Brasil")))
-                .thenThrow(new InvalidCountryException("Invalid Country!"));
+        when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), eq("Brasil")))
+                .thenReturn(CompletableFuture.failedFuture(new InvalidCountryException("Invalid Country!")));
 
         DecisionRequest request = new DecisionRequest("1234", 1000L, 12, "Brasil");
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = performAsync(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
@@ -263,13 +305,12 @@ public class DecisionEngineControllerTest {
 			throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
 			InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
 		Decision decision = new Decision(1000, 12, null);
-		when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), eq("Estonia")))
-				.thenReturn(decision);
+		when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), eq("Estonia")))
+				.thenReturn(CompletableFuture.completedFuture(decision));
 
 		DecisionRequest request = new DecisionRequest("1234", 1000L, 12, "Estonia");
 
-		MvcResult result = mockMvc
-				.perform(post("/loan/decision").content(objectMapper.writeValueAsString(request))
+		MvcResult result = performAsync(post("/loan/decision").content(objectMapper.writeValueAsString(request))
 						.contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
 				.andExpect(jsonPath("$.loanAmount").value(1000)).andExpect(jsonPath("$.loanPeriod").value(12))
@@ -291,12 +332,12 @@ public class DecisionEngineControllerTest {
 	public void givenInvalidAge_whenRequestDecision_thenReturnsBadRequest()
             throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
             InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), anyString()))
-                .thenThrow(new InvalidCountryException("Invalid age for loan!"));
+        when(decisionEngine.calculateApprovedLoanAsync(anyString(), anyLong(), anyInt(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new InvalidCountryException("Invalid age for loan!")));
 
         DecisionRequest request = new DecisionRequest("60605206610", 1000L, 12, "Estonia");
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = performAsync(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
@@ -311,4 +352,63 @@ public class DecisionEngineControllerTest {
         assert response.getLoanPeriod() == null;
         assert response.getErrorMessage().equals("Invalid age for loan!");
     }
+
+	/**
+	 * This test ensures that the batch endpoint returns one response per request
+	 * in request order, and that an invalid request does not fail the others.
+	 */
+	@Test
+	public void givenMixedBatch_whenRequestDecisions_thenReturnsResponsePerRequest() throws Exception {
+		when(decisionEngine.evaluateAsync(eq("valid"), anyLong(), anyInt(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(new Decision(3600, 12, null)));
+		when(decisionEngine.evaluateAsync(eq("invalid"), anyLong(), anyInt(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(Decision.rejected(RejectionReason.INVALID_PERSONAL_CODE)));
+		when(decisionEngine.evaluateAsync(eq("debtor"), anyLong(), anyInt(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(Decision.rejected(RejectionReason.NO_VALID_LOAN)));
+
+		List<DecisionRequest> requests = List.of(new DecisionRequest("valid", 4000L, 12, "Estonia"),
+				new DecisionRequest("invalid", 4000L, 12, "Estonia"),
+				new DecisionRequest("debtor", 4000L, 12, "Estonia"));
+
+		performAsync(post("/loan/decisions/batch").content(objectMapper.writeValueAsString(requests))
+				.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.length()").value(3))
+				.andExpect(jsonPath("$[0].loanAmount").value(3600))
+				.andExpect(jsonPath("$[0].loanPeriod").value(12))
+				.andExpect(jsonPath("$[0].errorMessage").isEmpty())
+				.andExpect(jsonPath("$[1].loanAmount").isEmpty())
+				.andExpect(jsonPath("$[1].errorMessage").value("Invalid personal ID code!"))
+				.andExpect(jsonPath("$[2].loanAmount").isEmpty())
+				.andExpect(jsonPath("$[2].errorMessage").value("No valid loan found!"));
+	}
+
+	/**
+	 * This test ensures that a batch large enough to be split across workers keeps
+	 * every response at the position of its request.
+	 */
+	@Test
+	public void givenLargeBatch_whenRequestDecisions_thenPreservesRequestOrder() throws Exception {
+		when(decisionEngine.evaluateAsync(anyString(), anyLong(), anyInt(), anyString()))
+				.thenAnswer(invocation -> CompletableFuture.completedFuture(new Decision(
+						((Long) invocation.getArgument(1)).intValue(), invocation.getArgument(2), null)));
+
+		List<DecisionRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			requests.add(new DecisionRequest("code" + i, 2000L + i, 12 + i % 49, "Estonia"));
+		}
+
+		MvcResult result = performAsync(post("/loan/decisions/batch")
+				.content(objectMapper.writeValueAsString(requests)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andReturn();
+
+		List<DecisionResponse> responses = objectMapper.readValue(result.getResponse().getContentAsString(),
+				new TypeReference<List<DecisionResponse>>() {
+				});
+		assert responses.size() == requests.size();
+		for (int i = 0; i < requests.size(); i++) {
+			assert responses.get(i).getLoanAmount() == 2000 + i;
+			assert responses.get(i).getLoanPeriod() == 12 + i % 49;
+		}
+	}
 }
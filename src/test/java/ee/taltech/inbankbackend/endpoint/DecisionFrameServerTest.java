@@ -0,0 +1,137 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import ee.taltech.inbankbackend.service.BinarySearchLoanPeriodSolver;
+import ee.taltech.inbankbackend.service.CreditDataService;
+import ee.taltech.inbankbackend.service.CreditScoreCalculator;
+import ee.taltech.inbankbackend.service.DecisionAuditLog;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionMetrics;
+
+class DecisionFrameServerTest {
+
+	private DecisionFrameServer server;
+	private DecisionFrameClient client;
+
+	@BeforeEach
+	void setUp() throws InterruptedException {
+		CreditScoreCalculator creditScoreCalculator = new CreditScoreCalculator();
+		DecisionEngine decisionEngine = new DecisionEngine(new CreditDataService(), creditScoreCalculator,
+				new BinarySearchLoanPeriodSolver(creditScoreCalculator), true, DecisionMetrics.noop(),
+				Clock.fixed(Instant.parse("2023-03-20T12:00:00Z"), ZoneOffset.UTC), DecisionAuditLog.DISABLED);
+		// A small limit, so the pipelining test pauses reading
+		server = new DecisionFrameServer(decisionEngine, 0, 1, 16);
+		client = new DecisionFrameClient("localhost", server.getPort());
+	}
+
+	@AfterEach
+	void tearDown() {
+		client.close();
+		server.close();
+	}
+
+	@Test
+	void testResponsesMirrorTheRestEndpoint() {
+		ResponseEntity<DecisionResponse> approved = decide("38411266610", 4000L, 12, "Estonia");
+		assertEquals(200, approved.getStatusCode().value());
+		assertEquals(3600, approved.getBody().getLoanAmount());
+		assertEquals(12, approved.getBody().getLoanPeriod());
+		assertNull(approved.getBody().getErrorMessage());
+
+		ResponseEntity<DecisionResponse> invalid = decide("12345678901", 4000L, 12, "Estonia");
+		assertEquals(400, invalid.getStatusCode().value());
+		assertEquals("Invalid personal ID code!", invalid.getBody().getErrorMessage());
+		assertNull(invalid.getBody().getLoanAmount());
+
+		assertEquals(404, decide("37605030299", 4000L, 12, "Estonia").getStatusCode().value());
+		assertEquals(200, decide("261184-16665", 4000L, 12, "Latvia").getStatusCode().value());
+		assertEquals(400, decide("38411266610", 4000L, 12, null).getStatusCode().value());
+	}
+
+	@Test
+	void testPipelinedRequestsGetTheirOwnResponses() {
+		List<CompletableFuture<ResponseEntity<DecisionResponse>>> responses = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			// Segment 2 customers get 300 per month of the period
+			responses.add(client.decide(new DecisionRequest("38411266610", 2000L, 12 + i % 37, "Estonia")));
+		}
+		for (int i = 0; i < responses.size(); i++) {
+			DecisionResponse response = responses.get(i).join().getBody();
+			assertEquals(12 + i % 37, response.getLoanPeriod());
+			assertEquals(Math.min(10000, 300 * (12 + i % 37)), response.getLoanAmount());
+		}
+	}
+
+	@Test
+	void testMalformedFramesCloseTheConnection() throws IOException {
+		try (Socket socket = new Socket("localhost", server.getPort())) {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(DecisionFrames.MAX_PAYLOAD + 1);
+			out.write(new byte[DecisionFrames.MAX_PAYLOAD + 1]);
+			out.flush();
+			assertEquals(-1, readUntilClosed(socket.getInputStream()));
+		}
+		try (Socket socket = new Socket("localhost", server.getPort())) {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			// A personal code of 200 bytes in a frame of 30
+			out.writeInt(30);
+			out.write(new byte[20]);
+			out.writeByte(200);
+			out.write(new byte[9]);
+			out.flush();
+			assertEquals(-1, readUntilClosed(socket.getInputStream()));
+		}
+		// Other connections are not affected.
+		assertEquals(200, decide("38411266610", 4000L, 12, "Estonia").getStatusCode().value());
+	}
+
+	@Test
+	void testClosingFailsPendingRequests() {
+		CompletableFuture<ResponseEntity<DecisionResponse>> response = client
+				.decide(new DecisionRequest("38411266610", 4000L, 12, "Estonia"));
+		client.close();
+		server.close();
+		// Either answered before the close or failed by it, never left waiting
+		try {
+			assertEquals(200, response.join().getStatusCode().value());
+		} catch (CompletionException e) {
+			assertInstanceOf(IOException.class, e.getCause());
+		}
+		assertThrows(CompletionException.class,
+				() -> client.decide(new DecisionRequest("38411266610", 4000L, 12, "Estonia")).join());
+	}
+
+	private ResponseEntity<DecisionResponse> decide(String personalCode, Long loanAmount, int loanPeriod,
+			String country) {
+		return client.decide(new DecisionRequest(personalCode, loanAmount, loanPeriod, country)).join();
+	}
+
+	private static int readUntilClosed(InputStream in) throws IOException {
+		int read;
+		do {
+			read = in.read();
+		} while (read != -1);
+		return read;
+	}
+}
@@ -0,0 +1,163 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ee.taltech.inbankbackend.exceptions.CreditDataUnavailableException;
+import ee.taltech.inbankbackend.exceptions.IdempotencyKeyReusedException;
+import ee.taltech.inbankbackend.exceptions.InvalidCountryException;
+import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.service.BinarySearchLoanPeriodSolver;
+import ee.taltech.inbankbackend.service.Country;
+import ee.taltech.inbankbackend.service.CreditDataProvider;
+import ee.taltech.inbankbackend.service.CreditDataService;
+import ee.taltech.inbankbackend.service.CreditScoreCalculator;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionAuditLog;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionMetrics;
+import ee.taltech.inbankbackend.service.DecisionPolicy;
+import ee.taltech.inbankbackend.service.DecisionRules;
+
+class DecisionReplayCacheTest {
+
+	private static final DecisionRequest SEGMENT_2 = new DecisionRequest("38411266610", 4000L, 12, "Estonia");
+	private static final DecisionRequest DEBTOR = new DecisionRequest("37605030299", 4000L, 12, "Estonia");
+
+	private final AtomicInteger lookups = new AtomicInteger();
+	private final AtomicLong nanoTime = new AtomicLong();
+	private CompletableFuture<Integer> nextLookup;
+	private DecisionEngine decisionEngine;
+	private DecisionReplayCache replayCache;
+
+	@BeforeEach
+	void setUp() {
+		CreditDataService creditDataService = new CreditDataService();
+		CreditDataProvider provider = (personalCode, decodedPersonalCode) -> {
+			lookups.incrementAndGet();
+			return nextLookup != null ? nextLookup
+					: creditDataService.getCreditModifierAsync(personalCode, decodedPersonalCode);
+		};
+		CreditScoreCalculator creditScoreCalculator = new CreditScoreCalculator();
+		decisionEngine = new DecisionEngine(provider, creditScoreCalculator,
+				new BinarySearchLoanPeriodSolver(creditScoreCalculator), true, DecisionMetrics.noop(),
+				Clock.fixed(Instant.parse("2023-03-20T12:00:00Z"), ZoneOffset.UTC), DecisionAuditLog.DISABLED);
+		replayCache = new DecisionReplayCache(decisionEngine, 1000, Duration.ofSeconds(10), nanoTime::get);
+	}
+
+	@Test
+	void testIdenticalRequestsAreReplayed() {
+		Decision first = replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join();
+		Decision second = replayCache
+				.calculateApprovedLoanAsync(new DecisionRequest("38411266610", 4000L, 12, "Estonia"), null).join();
+
+		assertSame(first, second);
+		assertEquals(3600, second.getLoanAmount());
+		assertEquals(1, lookups.get());
+
+		replayCache.calculateApprovedLoanAsync(new DecisionRequest("38411266610", 4000L, 24, "Estonia"), null)
+				.join();
+		assertEquals(2, lookups.get());
+		assertEquals(1, replayCache.getCache().stats().hitCount());
+	}
+
+	@Test
+	void testReplaysExpireAfterTheWindow() {
+		replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join();
+		nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(9));
+		replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join();
+		assertEquals(1, lookups.get());
+
+		nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join();
+		assertEquals(2, lookups.get());
+	}
+
+	@Test
+	void testRejectionsAreReplayedButErrorsAreNot() {
+		CompletionException rejected = assertThrows(CompletionException.class,
+				() -> replayCache.calculateApprovedLoanAsync(DEBTOR, null).join());
+		assertInstanceOf(NoValidLoanException.class, rejected.getCause());
+		assertThrows(CompletionException.class, () -> replayCache.calculateApprovedLoanAsync(DEBTOR, null).join());
+		assertEquals(1, lookups.get());
+
+		nextLookup = CompletableFuture.failedFuture(new CreditDataUnavailableException("Credit bureau is down"));
+		assertThrows(CompletionException.class, () -> replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join());
+		nextLookup = null;
+		assertEquals(3600, replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join().getLoanAmount());
+		assertEquals(3, lookups.get());
+	}
+
+	@Test
+	void testConcurrentDuplicatesShareOneDecision() {
+		nextLookup = new CompletableFuture<>();
+
+		CompletableFuture<Decision> first = replayCache.calculateApprovedLoanAsync(SEGMENT_2, null);
+		CompletableFuture<Decision> second = replayCache.calculateApprovedLoanAsync(SEGMENT_2, null);
+		nextLookup.complete(300);
+
+		assertEquals(3600, first.join().getLoanAmount());
+		assertSame(first.join(), second.join());
+		assertEquals(1, lookups.get());
+	}
+
+	@Test
+	void testIdempotencyKeyIdentifiesTheRequest() {
+		replayCache.calculateApprovedLoanAsync(SEGMENT_2, "key-1").join();
+		replayCache.calculateApprovedLoanAsync(SEGMENT_2, "key-1").join();
+		// A new key is a new request
+		replayCache.calculateApprovedLoanAsync(SEGMENT_2, "key-2").join();
+		assertEquals(2, lookups.get());
+
+		CompletionException reused = assertThrows(CompletionException.class,
+				() -> replayCache.calculateApprovedLoanAsync(DEBTOR, "key-1").join());
+		assertInstanceOf(IdempotencyKeyReusedException.class, reused.getCause());
+		assertEquals(2, lookups.get());
+	}
+
+	@Test
+	void testPolicyChangesAreNotAnsweredFromOldDecisions() {
+		replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join();
+		decisionEngine.applyPolicy(new DecisionPolicy(2000, 10000, 12, 60, 18, 75, EnumSet.of(Country.LATVIA)));
+
+		CompletionException rejected = assertThrows(CompletionException.class,
+				() -> replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join());
+		assertInstanceOf(InvalidCountryException.class, rejected.getCause());
+	}
+
+	@Test
+	void testRuleChangesAreNotAnsweredFromOldDecisions() {
+		assertEquals(3600, replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join().getLoanAmount());
+		decisionEngine.applyRules(DecisionRules.parse("""
+				[ { "then": { "maxLoanAmount": 3000 } } ]
+				"""));
+
+		assertEquals(3000, replayCache.calculateApprovedLoanAsync(SEGMENT_2, null).join().getLoanAmount());
+		assertEquals(2, lookups.get());
+	}
+
+	@Test
+	void testDisabledCacheDecidesEveryRequest() {
+		DecisionReplayCache disabled = new DecisionReplayCache(decisionEngine, 0, Duration.ofSeconds(10),
+				nanoTime::get);
+		disabled.calculateApprovedLoanAsync(SEGMENT_2, "key-1").join();
+		disabled.calculateApprovedLoanAsync(SEGMENT_2, "key-1").join();
+		assertEquals(2, lookups.get());
+	}
+}
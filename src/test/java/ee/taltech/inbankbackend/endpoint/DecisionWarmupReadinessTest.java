@@ -0,0 +1,61 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * The application accepts traffic only once the warm-up is done.
+ */
+@SpringBootTest(properties = { "decision.warmup.enabled=true", "decision.warmup.max-duration-ms=100" })
+@AutoConfigureMockMvc
+class DecisionWarmupReadinessTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private AtomicLong sentWhenReady;
+
+	@Test
+	void testReadyAfterTheWarmup() throws Exception {
+		assertTrue(sentWhenReady.get() > 0);
+		mockMvc.perform(get("/actuator/health/readiness"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("UP"));
+	}
+
+	@TestConfiguration
+	static class ReadinessListener {
+
+		@Bean
+		AtomicLong sentWhenReady() {
+			return new AtomicLong(-1);
+		}
+
+		@Bean
+		ApplicationListener<AvailabilityChangeEvent<ReadinessState>> readinessListener(ApplicationContext context,
+				AtomicLong sentWhenReady) {
+			return event -> {
+				if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+					sentWhenReady.set(context.getBean(DecisionWarmup.class).getSentCount());
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+
+import ee.taltech.inbankbackend.service.BinarySearchLoanPeriodSolver;
+import ee.taltech.inbankbackend.service.CreditDataService;
+import ee.taltech.inbankbackend.service.CreditScoreCalculator;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionMetrics;
+import ee.taltech.inbankbackend.service.LoanPeriodSolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DecisionWarmupTest {
+
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-03-20T12:00:00Z"), ZoneOffset.UTC);
+
+	private final AtomicInteger audited = new AtomicInteger();
+	private final SimpleMeterRegistry decisionRegistry = new SimpleMeterRegistry();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private CreditScoreCalculator creditScoreCalculator;
+	private LoanPeriodSolver loanPeriodSolver;
+	private DecisionEngine decisionEngine;
+
+	@BeforeEach
+	void setUp() {
+		creditScoreCalculator = new CreditScoreCalculator();
+		loanPeriodSolver = new BinarySearchLoanPeriodSolver(creditScoreCalculator);
+		decisionEngine = new DecisionEngine(new CreditDataService(), creditScoreCalculator, loanPeriodSolver, true,
+				new DecisionMetrics(decisionRegistry), CLOCK,
+				(timestampMillis, policyVersion, personalCode, loanAmount, loanPeriod, country, decision) -> audited
+						.incrementAndGet());
+	}
+
+	@Test
+	void testWarmupIsReportedAndLeavesTheLiveEngineAlone() throws IOException {
+		DecisionWarmup warmup = warmup(100);
+		warmup.run(null);
+
+		assertTrue(warmup.getSentCount() > 0);
+		assertEquals(warmup.getSentCount(), meterRegistry.get("decision.warmup.requests").gauge().value());
+		// Published in seconds, so reading it back in nanoseconds may be off in the last bit.
+		assertEquals(warmup.getDurationNanos(),
+				meterRegistry.get("decision.warmup.duration").timeGauge().value(TimeUnit.NANOSECONDS), 1);
+		assertEquals(4, meterRegistry.get("decision.warmup.compiled-methods").gauges().size());
+		// Stopped by the maximum duration rather than the compile threshold, with leeway for the last round.
+		assertTrue(warmup.getDurationNanos() < TimeUnit.SECONDS.toNanos(2));
+
+		assertEquals(0, audited.get());
+		assertEquals(0, decisionRegistry.find("decision.outcome").counters().stream()
+				.mapToDouble(counter -> counter.count()).sum());
+	}
+
+	@Test
+	void testJsonSerializersAreCached() throws IOException {
+		DefaultSerializerProvider serializers = (DefaultSerializerProvider) objectMapper.getSerializerProvider();
+		assertEquals(0, serializers.cachedSerializersCount());
+		warmup(100).run(null);
+
+		assertTrue(serializers.cachedSerializersCount() > 0);
+	}
+
+	@Test
+	void testDurationMustBePositive() {
+		assertThrows(IllegalArgumentException.class, () -> warmup(0));
+	}
+
+	private DecisionWarmup warmup(long maxDurationMillis) throws IOException {
+		return new DecisionWarmup(decisionEngine, creditScoreCalculator, loanPeriodSolver, true, CLOCK, objectMapper,
+				maxDurationMillis, meterRegistry);
+	}
+}
@@ -0,0 +1,114 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+
+class NdjsonDecisionPipelineTest {
+
+	private static final int REQUESTS = 2000;
+
+	private ExecutorService executor;
+	private ObjectMapper objectMapper;
+	private NdjsonDecisionPipeline pipeline;
+
+	@BeforeEach
+	void setUp() {
+		DecisionEngine decisionEngine = mock(DecisionEngine.class);
+		// Echo the requested amount and period so every response can be matched to its request.
+		when(decisionEngine.evaluateAsync(anyString(), anyLong(), anyInt(), anyString()))
+				.thenAnswer(invocation -> CompletableFuture.completedFuture(new Decision(
+						((Long) invocation.getArgument(1)).intValue(), invocation.getArgument(2), null)));
+		when(decisionEngine.evaluateAsync(eq("invalid"), anyLong(), anyInt(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(Decision.rejected(RejectionReason.INVALID_PERSONAL_CODE)));
+
+		executor = Executors.newFixedThreadPool(4);
+		objectMapper = new ObjectMapper();
+		DecisionRequestProcessor processor = new DecisionRequestProcessor(decisionEngine, executor, 4);
+		// A window much smaller than the input forces the reader to wait for the writer.
+		pipeline = new NdjsonDecisionPipeline(processor, executor, objectMapper, 16, 256);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void testOrderedOutputFollowsInput() throws Exception {
+		List<String> lines = run(requests(), true);
+
+		assertEquals(REQUESTS, lines.size());
+		for (int i = 0; i < REQUESTS; i++) {
+			DecisionResponse response = objectMapper.readValue(lines.get(i), DecisionResponse.class);
+			assertEquals(2000 + i, response.getLoanAmount());
+		}
+	}
+
+	@Test
+	void testUnorderedOutputContainsEveryDecision() throws Exception {
+		List<String> lines = run(requests(), false);
+
+		assertEquals(REQUESTS, lines.size());
+		Set<Integer> amounts = new HashSet<>();
+		for (String line : lines) {
+			amounts.add(objectMapper.readValue(line, DecisionResponse.class).getLoanAmount());
+		}
+		assertEquals(REQUESTS, amounts.size());
+	}
+
+	@Test
+	void testInvalidLinesProduceErrorResponses() throws Exception {
+		String input = "{\"personalCode\":\"invalid\",\"loanAmount\":4000,\"loanPeriod\":12,\"country\":\"Estonia\"}\n"
+				+ "\n" + "not json\n" + "{\"personalCode\":\"" + "9".repeat(300) + "\"}\n"
+				+ "{\"personalCode\":\"valid\",\"loanAmount\":4000,\"loanPeriod\":24,\"country\":\"Estonia\"}";
+
+		List<String> lines = run(input, true);
+
+		assertEquals(4, lines.size());
+		assertEquals("Invalid personal ID code!",
+				objectMapper.readValue(lines.get(0), DecisionResponse.class).getErrorMessage());
+		assertEquals("Malformed request", objectMapper.readValue(lines.get(1), DecisionResponse.class).getErrorMessage());
+		assertEquals("Malformed request", objectMapper.readValue(lines.get(2), DecisionResponse.class).getErrorMessage());
+		assertEquals(24, objectMapper.readValue(lines.get(3), DecisionResponse.class).getLoanPeriod());
+	}
+
+	private List<String> run(String input, boolean ordered) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		pipeline.run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, ordered);
+		return output.toString(StandardCharsets.UTF_8).lines().toList();
+	}
+
+	private static String requests() {
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < REQUESTS; i++) {
+			input.append("{\"personalCode\":\"code").append(i).append("\",\"loanAmount\":").append(2000 + i)
+					.append(",\"loanPeriod\":12,\"country\":\"Estonia\"}\r\n");
+		}
+		return input.toString();
+	}
+}
@@ -4,7 +4,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 
 import org.junit.jupiter.api.Test;
 
@@ -23,10 +26,27 @@ class AgeVerificationTest {
 		String validAge = "38411266610";
 		String ageUnderValidation = "60605206610";
 		String ageOverLifetime = "44110230825";
+		AgeLimits ageLimits = AgeLimits.forToday(Clock.fixed(Instant.parse("2023-03-20T12:00:00Z"), ZoneOffset.UTC),
+				18, 75);
 
+		assertTrue(ageLimits.isValidAge(PersonalCodeDecoder.decode(validAge), 12));
+		assertFalse(ageLimits.isValidAge(PersonalCodeDecoder.decode(ageUnderValidation), 12));
+		assertFalse(ageLimits.isValidAge(PersonalCodeDecoder.decode(ageOverLifetime), 12));
 		assertTrue(AgeVerificator.isValidAge(validAge, 12));
-		assertFalse(AgeVerificator.isValidAge(ageUnderValidation, 12));
-		assertFalse(AgeVerificator.isValidAge(ageOverLifetime, 12));
+	}
+
+	@Test
+	void testAgeLimitsExpireAtMidnight() {
+		// Born in 2003, old enough from 2022 on.
+		long decoded = PersonalCodeDecoder.decode("50307172740");
+		Instant lastSecondOf2021 = Instant.parse("2021-12-31T23:59:59Z");
+		AgeLimits ageLimits = AgeLimits.forToday(Clock.fixed(lastSecondOf2021, ZoneOffset.UTC), 18, 75);
+
+		assertFalse(ageLimits.isValidAge(decoded, 12));
+		assertFalse(ageLimits.isExpired(lastSecondOf2021.toEpochMilli()));
+		assertTrue(ageLimits.isExpired(lastSecondOf2021.plusSeconds(1).toEpochMilli()));
+		assertTrue(AgeLimits.forToday(Clock.fixed(lastSecondOf2021.plusSeconds(1), ZoneOffset.UTC), 18, 75)
+				.isValidAge(decoded, 12));
 	}
 
 }
@@ -0,0 +1,82 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+class CachingCreditDataProviderTest {
+
+	private static final String PERSONAL_CODE = "50307172740";
+	private static final String OTHER_PERSONAL_CODE = "38411266610";
+
+	private final AtomicInteger lookups = new AtomicInteger();
+	private final AtomicLong nanoTime = new AtomicLong();
+	private CompletableFuture<Integer> nextLookup;
+	private CachingCreditDataProvider provider;
+
+	@BeforeEach
+	void setUp() {
+		nextLookup = CompletableFuture.completedFuture(100);
+		CreditDataProvider delegate = (personalCode, decodedPersonalCode) -> {
+			lookups.incrementAndGet();
+			return nextLookup;
+		};
+		provider = new CachingCreditDataProvider(delegate, 1000, Duration.ofMinutes(5), nanoTime::get);
+	}
+
+	@Test
+	void testRepeatedCodeIsServedFromCache() {
+		assertEquals(100, provider.getCreditModifierAsync(PERSONAL_CODE, 0L).join());
+		assertEquals(100, provider.getCreditModifierAsync(PERSONAL_CODE, 0L).join());
+		provider.getCreditModifierAsync(OTHER_PERSONAL_CODE, 0L).join();
+
+		assertEquals(2, lookups.get());
+		CacheStats stats = provider.getCache().synchronous().stats();
+		assertEquals(1, stats.hitCount());
+		assertEquals(2, stats.missCount());
+		assertEquals(2, stats.loadSuccessCount());
+	}
+
+	@Test
+	void testConcurrentMissesShareOneLookup() {
+		nextLookup = new CompletableFuture<>();
+
+		CompletableFuture<Integer> first = provider.getCreditModifierAsync(PERSONAL_CODE, 0L);
+		CompletableFuture<Integer> second = provider.getCreditModifierAsync(PERSONAL_CODE, 0L);
+		nextLookup.complete(300);
+
+		assertEquals(300, first.join());
+		assertEquals(300, second.join());
+		assertEquals(1, lookups.get());
+	}
+
+	@Test
+	void testFailedLookupIsNotCached() {
+		nextLookup = CompletableFuture.failedFuture(new IllegalStateException("bureau down"));
+		assertThrows(CompletionException.class, () -> provider.getCreditModifierAsync(PERSONAL_CODE, 0L).join());
+
+		nextLookup = CompletableFuture.completedFuture(1000);
+		assertEquals(1000, provider.getCreditModifierAsync(PERSONAL_CODE, 0L).join());
+		assertEquals(2, lookups.get());
+	}
+
+	@Test
+	void testEntryExpiresAfterTimeToLive() {
+		provider.getCreditModifierAsync(PERSONAL_CODE, 0L).join();
+		nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(6));
+		provider.getCreditModifierAsync(PERSONAL_CODE, 0L).join();
+
+		assertEquals(2, lookups.get());
+	}
+}
@@ -0,0 +1,75 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConfigFileWatcherTest {
+
+	@TempDir
+	Path directory;
+
+	private final BlockingQueue<DecisionPolicy> policies = new LinkedBlockingQueue<>();
+
+	@Test
+	void testChangedFileIsReloaded() throws Exception {
+		Path file = directory.resolve("policy.properties");
+		Files.writeString(file, "loan-amount.max=8000\n");
+
+		try (ConfigFileWatcher<DecisionPolicy> watcher = new ConfigFileWatcher<>(file, DecisionPolicy::load,
+				policies::add)) {
+			assertEquals(8000, policies.take().getMaximumLoanAmount());
+
+			replace(file, "loan-amount.max=6000\n");
+			assertEquals(6000, nextPolicy().getMaximumLoanAmount());
+		}
+	}
+
+	@Test
+	void testInvalidFileKeepsThePolicy() throws Exception {
+		Path file = directory.resolve("policy.properties");
+		Files.writeString(file, "loan-amount.max=8000\n");
+
+		try (ConfigFileWatcher<DecisionPolicy> watcher = new ConfigFileWatcher<>(file, DecisionPolicy::load,
+				policies::add)) {
+			policies.take();
+
+			replace(file, "loan-amount.max=none\n");
+			replace(file, "loan-amount.max=7000\n");
+			// The invalid version is skipped, the next valid one is applied.
+			assertEquals(7000, nextPolicy().getMaximumLoanAmount());
+		}
+	}
+
+	@Test
+	void testInvalidFileFailsOnStart() throws IOException {
+		Path file = directory.resolve("policy.properties");
+		Files.writeString(file, "loan-amount.max=none\n");
+
+		assertThrows(IllegalArgumentException.class, () -> new ConfigFileWatcher<>(file, DecisionPolicy::load, policies::add));
+	}
+
+	private DecisionPolicy nextPolicy() throws InterruptedException {
+		// Some file systems are polled, allow for a few seconds of delay.
+		DecisionPolicy policy = policies.poll(30, TimeUnit.SECONDS);
+		if (policy == null) {
+			throw new AssertionError("Policy was not reloaded");
+		}
+		return policy;
+	}
+
+	private void replace(Path file, String content) throws IOException {
+		Path next = Files.writeString(directory.resolve("next.tmp"), content);
+		Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,42 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.vladislavgoltjajev.personalcode.locale.lithuania.LithuanianPersonalCodeValidator;
+
+class CountryTest {
+
+	@Test
+	void testFromName() {
+		assertSame(Country.ESTONIA, Country.fromName("Estonia"));
+		assertSame(Country.LATVIA, Country.fromName("Latvia"));
+		assertSame(Country.LITHUANIA, Country.fromName("Lithuania"));
+		assertNull(Country.fromName("Finland"));
+		assertNull(Country.fromName("estonia"));
+		assertNull(Country.fromName(null));
+	}
+
+	@Test
+	void testLithuanianCodesAgreeWithLibraryValidator() {
+		LithuanianPersonalCodeValidator validator = new LithuanianPersonalCodeValidator();
+		Random random = new Random(42);
+		int valid = 0;
+		for (int i = 0; i < 200_000; i++) {
+			String code = String.format("%d%02d%02d%02d%04d", random.nextInt(8), random.nextInt(100),
+					random.nextInt(14), random.nextInt(32), random.nextInt(10000));
+			boolean expected = validator.isValid(code);
+			assertEquals(expected, PersonalCodeDecoder.isValid(Country.LITHUANIA.decode(code)), code);
+			if (expected) {
+				valid++;
+			}
+		}
+		assertTrue(valid > 1000);
+	}
+}
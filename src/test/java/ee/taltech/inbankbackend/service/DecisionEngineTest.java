@@ -1,7 +1,19 @@
 package ee.taltech.inbankbackend.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +25,7 @@ import ee.taltech.inbankbackend.exceptions.InvalidLoanAmountException;
 import ee.taltech.inbankbackend.exceptions.InvalidLoanPeriodException;
 import ee.taltech.inbankbackend.exceptions.InvalidPersonalCodeException;
 import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
 
 class DecisionEngineTest {
 
@@ -36,7 +49,9 @@ class DecisionEngineTest {
 
 		// Didn't figure out how to inject components with Mockito,
 		// didn't work with it yet.
-		decisionEngine = new DecisionEngine(new CreditDataService(), new CreditScoreCalculator());
+		// The fixed date keeps the ages of the customers above within the limits.
+		decisionEngine = new DecisionEngine(new CreditDataService(), new CreditScoreCalculator(),
+				Clock.fixed(Instant.parse("2023-03-20T12:00:00Z"), ZoneOffset.UTC));
 	}
 
 	@Test
@@ -124,6 +139,23 @@ class DecisionEngineTest {
 				() -> decisionEngine.calculateApprovedLoan(segment1PersonalCode, 5000L, 60, "Filnald"));
 	}
 
+	@Test
+	void testPersonalCodeIsDecodedInTheFormatOfTheCountry()
+			throws InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
+			InvalidLoanAmountException, InvalidCountryException, InvalidCustomerAgeException {
+		Decision latvian = decisionEngine.calculateApprovedLoan("261184-16665", 4000L, 12, "Latvia");
+		assertEquals(3600, latvian.getLoanAmount());
+		Decision lithuanian = decisionEngine.calculateApprovedLoan(segment2PersonalCode, 4000L, 12, "Lithuania");
+		assertEquals(3600, lithuanian.getLoanAmount());
+
+		assertThrows(InvalidPersonalCodeException.class,
+				() -> decisionEngine.calculateApprovedLoan(segment2PersonalCode, 4000L, 12, "Latvia"));
+		assertThrows(InvalidPersonalCodeException.class,
+				() -> decisionEngine.calculateApprovedLoan("261184-16665", 4000L, 12, "Estonia"));
+		assertThrows(InvalidCustomerAgeException.class,
+				() -> decisionEngine.calculateApprovedLoan("230141-10828", 4000L, 12, "Latvia"));
+	}
+
 	@Test
 	void testInvalidAgeException() throws InvalidCustomerAgeException {
 		assertThrows(InvalidCustomerAgeException.class,
@@ -132,4 +164,206 @@ class DecisionEngineTest {
 				() -> decisionEngine.calculateApprovedLoan(ageOverLifetime, 5000L, 60, "Estonia"));
 	}
 
+	@Test
+	void testAppliedPolicyIsUsedForNewDecisions() {
+		decisionEngine.applyPolicy(new DecisionPolicy(3000, 5000, 12, 24, 18, 75,
+				EnumSet.of(Country.ESTONIA, Country.LITHUANIA)));
+
+		assertSame(RejectionReason.INVALID_LOAN_AMOUNT,
+				decisionEngine.evaluate(segment2PersonalCode, 2000L, 12, "Estonia").getRejectionReason());
+		assertSame(RejectionReason.INVALID_LOAN_PERIOD,
+				decisionEngine.evaluate(segment2PersonalCode, 4000L, 36, "Estonia").getRejectionReason());
+		assertSame(RejectionReason.INVALID_COUNTRY,
+				decisionEngine.evaluate("261184-16665", 4000L, 12, "Latvia").getRejectionReason());
+		// Capped at the new maximum amount
+		Decision decision = decisionEngine.evaluate(segment3PersonalCode, 4000L, 12, "Estonia");
+		assertEquals(5000, decision.getLoanAmount());
+		// Segment 1 would need 30 months to reach the new minimum amount
+		assertSame(RejectionReason.NO_VALID_LOAN,
+				decisionEngine.evaluate(segment1PersonalCode, 4000L, 12, "Lithuania").getRejectionReason());
+	}
+
+	@Test
+	void testAppliedRulesAreUsedForNewDecisions() {
+		decisionEngine.applyRules(DecisionRules.parse("""
+				[
+				  { "if": { "country": "Estonia" }, "then": { "maxLoanAmount": 3000 } },
+				  { "if": { "country": "Lithuania" }, "then": { "maxLoanAmount": 1000 } },
+				  { "if": { "personalCode": "%s" }, "then": { "reject": "NO_VALID_LOAN" } }
+				]
+				""".formatted(segment3PersonalCode)));
+
+		assertEquals(3000, decisionEngine.evaluate(segment2PersonalCode, 4000L, 12, "Estonia").getLoanAmount());
+		// A cap below the minimum loan amount leaves no valid loan
+		assertSame(RejectionReason.NO_VALID_LOAN,
+				decisionEngine.evaluate(segment2PersonalCode, 4000L, 12, "Lithuania").getRejectionReason());
+		assertSame(RejectionReason.NO_VALID_LOAN,
+				decisionEngine.evaluate(segment3PersonalCode, 4000L, 12, "Estonia").getRejectionReason());
+
+		// Rules survive a policy change
+		decisionEngine.applyPolicy(DecisionPolicy.defaults());
+		assertEquals(3000, decisionEngine.evaluate(segment2PersonalCode, 4000L, 12, "Estonia").getLoanAmount());
+	}
+
+	@Test
+	void testDecisionsAreAuditedWithThePolicyVersion() {
+		Clock clock = Clock.fixed(Instant.parse("2023-03-20T12:00:00Z"), ZoneOffset.UTC);
+		CreditScoreCalculator creditScoreCalculator = new CreditScoreCalculator();
+		List<String> audited = new ArrayList<>();
+		DecisionEngine engine = new DecisionEngine(new CreditDataService(), creditScoreCalculator,
+				LoanPeriodSolver.forCalculator(creditScoreCalculator), true, DecisionMetrics.noop(), clock,
+				(timestampMillis, policyVersion, personalCode, loanAmount, loanPeriod, country, decision) -> audited
+						.add(timestampMillis + " " + policyVersion + " " + personalCode + " " + loanAmount + " "
+								+ loanPeriod + " " + country + " " + decision.getLoanAmount() + " "
+								+ decision.getRejectionReason()));
+		int defaultVersion = engine.getPolicyVersion();
+
+		engine.evaluate(segment2PersonalCode, 4000L, 12, "Estonia");
+		engine.evaluate("12345678901", 4000L, 12, "Estonia");
+		// Explanations are not audited
+		engine.explainAsync(segment2PersonalCode, 4000L, 12, "Estonia", new DecisionTrace()).join();
+		engine.applyRules(DecisionRules.parse("""
+				[ { "if": { "country": "Estonia" }, "then": { "maxLoanAmount": 3000 } } ]
+				"""));
+		engine.evaluate(segment2PersonalCode, 4000L, 12, "Estonia");
+		int rulesVersion = engine.getPolicyVersion();
+
+		long millis = clock.millis();
+		assertEquals(List.of(
+				millis + " " + defaultVersion + " 38411266610 4000 12 ESTONIA 3600 null",
+				millis + " " + defaultVersion + " 12345678901 4000 12 ESTONIA null INVALID_PERSONAL_CODE",
+				millis + " " + rulesVersion + " 38411266610 4000 12 ESTONIA 3000 null"), audited);
+		assertFalse(defaultVersion == rulesVersion);
+
+		// The version identifies the content, not the instance
+		engine.applyRules(DecisionRules.NONE);
+		engine.applyPolicy(new DecisionPolicy(DecisionEngineConstants.MINIMUM_LOAN_AMOUNT,
+				DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT, DecisionEngineConstants.MINIMUM_LOAN_PERIOD,
+				DecisionEngineConstants.MAXIMUM_LOAN_PERIOD, DecisionEngineConstants.MINIMUM_AGE_YEARS,
+				DecisionEngineConstants.MAXIMUM_AGE_YEARS, EnumSet.allOf(Country.class)));
+		assertEquals(defaultVersion, engine.getPolicyVersion());
+	}
+
+	@Test
+	void testPolicyVersionCoversTheScoringModel() {
+		CreditScoreCalculator linear = new CreditScoreCalculator();
+		CreditScoreCalculator logistic = new CreditScoreCalculator(
+				new LogisticScoringModel(10000, -4, 0.004f, 0.04f, new float[0], false));
+		DecisionEngine linearEngine = new DecisionEngine(new CreditDataService(), linear);
+		DecisionEngine logisticEngine = new DecisionEngine(new CreditDataService(), logistic);
+
+		assertEquals(64, linearEngine.getPolicyDigest().length());
+		assertEquals(Integer.parseUnsignedInt(linearEngine.getPolicyDigest().substring(0, 8), 16),
+				linearEngine.getPolicyVersion());
+		assertEquals(linearEngine.getPolicyDigest(), decisionEngine.getPolicyDigest());
+		assertFalse(linearEngine.getPolicyDigest().equals(logisticEngine.getPolicyDigest()));
+	}
+
+	@Test
+	void testExplainRecordsTheDecisionPath() {
+		DecisionTrace trace = new DecisionTrace();
+		Decision decision = decisionEngine.explainAsync(segment1PersonalCode, 4000L, 12, "Estonia", trace).join();
+
+		assertEquals(2000, decision.getLoanAmount());
+		assertEquals(20, decision.getLoanPeriod());
+		assertEquals(List.of("country", "personalCode", "age", "loanAmount", "loanPeriod", "rules"),
+				trace.getChecks().stream().map(DecisionTrace.Check::name).toList());
+		assertTrue(trace.getChecks().stream().allMatch(DecisionTrace.Check::passed));
+		assertEquals("Born 2003-07-17", trace.getChecks().get(1).detail());
+		assertEquals(DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER, trace.getCreditModifier());
+		assertEquals("segment 1", trace.getCreditSegment());
+		// The closed form scores one month, then the approved period
+		assertEquals(List.of(new DecisionTrace.ScoreEvaluation(100, 1, 100),
+				new DecisionTrace.ScoreEvaluation(100, 20, 2000)), trace.getScoreEvaluations());
+		assertTrue(trace.getPeriodSearch().contains("Period extended to 20 months"));
+	}
+
+	@Test
+	void testExplainStopsAtTheFirstFailedCheck() {
+		DecisionTrace trace = new DecisionTrace();
+		Decision decision = decisionEngine.explainAsync(ageUnderLifetime, 4000L, 12, "Estonia", trace).join();
+
+		assertSame(RejectionReason.INVALID_CUSTOMER_AGE, decision.getRejectionReason());
+		assertEquals(List.of(true, true, false),
+				trace.getChecks().stream().map(DecisionTrace.Check::passed).toList());
+		assertNull(trace.getCreditModifier());
+		assertTrue(trace.getScoreEvaluations().isEmpty());
+	}
+
+	@Test
+	void testExplainMatchesTheDecision() {
+		String[] personalCodes = { debtorPersonalCode, segment1PersonalCode, segment2PersonalCode,
+				segment3PersonalCode, ageOverLifetime, "12345678901" };
+		for (String personalCode : personalCodes) {
+			for (int loanPeriod : new int[] { 6, 12, 36, 60 }) {
+				Decision expected = decisionEngine.evaluate(personalCode, 4000L, loanPeriod, "Estonia");
+				Decision explained = decisionEngine
+						.explainAsync(personalCode, 4000L, loanPeriod, "Estonia", new DecisionTrace()).join();
+				assertEquals(expected.getLoanAmount(), explained.getLoanAmount());
+				assertEquals(expected.getLoanPeriod(), explained.getLoanPeriod());
+				assertSame(expected.getRejectionReason(), explained.getRejectionReason());
+			}
+		}
+	}
+
+	@Test
+	void testAgeLimitsRollOverAtMidnight() {
+		MutableClock clock = new MutableClock(Instant.parse("2021-12-31T23:59:59Z"));
+		DecisionEngine engine = new DecisionEngine(new CreditDataService(), new CreditScoreCalculator(), clock);
+
+		// Born in 2003, old enough from 2022 on.
+		assertSame(RejectionReason.INVALID_CUSTOMER_AGE,
+				engine.evaluate(segment1PersonalCode, 4000L, 24, "Estonia").getRejectionReason());
+		clock.instant = clock.instant.plusSeconds(1);
+		assertFalse(engine.evaluate(segment1PersonalCode, 4000L, 24, "Estonia").isRejected());
+	}
+
+	@Test
+	void testEvaluateReturnsRejectionsWithoutThrowing() {
+		Decision invalidCode = decisionEngine.evaluate("12345678901", 4000L, 12, "Estonia");
+		assertSame(Decision.rejected(RejectionReason.INVALID_PERSONAL_CODE), invalidCode);
+		assertEquals("Invalid personal ID code!", invalidCode.getErrorMessage());
+
+		assertSame(RejectionReason.INVALID_COUNTRY,
+				decisionEngine.evaluate(segment1PersonalCode, 4000L, 12, "Filnald").getRejectionReason());
+		assertSame(RejectionReason.NO_VALID_LOAN,
+				decisionEngine.evaluate(debtorPersonalCode, 4000L, 12, "Estonia").getRejectionReason());
+
+		Decision approved = decisionEngine.evaluate(segment2PersonalCode, 4000L, 12, "Estonia");
+		assertFalse(approved.isRejected());
+		assertEquals(3600, approved.getLoanAmount());
+	}
+
+	@Test
+	void testRejectionExceptionsAreStackless() {
+		InvalidLoanAmountException exception = assertThrows(InvalidLoanAmountException.class,
+				() -> decisionEngine.calculateApprovedLoan(segment1PersonalCode, 1L, 12, "Estonia"));
+		assertSame(InvalidLoanAmountException.REJECTION, exception);
+		assertEquals(0, exception.getStackTrace().length);
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+
 }
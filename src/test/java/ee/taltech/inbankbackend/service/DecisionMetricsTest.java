@@ -0,0 +1,72 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DecisionMetricsTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private DecisionEngine decisionEngine;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		CreditScoreCalculator creditScoreCalculator = new CreditScoreCalculator();
+		decisionEngine = new DecisionEngine(new CreditDataService(), creditScoreCalculator,
+				LoanPeriodSolver.forCalculator(creditScoreCalculator), true, new DecisionMetrics(meterRegistry));
+	}
+
+	@Test
+	void testOutcomesAreCountedPerType() {
+		decisionEngine.evaluate("50307172740", 4000L, 24, "Estonia");
+		decisionEngine.evaluate("261184-16665", 4000L, 12, "Latvia");
+		decisionEngine.evaluate("12345678901", 4000L, 12, "Estonia");
+		decisionEngine.evaluate("37605030299", 4000L, 12, "Lithuania");
+		decisionEngine.evaluate("38411266610", 4000L, 12, "Finland");
+
+		assertEquals(2, count("decision.outcome", "outcome", "approved"));
+		assertEquals(1, count("decision.outcome", "outcome", "InvalidPersonalCodeException"));
+		assertEquals(1, count("decision.outcome", "outcome", "NoValidLoanException"));
+		assertEquals(1, count("decision.outcome", "outcome", "InvalidCountryException"));
+		assertEquals(0, count("decision.outcome", "outcome", "error"));
+	}
+
+	@Test
+	void testSegmentsAndCountriesAreCounted() {
+		decisionEngine.evaluate("50307172740", 4000L, 24, "Estonia");
+		decisionEngine.evaluate("261184-16665", 4000L, 12, "Latvia");
+		decisionEngine.evaluate("050376-10295", 4000L, 12, "Latvia");
+		decisionEngine.evaluate("38411266610", 4000L, 12, "Finland");
+
+		assertEquals(1, count("decision.segment", "segment", "1"));
+		assertEquals(1, count("decision.segment", "segment", "2"));
+		assertEquals(1, count("decision.segment", "segment", "debt"));
+		assertEquals(1, count("decision.country", "country", "Estonia"));
+		assertEquals(2, count("decision.country", "country", "Latvia"));
+		assertEquals(1, count("decision.country", "country", "other"));
+	}
+
+	@Test
+	void testStagesAreTimed() {
+		decisionEngine.evaluate("50307172740", 4000L, 24, "Estonia");
+		decisionEngine.evaluate("12345678901", 4000L, 12, "Estonia");
+
+		assertEquals(2, timerCount("decode"));
+		assertEquals(2, timerCount("validation"));
+		// Rejected inputs never reach the credit lookup.
+		assertEquals(1, timerCount("credit-lookup"));
+		assertEquals(1, timerCount("scoring"));
+	}
+
+	private double count(String name, String tag, String value) {
+		return meterRegistry.get(name).tag(tag, value).counter().count();
+	}
+
+	private long timerCount(String stage) {
+		return meterRegistry.get("decision.stage").tag("stage", stage).timer().count();
+	}
+}
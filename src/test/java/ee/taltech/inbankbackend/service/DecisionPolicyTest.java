@@ -0,0 +1,57 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+class DecisionPolicyTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testMissingKeysKeepDefaults() throws IOException {
+		Path file = directory.resolve("policy.properties");
+		Files.writeString(file, "loan-amount.max = 8000\ncountries = Estonia, Lithuania\n");
+
+		DecisionPolicy policy = DecisionPolicy.load(file);
+
+		assertEquals(DecisionEngineConstants.MINIMUM_LOAN_AMOUNT, policy.getMinimumLoanAmount());
+		assertEquals(8000, policy.getMaximumLoanAmount());
+		assertEquals(DecisionEngineConstants.MAXIMUM_LOAN_PERIOD, policy.getMaximumLoanPeriod());
+		assertEquals(DecisionEngineConstants.MAXIMUM_AGE_YEARS, policy.getMaximumAge());
+		assertTrue(policy.isAllowed(Country.ESTONIA));
+		assertFalse(policy.isAllowed(Country.LATVIA));
+		assertTrue(policy.isAllowed(Country.LITHUANIA));
+	}
+
+	@Test
+	void testInvalidPoliciesAreRejected() throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> policy("loan-amount.maximum", "8000"));
+		assertThrows(IllegalArgumentException.class, () -> policy("loan-amount.max", "eight thousand"));
+		assertThrows(IllegalArgumentException.class, () -> policy("loan-amount.max", "1000"));
+		assertThrows(IllegalArgumentException.class, () -> policy("loan-period.max", "300"));
+		assertThrows(IllegalArgumentException.class, () -> policy("age.min", "80"));
+		assertThrows(IllegalArgumentException.class, () -> policy("countries", "Estonia,Finland"));
+
+		Path empty = Files.createFile(directory.resolve("empty.properties"));
+		assertThrows(IllegalArgumentException.class, () -> DecisionPolicy.load(empty));
+	}
+
+	private static DecisionPolicy policy(String key, String value) {
+		Properties properties = new Properties();
+		properties.setProperty(key, value);
+		return DecisionPolicy.fromProperties(properties);
+	}
+}
@@ -0,0 +1,90 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ee.taltech.inbankbackend.exceptions.RejectionReason;
+
+class DecisionRulesTest {
+
+	private static final String RULES = """
+			[
+			  { "name": "latvia-cap", "if": { "country": "Latvia" }, "then": { "maxLoanAmount": 8000 } },
+			  { "name": "baltic-cap", "if": { "country": { "in": [ "Latvia", "Lithuania" ] } },
+			    "then": { "maxLoanAmount": 9000 } },
+			  { "name": "young-long-loans", "if": { "age": { "lt": 25 }, "loanPeriod": { "gt": 36 } },
+			    "then": { "reject": "INVALID_LOAN_PERIOD" } },
+			  { "name": "large-short-loans", "if": { "loanAmount": { "ge": 9000 }, "loanPeriod": { "le": 12 } },
+			    "then": { "reject": "INVALID_LOAN_AMOUNT" } },
+			  { "name": "blocked", "if": { "personalCode": { "in": [ "38411266610", "50307172740" ] } },
+			    "then": { "reject": "NO_VALID_LOAN" } }
+			]
+			""";
+
+	private final DecisionRules rules = DecisionRules.parse(RULES);
+
+	@Test
+	void testCapsApplyTheLowestMatchingLimit() {
+		assertEquals(8000, rules.evaluate(Country.LATVIA, 4000, 24, 40, "code"));
+		assertEquals(9000, rules.evaluate(Country.LITHUANIA, 4000, 24, 40, "code"));
+		assertEquals(DecisionRules.NO_CAP, rules.evaluate(Country.ESTONIA, 4000, 24, 40, "code"));
+		assertEquals(5, rules.getRuleCount());
+	}
+
+	@Test
+	void testAllConditionsOfARuleMustMatch() {
+		assertRejected(RejectionReason.INVALID_LOAN_PERIOD, rules.evaluate(Country.ESTONIA, 4000, 48, 24, "code"));
+		assertEquals(DecisionRules.NO_CAP, rules.evaluate(Country.ESTONIA, 4000, 36, 24, "code"));
+		assertEquals(DecisionRules.NO_CAP, rules.evaluate(Country.ESTONIA, 4000, 48, 25, "code"));
+		assertRejected(RejectionReason.INVALID_LOAN_AMOUNT, rules.evaluate(Country.ESTONIA, 9000, 12, 40, "code"));
+		assertEquals(DecisionRules.NO_CAP, rules.evaluate(Country.ESTONIA, 9000, 13, 40, "code"));
+	}
+
+	@Test
+	void testBlockedPersonalCodes() {
+		assertRejected(RejectionReason.NO_VALID_LOAN, rules.evaluate(Country.ESTONIA, 4000, 24, 40, "50307172740"));
+		assertEquals(DecisionRules.NO_CAP, rules.evaluate(Country.ESTONIA, 4000, 24, 40, "37605030299"));
+		assertEquals(DecisionRules.NO_CAP, DecisionRules.NONE.evaluate(Country.ESTONIA, 4000, 24, 40, "code"));
+	}
+
+	@Test
+	void testInvalidRulesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> DecisionRules.parse("{}"));
+		assertThrows(IllegalArgumentException.class, () -> DecisionRules.parse("[ { \"if\": { \"income\": 1 }, "
+				+ "\"then\": { \"reject\": \"NO_VALID_LOAN\" } } ]"));
+		assertThrows(IllegalArgumentException.class, () -> DecisionRules.parse("[ { \"if\": { \"age\": { \"in\": 1 } }, "
+				+ "\"then\": { \"reject\": \"NO_VALID_LOAN\" } } ]"));
+		assertThrows(IllegalArgumentException.class, () -> DecisionRules.parse("[ { \"if\": { \"country\": \"Finland\" }, "
+				+ "\"then\": { \"reject\": \"NO_VALID_LOAN\" } } ]"));
+		assertThrows(IllegalArgumentException.class, () -> DecisionRules.parse("[ { \"then\": { \"reject\": \"NO\" } } ]"));
+		assertThrows(IllegalArgumentException.class, () -> DecisionRules.parse("[ { \"then\": { } } ]"));
+	}
+
+	private static void assertRejected(RejectionReason reason, int result) {
+		assertTrue(DecisionRules.isRejection(result));
+		assertSame(reason, DecisionRules.rejection(result));
+	}
+
+	@Test
+	void testRuleWithoutConditionsAlwaysMatches() {
+		DecisionRules capAll = DecisionRules.parse("[ { \"then\": { \"maxLoanAmount\": 7000 } } ]");
+		assertEquals(7000, capAll.evaluate(Country.ESTONIA, 4000, 24, 40, "code"));
+		assertFalse(DecisionRules.isRejection(capAll.evaluate(Country.ESTONIA, 4000, 24, 40, "code")));
+	}
+
+	@Test
+	void testNegativeCapIsRejected() {
+		// Would otherwise be read as a rejection when evaluated.
+		assertThrows(IllegalArgumentException.class,
+				() -> DecisionRules.parse("[ { \"then\": { \"maxLoanAmount\": -1 } } ]"));
+		assertThrows(IllegalArgumentException.class,
+				() -> DecisionRules.parse("[ { \"then\": { \"maxLoanAmount\": -100 } } ]"));
+		assertEquals(0, DecisionRules.parse("[ { \"then\": { \"maxLoanAmount\": 0 } } ]")
+				.evaluate(Country.ESTONIA, 4000, 24, 40, "code"));
+	}
+}
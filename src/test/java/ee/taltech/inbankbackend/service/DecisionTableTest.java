@@ -0,0 +1,52 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+class DecisionTableTest {
+
+	private final CreditScoreCalculator calculator = new CreditScoreCalculator();
+	private final LoanPeriodSolver solver = LoanPeriodSolver.forCalculator(calculator);
+	private final int[] creditModifiers = { 100, 300, 1000, 30 };
+
+	@Test
+	void testLookupMatchesSolver() {
+		DecisionTable table = DecisionTable.build(creditModifiers, calculator, solver);
+
+		for (int creditModifier : creditModifiers) {
+			for (int period = DecisionEngineConstants.MINIMUM_LOAN_PERIOD; period <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD; period++) {
+				assertEquals(DecisionTable.solve(calculator, solver, creditModifier, period),
+						table.lookup(creditModifier, period));
+			}
+		}
+	}
+
+	@Test
+	void testOffersUnpackToAmountAndPeriod() {
+		DecisionTable table = DecisionTable.build(creditModifiers, calculator, solver);
+
+		int segment1Offer = table.lookup(100, 12);
+		assertEquals(2000, DecisionTable.loanAmount(segment1Offer));
+		assertEquals(20, DecisionTable.loanPeriod(segment1Offer));
+
+		int segment3Offer = table.lookup(1000, 60);
+		assertEquals(10000, DecisionTable.loanAmount(segment3Offer));
+		assertEquals(60, DecisionTable.loanPeriod(segment3Offer));
+
+		// 30 * 60 = 1800 stays below the minimum loan amount for every period.
+		assertEquals(DecisionTable.NO_LOAN, table.lookup(30, 12));
+		assertEquals(DecisionTable.NO_LOAN, table.lookup(30, 60));
+	}
+
+	@Test
+	void testUnknownInputsAreNotTabulated() {
+		DecisionTable table = DecisionTable.build(creditModifiers, calculator, solver);
+
+		assertEquals(DecisionTable.NOT_TABULATED, table.lookup(500, 24));
+		assertEquals(DecisionTable.NOT_TABULATED, table.lookup(100, DecisionEngineConstants.MINIMUM_LOAN_PERIOD - 1));
+		assertEquals(DecisionTable.NOT_TABULATED, table.lookup(100, DecisionEngineConstants.MAXIMUM_LOAN_PERIOD + 1));
+	}
+}
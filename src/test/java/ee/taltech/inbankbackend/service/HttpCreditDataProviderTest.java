@@ -0,0 +1,90 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+import ee.taltech.inbankbackend.exceptions.CreditDataUnavailableException;
+
+class HttpCreditDataProviderTest {
+
+	private static final String SEGMENT_1_PERSONAL_CODE = "50307172740";
+
+	private StubCreditBureau bureau;
+	private HttpCreditDataProvider provider;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		bureau = new StubCreditBureau();
+		provider = new HttpCreditDataProvider(bureau.uri(), Duration.ofMillis(1000), new ObjectMapper());
+	}
+
+	@AfterEach
+	void tearDown() {
+		bureau.close();
+	}
+
+	@Test
+	void testReturnsCreditModifierFromBureau() {
+		int creditModifier = provider.getCreditModifierAsync(SEGMENT_1_PERSONAL_CODE, 0L).join();
+
+		assertEquals(DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER, creditModifier);
+	}
+
+	@Test
+	void testBureauErrorFailsLookup() {
+		bureau.setStatus(503);
+
+		CompletionException e = assertThrows(CompletionException.class,
+				() -> provider.getCreditModifierAsync(SEGMENT_1_PERSONAL_CODE, 0L).join());
+		assertInstanceOf(CreditDataUnavailableException.class, e.getCause());
+	}
+
+	@Test
+	void testSlowBureauTimesOut() {
+		bureau.setLatencyMillis(3000);
+
+		CompletionException e = assertThrows(CompletionException.class,
+				() -> provider.getCreditModifierAsync(SEGMENT_1_PERSONAL_CODE, 0L).join());
+		assertInstanceOf(HttpTimeoutException.class, e.getCause());
+	}
+
+	@Test
+	void testSlowLookupsDoNotBlockDecisions() throws Exception {
+		bureau.setLatencyMillis(300);
+		DecisionEngine decisionEngine = new DecisionEngine(provider, new CreditScoreCalculator());
+
+		// Warm up the client, so that the timing below does not include class loading.
+		decisionEngine.evaluateAsync(SEGMENT_1_PERSONAL_CODE, 4000L, 24, "Estonia").join();
+
+		long start = System.nanoTime();
+		List<CompletableFuture<Decision>> decisions = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			decisions.add(decisionEngine.evaluateAsync(SEGMENT_1_PERSONAL_CODE, 4000L, 24, "Estonia"));
+		}
+		CompletableFuture.allOf(decisions.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+		// One after another the lookups would take 60 seconds.
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+		assertFalse(decisions.stream().anyMatch(decision -> decision.join().isRejected()));
+		assertEquals(2400, decisions.get(0).join().getLoanAmount());
+		assertEquals(201, bureau.getRequestCount());
+	}
+}
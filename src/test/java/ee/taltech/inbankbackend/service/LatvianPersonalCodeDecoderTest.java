@@ -0,0 +1,58 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.vladislavgoltjajev.personalcode.locale.latvia.LatvianPersonalCodeValidator;
+
+class LatvianPersonalCodeDecoderTest {
+
+	@Test
+	void testDecodeValidCode() {
+		long decoded = LatvianPersonalCodeDecoder.decode("261184-16665");
+
+		assertTrue(PersonalCodeDecoder.isValid(decoded));
+		assertEquals(1984, PersonalCodeDecoder.birthYear(decoded));
+		assertEquals(11, PersonalCodeDecoder.birthMonth(decoded));
+		assertEquals(26, PersonalCodeDecoder.birthDay(decoded));
+		assertEquals(6665, PersonalCodeDecoder.lastFour(decoded));
+		assertEquals(2003, PersonalCodeDecoder.birthYear(LatvianPersonalCodeDecoder.decode("170703-22710")));
+	}
+
+	@Test
+	void testDecodeInvalidCodes() {
+		assertFalse(PersonalCodeDecoder.isValid(LatvianPersonalCodeDecoder.decode(null)));
+		assertFalse(PersonalCodeDecoder.isValid(LatvianPersonalCodeDecoder.decode("")));
+		assertFalse(PersonalCodeDecoder.isValid(LatvianPersonalCodeDecoder.decode("26118416665")));
+		assertFalse(PersonalCodeDecoder.isValid(LatvianPersonalCodeDecoder.decode("261184-1666a")));
+		// Wrong check digit
+		assertFalse(PersonalCodeDecoder.isValid(LatvianPersonalCodeDecoder.decode("261184-16666")));
+		// Estonian code
+		assertFalse(PersonalCodeDecoder.isValid(LatvianPersonalCodeDecoder.decode("38411266610")));
+		// No date of birth in codes issued since 2017
+		assertFalse(PersonalCodeDecoder.isValid(LatvianPersonalCodeDecoder.decode("321234-56789")));
+	}
+
+	@Test
+	void testAgreesWithLibraryValidator() {
+		LatvianPersonalCodeValidator validator = new LatvianPersonalCodeValidator();
+		Random random = new Random(42);
+		int valid = 0;
+		for (int i = 0; i < 200_000; i++) {
+			// Mostly plausible codes, so that the date and checksum rules get exercised.
+			String code = String.format("%02d%02d%02d-%d%04d", random.nextInt(32), random.nextInt(14),
+					random.nextInt(100), random.nextInt(4), random.nextInt(10000));
+			boolean expected = validator.isValid(code) && !code.startsWith("32");
+			assertEquals(expected, PersonalCodeDecoder.isValid(LatvianPersonalCodeDecoder.decode(code)), code);
+			if (expected) {
+				valid++;
+			}
+		}
+		assertTrue(valid > 1000);
+	}
+}
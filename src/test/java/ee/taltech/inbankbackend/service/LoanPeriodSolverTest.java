@@ -0,0 +1,62 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+class LoanPeriodSolverTest {
+
+	private final CreditScoreCalculator linearCalculator = new CreditScoreCalculator();
+
+	// Monotone but not linear: the score grows with the square root of the period.
+	private final CreditScoreCalculator nonLinearCalculator = new CreditScoreCalculator() {
+		@Override
+		public int calculateCreditScore(int creditModifier, int loanPeriod) {
+			return (int) (creditModifier * 8 * Math.sqrt(loanPeriod));
+		}
+
+		@Override
+		public boolean isLinear() {
+			return false;
+		}
+	};
+
+	@Test
+	void testClosedFormMatchesLinearScan() {
+		assertMatchesLinearScan(new ClosedFormLoanPeriodSolver(linearCalculator), linearCalculator);
+	}
+
+	@Test
+	void testBinarySearchMatchesLinearScan() {
+		assertMatchesLinearScan(new BinarySearchLoanPeriodSolver(linearCalculator), linearCalculator);
+		assertMatchesLinearScan(new BinarySearchLoanPeriodSolver(nonLinearCalculator), nonLinearCalculator);
+	}
+
+	@Test
+	void testForCalculatorPicksClosedFormOnlyForLinearScorers() {
+		assertInstanceOf(ClosedFormLoanPeriodSolver.class, LoanPeriodSolver.forCalculator(linearCalculator));
+		assertInstanceOf(BinarySearchLoanPeriodSolver.class, LoanPeriodSolver.forCalculator(nonLinearCalculator));
+		assertThrows(IllegalArgumentException.class, () -> new ClosedFormLoanPeriodSolver(nonLinearCalculator));
+	}
+
+	private static void assertMatchesLinearScan(LoanPeriodSolver solver, CreditScoreCalculator calculator) {
+		for (int creditModifier = 1; creditModifier <= 2500; creditModifier++) {
+			for (int period = DecisionEngineConstants.MINIMUM_LOAN_PERIOD; period <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD; period++) {
+				assertEquals(linearScan(calculator, creditModifier, period), solver.findLoanPeriod(creditModifier, period),
+						"modifier " + creditModifier + ", period " + period);
+			}
+		}
+	}
+
+	// The period search DecisionEngine used before the solvers existed.
+	private static int linearScan(CreditScoreCalculator calculator, int creditModifier, int loanPeriod) {
+		while (calculator.calculateCreditScore(creditModifier, loanPeriod) < DecisionEngineConstants.MINIMUM_LOAN_AMOUNT) {
+			loanPeriod++;
+		}
+		return loanPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD ? loanPeriod : LoanPeriodSolver.NO_LOAN_PERIOD;
+	}
+}
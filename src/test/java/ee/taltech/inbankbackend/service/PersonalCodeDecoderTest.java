@@ -0,0 +1,55 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeValidator;
+
+class PersonalCodeDecoderTest {
+
+	@Test
+	void testDecodeValidCode() {
+		long decoded = PersonalCodeDecoder.decode("38411266610");
+
+		assertTrue(PersonalCodeDecoder.isValid(decoded));
+		assertEquals(1984, PersonalCodeDecoder.birthYear(decoded));
+		assertEquals(11, PersonalCodeDecoder.birthMonth(decoded));
+		assertEquals(26, PersonalCodeDecoder.birthDay(decoded));
+		assertEquals(6610, PersonalCodeDecoder.lastFour(decoded));
+		assertEquals(2003, PersonalCodeDecoder.birthYear(PersonalCodeDecoder.decode("50307172740")));
+	}
+
+	@Test
+	void testDecodeInvalidCodes() {
+		assertFalse(PersonalCodeDecoder.isValid(PersonalCodeDecoder.decode(null)));
+		assertFalse(PersonalCodeDecoder.isValid(PersonalCodeDecoder.decode("")));
+		assertFalse(PersonalCodeDecoder.isValid(PersonalCodeDecoder.decode("3841126661")));
+		assertFalse(PersonalCodeDecoder.isValid(PersonalCodeDecoder.decode("3841126661a")));
+		// Wrong check digit
+		assertFalse(PersonalCodeDecoder.isValid(PersonalCodeDecoder.decode("38411266611")));
+		assertFalse(PersonalCodeDecoder.isValid(PersonalCodeDecoder.decode("12345678901")));
+	}
+
+	@Test
+	void testAgreesWithLibraryValidator() {
+		EstonianPersonalCodeValidator validator = new EstonianPersonalCodeValidator();
+		Random random = new Random(42);
+		int valid = 0;
+		for (int i = 0; i < 200_000; i++) {
+			// Mostly plausible codes, so that the date and checksum rules get exercised.
+			String code = String.format("%d%02d%02d%02d%04d", random.nextInt(8), random.nextInt(100),
+					random.nextInt(14), random.nextInt(32), random.nextInt(10000));
+			boolean expected = validator.isValid(code);
+			assertEquals(expected, PersonalCodeDecoder.isValid(PersonalCodeDecoder.decode(code)), code);
+			if (expected) {
+				valid++;
+			}
+		}
+		assertTrue(valid > 1000);
+	}
+}
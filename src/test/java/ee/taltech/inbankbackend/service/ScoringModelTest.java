@@ -0,0 +1,111 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+
+class ScoringModelTest {
+
+	// Not a multiple of any vector length, so the scalar tail runs too.
+	private static final int COUNT = 1027;
+
+	private final int[] creditModifiers = new int[COUNT];
+	private final int[] loanPeriods = new int[COUNT];
+	private final float[] features = new float[2 * COUNT];
+
+	ScoringModelTest() {
+		Random random = new Random(42);
+		for (int i = 0; i < COUNT; i++) {
+			creditModifiers[i] = random.nextInt(1000);
+			loanPeriods[i] = DecisionEngineConstants.MINIMUM_LOAN_PERIOD + random.nextInt(49);
+		}
+		for (int i = 0; i < features.length; i++) {
+			features[i] = random.nextFloat();
+		}
+	}
+
+	@Test
+	void testLinearBatchMatchesSingleScores() {
+		LinearScoringModel model = new LinearScoringModel();
+		int[] scores = new int[COUNT];
+		model.scoreBatch(creditModifiers, loanPeriods, new float[0], scores, COUNT);
+		for (int i = 0; i < COUNT; i++) {
+			assertEquals(creditModifiers[i] * loanPeriods[i], scores[i]);
+		}
+		assertTrue(model.isLinear());
+	}
+
+	@Test
+	void testLogisticScore() {
+		LogisticScoringModel model = new LogisticScoringModel(10000, -4, 0.004f, 0.04f, new float[0], false);
+		// z = -4 + 4 + 0.48
+		assertEquals((int) (10000 / (1 + Math.exp(-0.48))), model.score(1000, 12));
+		assertTrue(model.score(1000, 24) > model.score(1000, 12));
+		assertTrue(model.score(1000, 60) < 10000);
+		assertFalse(model.isLinear());
+	}
+
+	@Test
+	void testLogisticBatchMatchesSingleScores() {
+		LogisticScoringModel model = new LogisticScoringModel(10000, -4, 0.004f, 0.04f, new float[0], true);
+		int[] scores = new int[COUNT];
+		model.scoreBatch(creditModifiers, loanPeriods, new float[0], scores, COUNT);
+		for (int i = 0; i < COUNT; i++) {
+			// Vectorized exp may round differently in the last bit.
+			assertEquals(model.score(creditModifiers[i], loanPeriods[i]), scores[i], 1);
+		}
+	}
+
+	@Test
+	void testVectorizedBatchMatchesScalarBatch() {
+		float[] featureWeights = { 0.5f, -0.25f };
+		LogisticScoringModel scalar = new LogisticScoringModel(10000, -4, 0.004f, 0.04f, featureWeights, false);
+		LogisticScoringModel vectorized = new LogisticScoringModel(10000, -4, 0.004f, 0.04f, featureWeights, true);
+		assertEquals(LogisticScoringModel.VECTOR_API_AVAILABLE, vectorized.isVectorized());
+
+		int[] expected = new int[COUNT];
+		int[] actual = new int[COUNT];
+		scalar.scoreBatch(creditModifiers, loanPeriods, features, expected, COUNT);
+		vectorized.scoreBatch(creditModifiers, loanPeriods, features, actual, COUNT);
+		for (int i = 0; i < COUNT; i++) {
+			assertEquals(expected[i], actual[i], 1);
+		}
+		assertEquals(2, vectorized.getFeatureCount());
+	}
+
+	@Test
+	void testBatchWithShortArraysIsRejected() {
+		LogisticScoringModel model = new LogisticScoringModel(10000, -4, 0.004f, 0.04f, new float[] { 1 }, true);
+		assertThrows(IllegalArgumentException.class,
+				() -> model.scoreBatch(creditModifiers, loanPeriods, new float[COUNT - 1], new int[COUNT], COUNT));
+		assertThrows(IllegalArgumentException.class,
+				() -> model.scoreBatch(creditModifiers, loanPeriods, features, new int[1], COUNT));
+	}
+
+	@Test
+	void testInvalidLogisticWeightsAreRejected() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new LogisticScoringModel(0, -4, 0.004f, 0.04f, new float[0], true));
+		assertThrows(IllegalArgumentException.class,
+				() -> new LogisticScoringModel(10000, -4, 0.004f, -0.04f, new float[0], true));
+	}
+
+	@Test
+	void testCalculatorSolvesLogisticModelWithBinarySearch() {
+		CreditScoreCalculator calculator = new CreditScoreCalculator(
+				new LogisticScoringModel(10000, -4, 0.004f, 0.04f, new float[0], true));
+		LoanPeriodSolver solver = LoanPeriodSolver.forCalculator(calculator);
+		assertTrue(solver instanceof BinarySearchLoanPeriodSolver);
+
+		int period = solver.findLoanPeriod(300, 12);
+		assertTrue(calculator.calculateCreditScore(300, period) >= DecisionEngineConstants.MINIMUM_LOAN_AMOUNT);
+		assertTrue(calculator.calculateCreditScore(300, period - 1) < DecisionEngineConstants.MINIMUM_LOAN_AMOUNT);
+	}
+}
@@ -0,0 +1,37 @@
+package ee.taltech.inbankbackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.Mac;
+
+import org.junit.jupiter.api.Test;
+
+class SecretHasherTest {
+
+	private static final byte[] PERSONAL_CODE = "38411266610".getBytes(StandardCharsets.US_ASCII);
+
+	private final SecretHasher hasher = new SecretHasher();
+
+	@Test
+	void testSameInputHasTheSameHash() {
+		assertEquals(hasher.hash(PERSONAL_CODE), hasher.hash(PERSONAL_CODE.clone()));
+		assertNotEquals(hasher.hash(PERSONAL_CODE), hasher.hash("50307172740".getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	@Test
+	void testPartsHashLikeTheWhole() {
+		Mac mac = hasher.newMac();
+		mac.update(PERSONAL_CODE, 0, 5);
+		mac.update(PERSONAL_CODE, 5, PERSONAL_CODE.length - 5);
+
+		assertEquals(hasher.hash(PERSONAL_CODE), SecretHasher.finish(mac));
+	}
+
+	@Test
+	void testEveryHasherHasItsOwnKey() {
+		assertNotEquals(hasher.hash(PERSONAL_CODE), new SecretHasher().hash(PERSONAL_CODE));
+	}
+}
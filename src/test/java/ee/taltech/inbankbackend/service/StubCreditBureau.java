@@ -0,0 +1,81 @@
+package ee.taltech.inbankbackend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local credit bureau for tests of {@link HttpCreditDataProvider}. Answers with
+ * the credit modifier of the local segment rules after an adjustable latency,
+ * or with an adjustable error status.
+ */
+class StubCreditBureau implements AutoCloseable {
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final CreditDataService creditDataService = new CreditDataService();
+	private final AtomicInteger requests = new AtomicInteger();
+	private volatile long latencyMillis;
+	private volatile int status = 200;
+
+	StubCreditBureau() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+		server.createContext("/credit-modifier", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	URI uri() {
+		return URI.create("http://localhost:" + server.getAddress().getPort() + "/credit-modifier");
+	}
+
+	void setLatencyMillis(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	void setStatus(int status) {
+		this.status = status;
+	}
+
+	int getRequestCount() {
+		return requests.get();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try (exchange; InputStream body = exchange.getRequestBody()) {
+			String personalCode = objectMapper.readTree(body).get("personalCode").asText();
+			if (latencyMillis > 0) {
+				Thread.sleep(latencyMillis);
+			}
+			byte[] response = status == 200
+					? ("{\"creditModifier\":" + creditDataService.getCreditModifier(personalCode) + "}")
+							.getBytes(StandardCharsets.UTF_8)
+					: "{\"error\":\"unavailable\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, response.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(response);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
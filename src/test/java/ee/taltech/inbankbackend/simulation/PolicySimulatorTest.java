@@ -0,0 +1,131 @@
+package ee.taltech.inbankbackend.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ee.taltech.inbankbackend.simulation.SimulationReport.Row;
+
+class PolicySimulatorTest {
+
+	private static final LocalDate DATE = LocalDate.of(2023, 3, 20);
+	private static final String APPLICATIONS = """
+			38411266610,4000,12,Estonia
+			35006069515,4000,12,Estonia
+			50307172740,4000,12,Estonia
+			37605030299,4000,12,Estonia
+			12345678901,4000,12,Estonia
+			261184-16665,4000,12,Latvia
+			38411266610,4000,12,Finland
+			not an application
+
+			""";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testReportComparesBothScenarios() throws IOException {
+		SimulationScenario candidate = scenario("loan-amount.max", "5000", "age.min", "20");
+		SimulationReport report = new PolicySimulator(SimulationScenario.defaults(), candidate, DATE)
+				.simulate(input(1));
+
+		assertEquals(1, report.getMalformedLines());
+		// Segment 3 is capped at the new maximum, the segment 1 customer is 19 and no longer old enough.
+		assertEquals(new Row("total", "all", 7, 4, 3, 19200, 12200, 0, 1), report.getRows().get(0));
+		assertEquals(new Row("segment", "1", 1, 1, 0, 2000, 0, 0, 1), report.getRow("segment", "1"));
+		assertEquals(new Row("segment", "3", 1, 1, 1, 10000, 5000, 0, 0), report.getRow("segment", "3"));
+		assertEquals(new Row("segment", "debt", 1, 0, 0, 0, 0, 0, 0), report.getRow("segment", "debt"));
+		// The invalid code and the unsupported country
+		assertEquals(new Row("segment", "unknown", 2, 0, 0, 0, 0, 0, 0), report.getRow("segment", "unknown"));
+		assertEquals(new Row("country", "Latvia", 1, 1, 1, 3600, 3600, 0, 0), report.getRow("country", "Latvia"));
+		assertEquals(new Row("country", "unsupported", 1, 0, 0, 0, 0, 0, 0),
+				report.getRow("country", "unsupported"));
+		assertEquals(new Row("age", "18-24", 1, 1, 0, 2000, 0, 0, 1), report.getRow("age", "18-24"));
+		assertEquals(new Row("age", "35-44", 2, 2, 2, 7200, 7200, 0, 0), report.getRow("age", "35-44"));
+		assertNull(report.getRow("country", "Lithuania"));
+
+		StringWriter csv = new StringWriter();
+		report.writeCsv(csv);
+		assertEquals("dimension,value,applications,baselineApproved,candidateApproved,baselineApprovalRate,"
+				+ "candidateApprovalRate,approvalRateChange,baselineAmount,candidateAmount,amountChange,"
+				+ "newlyApproved,newlyRejected", csv.toString().lines().findFirst().orElseThrow());
+		assertEquals("total,all,7,4,3,0.5714,0.4286,-0.1429,19200,12200,-7000,0,1",
+				csv.toString().lines().skip(1).findFirst().orElseThrow());
+	}
+
+	@Test
+	void testCreditModifiersOfTheCandidateAreUsed() throws IOException {
+		SimulationScenario candidate = scenario("credit-modifier.segment-1", "200");
+		SimulationReport report = new PolicySimulator(SimulationScenario.defaults(), candidate, DATE)
+				.simulate(input(1));
+
+		// 200 * 12 months instead of 100 * 20 months
+		assertEquals(new Row("segment", "1", 1, 1, 1, 2000, 2400, 0, 0), report.getRow("segment", "1"));
+		assertEquals(new Row("segment", "2", 2, 2, 2, 7200, 7200, 0, 0), report.getRow("segment", "2"));
+	}
+
+	@Test
+	void testSlicesSplitAtLineBoundaries() throws IOException {
+		SimulationScenario candidate = scenario("loan-amount.max", "5000", "age.min", "20");
+		Path input = input(1000);
+
+		SimulationReport whole = new PolicySimulator(SimulationScenario.defaults(), candidate, DATE).simulate(input);
+		// Slices that end in the middle of lines and shorter than a line
+		for (int sliceBytes : new int[] { 7, 64, 4096 }) {
+			SimulationReport sliced = new PolicySimulator(SimulationScenario.defaults(), candidate, DATE,
+					sliceBytes).simulate(input);
+			assertEquals(whole.getRows(), sliced.getRows());
+			assertEquals(1000, sliced.getMalformedLines());
+		}
+		assertEquals(new Row("total", "all", 7000, 4000, 3000, 19200000, 12200000, 0, 1000), whole.getRows().get(0));
+	}
+
+	@Test
+	void testColumnsAreFoundByName() throws IOException {
+		Path input = directory.resolve("audit.csv");
+		Files.writeString(input, """
+				timestamp,policyVersion,personalCode,country,loanAmount,loanPeriod,rejectionReason
+				1000,42,38411266610,Estonia,4000,12,
+				2000,42,38411266610,Estonia,,12,INVALID_LOAN_AMOUNT""");
+		SimulationReport report = new PolicySimulator(SimulationScenario.defaults(), SimulationScenario.defaults(),
+				DATE).simulate(input);
+		assertEquals(new Row("total", "all", 1, 1, 1, 3600, 3600, 0, 0), report.getRows().get(0));
+		assertEquals(1, report.getMalformedLines());
+
+		Files.writeString(input, "personalCode,loanAmount,country\n38411266610,4000,Estonia\n");
+		assertThrows(IllegalArgumentException.class, () -> new PolicySimulator(SimulationScenario.defaults(),
+				SimulationScenario.defaults(), DATE).simulate(input));
+	}
+
+	@Test
+	void testScenarioKeysAreValidated() {
+		assertThrows(IllegalArgumentException.class, () -> scenario("credit-modifier.segment-4", "100"));
+		assertThrows(IllegalArgumentException.class, () -> scenario("credit-modifier.segment-1", "0"));
+		assertEquals(SimulationScenario.defaults(), scenario());
+	}
+
+	private Path input(int repetitions) throws IOException {
+		Path input = directory.resolve("applications.csv");
+		Files.writeString(input, "personalCode,loanAmount,loanPeriod,country\n" + APPLICATIONS.repeat(repetitions));
+		return input;
+	}
+
+	private static SimulationScenario scenario(String... keysAndValues) {
+		Properties properties = new Properties();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			properties.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return SimulationScenario.fromProperties(properties);
+	}
+}
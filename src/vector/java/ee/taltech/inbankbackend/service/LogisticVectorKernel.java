@@ -0,0 +1,46 @@
+package ee.taltech.inbankbackend.service;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@code LogisticScoringModel#scoreBatch}. This
+ * class is only loaded if the {@code jdk.incubator.vector} module is present.
+ * It is compiled on its own, see the {@code vector} source set in
+ * {@code build.gradle}, so it only gets the parameters of the model.
+ */
+final class LogisticVectorKernel {
+
+	private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+	private LogisticVectorKernel() {
+	}
+
+	/**
+	 * Scores the applications in whole vectors.
+	 *
+	 * @return Number of applications scored; the rest is left to the scalar loop
+	 */
+	static int score(float scale, float intercept, float modifierWeight, float periodWeight, float[] featureWeights,
+			int[] creditModifiers, int[] loanPeriods, float[] features, int[] scores, int count) {
+		FloatVector scales = FloatVector.broadcast(FLOATS, scale);
+		int bound = FLOATS.loopBound(count);
+		for (int i = 0; i < bound; i += FLOATS.length()) {
+			FloatVector modifiers = (FloatVector) IntVector.fromArray(INTS, creditModifiers, i)
+					.convert(VectorOperators.I2F, 0);
+			FloatVector periods = (FloatVector) IntVector.fromArray(INTS, loanPeriods, i)
+					.convert(VectorOperators.I2F, 0);
+			// Same operation order as the scalar loop, so z is identical.
+			FloatVector z = modifiers.mul(modifierWeight).add(intercept).add(periods.mul(periodWeight));
+			for (int f = 0; f < featureWeights.length; f++) {
+				z = z.add(FloatVector.fromArray(FLOATS, features, f * count + i).mul(featureWeights[f]));
+			}
+			FloatVector score = scales.div(z.neg().lanewise(VectorOperators.EXP).add(1f));
+			((IntVector) score.convert(VectorOperators.F2I, 0)).intoArray(scores, i);
+		}
+		return bound;
+	}
+}